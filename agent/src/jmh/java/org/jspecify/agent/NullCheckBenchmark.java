@@ -0,0 +1,117 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.agent.bench.Echo;
+import org.jspecify.agent.bench.MarkedEcho;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to call a method with and without the checks that the agent inserts. {@link
+ * WeaveBenchmark} measures the time to insert them.
+ *
+ * <p>{@code variant} selects how {@link MarkedEcho} is loaded: {@code plain} is the class as
+ * compiled, {@code woven} has its parameter and return value checked, {@code counted} has them
+ * checked in {@code mode=count}, and {@code unsampled} went through the agent with {@code
+ * sample=0}, so it should cost the same as {@code plain}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NullCheckBenchmark {
+  @Param({"plain", "woven", "counted", "unsampled"})
+  public String variant;
+
+  private Echo echo;
+  private String input = "input";
+  private int zero = 0;
+
+  @Setup
+  public void setUp() throws Exception {
+    Class<?> type;
+    switch (variant) {
+      case "plain":
+        type = MarkedEcho.class;
+        break;
+      case "woven":
+        type = new WeavingLoader(AgentOptions.parse("")).load(MarkedEcho.class);
+        break;
+      case "counted":
+        type = new WeavingLoader(AgentOptions.parse("mode=count")).load(MarkedEcho.class);
+        break;
+      case "unsampled":
+        type = new WeavingLoader(AgentOptions.parse("sample=0")).load(MarkedEcho.class);
+        break;
+      default:
+        throw new IllegalArgumentException(variant);
+    }
+    echo = (Echo) type.getConstructor().newInstance();
+  }
+
+  @Benchmark
+  public String call() {
+    return echo.echo(input, zero);
+  }
+
+  static byte[] classFile(Class<?> type) throws IOException {
+    String resource = type.getName().replace('.', '/') + ".class";
+    try (InputStream in = type.getClassLoader().getResourceAsStream(resource)) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      for (int n; (n = in.read(buffer)) > 0; ) {
+        bytes.write(buffer, 0, n);
+      }
+      return bytes.toByteArray();
+    }
+  }
+
+  /** Defines a second copy of a class, passed through {@link NullCheckTransformer}. */
+  private static final class WeavingLoader extends ClassLoader {
+    private final NullCheckTransformer transformer;
+
+    WeavingLoader(AgentOptions options) {
+      super(NullCheckBenchmark.class.getClassLoader());
+      this.transformer = new NullCheckTransformer(options);
+    }
+
+    Class<?> load(Class<?> type) throws IOException {
+      byte[] bytes = classFile(type);
+      String internalName = type.getName().replace('.', '/');
+      byte[] woven = transformer.transform(this, internalName, null, null, bytes);
+      if (woven != null) {
+        bytes = woven;
+      }
+      return defineClass(type.getName(), bytes, 0, bytes.length);
+    }
+  }
+}
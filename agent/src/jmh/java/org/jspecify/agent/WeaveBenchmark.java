@@ -0,0 +1,54 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent;
+
+import java.util.concurrent.TimeUnit;
+import org.jspecify.agent.bench.MarkedEcho;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time to weave a class as it loads, once the scope of the class's package is cached.
+ * It is apart from {@link NullCheckBenchmark} so that it doesn't run once per variant there.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class WeaveBenchmark {
+  private final NullCheckTransformer transformer = new NullCheckTransformer(AgentOptions.parse(""));
+  private byte[] classFile;
+
+  @Setup
+  public void setUp() throws Exception {
+    classFile = NullCheckBenchmark.classFile(MarkedEcho.class);
+  }
+
+  @Benchmark
+  public byte[] weave() {
+    return transformer.weave(WeaveBenchmark.class.getClassLoader(), classFile);
+  }
+}
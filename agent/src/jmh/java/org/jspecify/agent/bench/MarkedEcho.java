@@ -0,0 +1,27 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent.bench;
+
+import org.jspecify.annotations.NullMarked;
+
+/** A null-marked method with a non-null parameter and return value, so two checks when woven. */
+@NullMarked
+public class MarkedEcho implements Echo {
+  @Override
+  public String echo(String s, int i) {
+    return i == 0 ? s : "";
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The options of {@link NullCheckAgent}, parsed from the agent argument string, which is a
+ * comma-separated list of {@code name=value} pairs:
+ *
+ * <ul>
+ *   <li>{@code include=com.example:org.example.api}: instrument only classes in these packages and
+ *       their subpackages. By default, we instrument every class that isn't excluded.
+ *   <li>{@code exclude=com.example.internal}: don't instrument classes in these packages and their
+ *       subpackages, even if they are included. The JDK's own packages and those of the agent are
+ *       always excluded.
+ *   <li>{@code sample=0.1}: instrument only about this fraction of the eligible methods (by
+ *       default, all of them). The choice depends only on the method's class, name, and
+ *       descriptor, so it is the same in every run.
+ *   <li>{@code mode=count}: count violations per call site instead of throwing. See {@link
+ *       org.jspecify.agent.runtime.Violations}.
+ *   <li>{@code report=FILE}: in count mode, write the counts as JSON to this file periodically and
+ *       at exit. Without it, they're written to standard error at exit.
+ *   <li>{@code reportInterval=SECONDS}: how often to write the report and to emit the counts as
+ *       JFR events (by default, every 60 seconds).
+ *   <li>{@code verbose=true}: report each instrumented class on standard error.
+ * </ul>
+ */
+final class AgentOptions {
+  /** The JDK's packages and our copy of ASM. */
+  private static final List<String> ALWAYS_EXCLUDED =
+      Arrays.asList("java", "javax", "jdk", "sun", "com.sun", "org.jspecify.agent.internal");
+
+  /** The package of the agent's own classes, but not its subpackages. */
+  private static final String AGENT_PACKAGE = "org.jspecify.agent";
+
+  final List<String> includes;
+  final List<String> excludes;
+  final double sampleRate;
+  final boolean countViolations;
+  final Path report;
+  final long reportIntervalSeconds;
+  final boolean verbose;
+
+  AgentOptions(
+      List<String> includes,
+      List<String> excludes,
+      double sampleRate,
+      boolean countViolations,
+      Path report,
+      long reportIntervalSeconds,
+      boolean verbose) {
+    if (!(sampleRate >= 0 && sampleRate <= 1)) {
+      throw new IllegalArgumentException("sample rate must be between 0 and 1: " + sampleRate);
+    }
+    if (reportIntervalSeconds <= 0) {
+      throw new IllegalArgumentException("report interval must be positive");
+    }
+    this.includes = includes;
+    List<String> allExcludes = new ArrayList<>(ALWAYS_EXCLUDED);
+    allExcludes.addAll(excludes);
+    this.excludes = Collections.unmodifiableList(allExcludes);
+    this.sampleRate = sampleRate;
+    this.countViolations = countViolations;
+    this.report = report;
+    this.reportIntervalSeconds = reportIntervalSeconds;
+    this.verbose = verbose;
+  }
+
+  static AgentOptions parse(String args) {
+    List<String> includes = Collections.emptyList();
+    List<String> excludes = Collections.emptyList();
+    double sampleRate = 1;
+    boolean countViolations = false;
+    Path report = null;
+    long reportIntervalSeconds = 60;
+    boolean verbose = false;
+    if (args != null && !args.isEmpty()) {
+      for (String option : args.split(",")) {
+        int equals = option.indexOf('=');
+        if (equals < 0) {
+          throw new IllegalArgumentException("expected name=value: " + option);
+        }
+        String name = option.substring(0, equals).trim();
+        String value = option.substring(equals + 1).trim();
+        switch (name) {
+          case "include":
+            includes = packages(value);
+            break;
+          case "exclude":
+            excludes = packages(value);
+            break;
+          case "sample":
+            sampleRate = Double.parseDouble(value);
+            break;
+          case "mode":
+            if (!value.equals("throw") && !value.equals("count")) {
+              throw new IllegalArgumentException("mode must be throw or count: " + value);
+            }
+            countViolations = value.equals("count");
+            break;
+          case "report":
+            report = Paths.get(value);
+            break;
+          case "reportInterval":
+            reportIntervalSeconds = Long.parseLong(value);
+            break;
+          case "verbose":
+            verbose = Boolean.parseBoolean(value);
+            break;
+          default:
+            throw new IllegalArgumentException("unknown option: " + name);
+        }
+      }
+    }
+    return new AgentOptions(
+        includes, excludes, sampleRate, countViolations, report, reportIntervalSeconds, verbose);
+  }
+
+  private static List<String> packages(String value) {
+    List<String> packages = new ArrayList<>();
+    for (String pkg : value.split(":")) {
+      pkg = pkg.trim();
+      // Accept "com.example.*" and "com.example." as well as "com.example".
+      while (pkg.endsWith("*") || pkg.endsWith(".")) {
+        pkg = pkg.substring(0, pkg.length() - 1);
+      }
+      if (!pkg.isEmpty()) {
+        packages.add(pkg);
+      }
+    }
+    return Collections.unmodifiableList(packages);
+  }
+
+  /** Returns whether to instrument the class with the given internal name. */
+  boolean isIncluded(String internalName) {
+    String name = internalName.replace('/', '.');
+    if (name.lastIndexOf('.') == AGENT_PACKAGE.length() && name.startsWith(AGENT_PACKAGE)) {
+      return false;
+    }
+    return (includes.isEmpty() || inAny(name, includes)) && !inAny(name, excludes);
+  }
+
+  private static boolean inAny(String className, List<String> packages) {
+    for (String pkg : packages) {
+      if (className.startsWith(pkg)
+          && className.length() > pkg.length()
+          && className.charAt(pkg.length()) == '.') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** Returns whether the given method falls in the sample of methods to instrument. */
+  boolean isSampled(String owner, String name, String descriptor) {
+    if (sampleRate >= 1) {
+      return true;
+    }
+    int h = (owner + '.' + name + descriptor).hashCode();
+    // Spread the bits of String.hashCode, which are poorly distributed for similar strings.
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return (h & 0xFFFFFFFFL) < sampleRate * 0x1p32;
+  }
+}
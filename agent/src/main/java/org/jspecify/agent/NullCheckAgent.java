@@ -0,0 +1,76 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.instrument.Instrumentation;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+/**
+ * A Java agent that enforces JSpecify nullness at method boundaries: As each class loads, it
+ * inserts a check that throws {@link NullPointerException} when a public method or constructor in
+ * null-marked code receives {@code null} for a non-null parameter or returns {@code null} from a
+ * non-null return type. In {@code mode=count}, the checks count violations instead.
+ *
+ * <p>Enable it with {@code -javaagent:jspecify-agent.jar=OPTIONS}, where OPTIONS are described in
+ * {@link AgentOptions}; for example, {@code include=com.example,sample=0.1}. Classes that are
+ * already loaded when the agent starts are not instrumented.
+ */
+public final class NullCheckAgent {
+  /** The class that woven code calls in count mode, which every class loader must see. */
+  private static final String RUNTIME_CLASS = "org/jspecify/agent/runtime/Violations.class";
+
+  public static void premain(String args, Instrumentation instrumentation) {
+    AgentOptions options = AgentOptions.parse(args);
+    if (options.countViolations) {
+      // This must happen before anything loads Violations from the agent jar.
+      instrumentation.appendToBootstrapClassLoaderSearch(runtimeJar());
+      ViolationReporter.start(options);
+    }
+    instrumentation.addTransformer(new NullCheckTransformer(options));
+  }
+
+  /**
+   * Copies the runtime classes into a jar of their own. We can't put the whole agent jar on the
+   * bootstrap class path: Its other classes would then be split between two class loaders.
+   */
+  private static JarFile runtimeJar() {
+    try {
+      Path jar = Files.createTempFile("jspecify-agent-runtime", ".jar");
+      jar.toFile().deleteOnExit();
+      ClassLoader loader = NullCheckAgent.class.getClassLoader();
+      try (InputStream in = loader.getResourceAsStream(RUNTIME_CLASS);
+          JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+        out.putNextEntry(new JarEntry(RUNTIME_CLASS));
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+          out.write(buffer, 0, n);
+        }
+      }
+      return new JarFile(jar.toFile());
+    } catch (IOException e) {
+      throw new UncheckedIOException("cannot set up the agent's count mode", e);
+    }
+  }
+
+  private NullCheckAgent() {}
+}
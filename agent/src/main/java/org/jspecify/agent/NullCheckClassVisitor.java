@@ -0,0 +1,305 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jspecify.agent.ScopeResolver.Marking;
+import org.jspecify.agent.runtime.Violations;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.TypePath;
+import org.objectweb.asm.TypeReference;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+
+/**
+ * Inserts a null check for each non-null parameter and return value of each public method and
+ * constructor of a class.
+ *
+ * <p>A parameter or return type is non-null if it is a reference type and either is annotated
+ * {@code @NonNull} or is in null-marked code, is not annotated {@code @Nullable}, and is not a
+ * type variable (whose argument may include {@code null}). The checks call {@code
+ * Objects.requireNonNull}, which every class loader can see, or in count mode {@link
+ * Violations#checkNonNull}, which the agent puts on the bootstrap class path.
+ */
+final class NullCheckClassVisitor extends ScopeResolver.ClassInfoCollector {
+  private static final String NULLABLE = "Lorg/jspecify/annotations/Nullable;";
+  private static final String NON_NULL = "Lorg/jspecify/annotations/NonNull;";
+
+  private final ClassLoader loader;
+  private final ScopeResolver scopes;
+  private final AgentOptions options;
+  private boolean isEnum;
+  private Boolean classNullMarked;
+  /** The number of checks that we've inserted. */
+  int checks;
+
+  NullCheckClassVisitor(
+      ClassVisitor next, ClassLoader loader, ScopeResolver scopes, AgentOptions options) {
+    super(next);
+    this.loader = loader;
+    this.scopes = scopes;
+    this.options = options;
+  }
+
+  @Override
+  public void visit(
+      int version,
+      int access,
+      String name,
+      String signature,
+      String superName,
+      String[] interfaces) {
+    isEnum = (access & Opcodes.ACC_ENUM) != 0;
+    super.visit(version, access, name, signature, superName, interfaces);
+  }
+
+  @Override
+  public MethodVisitor visitMethod(
+      int access, String name, String descriptor, String signature, String[] exceptions) {
+    MethodVisitor next = super.visitMethod(access, name, descriptor, signature, exceptions);
+    int skipped =
+        Opcodes.ACC_ABSTRACT | Opcodes.ACC_NATIVE | Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE;
+    if ((access & Opcodes.ACC_PUBLIC) == 0
+        || (access & skipped) != 0
+        || name.equals("<clinit>")
+        // javac adds parameters to these constructors, such as the outer instance and captured
+        // values, which throws off parameter indexes.
+        || (name.equals("<init>") && (isEnum || info.inner || info.local))
+        || !options.isSampled(info.name, name, descriptor)) {
+      return next;
+    }
+    return new MethodChecks(next, access, name, descriptor, signature);
+  }
+
+  private boolean isClassNullMarked() {
+    if (classNullMarked == null) {
+      classNullMarked = scopes.isNullMarked(loader, info);
+    }
+    return classNullMarked;
+  }
+
+  private final class MethodChecks extends MethodVisitor {
+    private final boolean isStatic;
+    private final String name;
+    private final String descriptor;
+    private final Type[] parameterTypes;
+    private final Type returnType;
+    private final boolean[] typeVariables;
+    private final boolean[] nullable;
+    private final boolean[] nonNull;
+    private boolean marked;
+    private boolean unmarked;
+    private boolean checkReturn;
+
+    MethodChecks(MethodVisitor next, int access, String name, String descriptor, String signature) {
+      super(Opcodes.ASM9, next);
+      this.isStatic = (access & Opcodes.ACC_STATIC) != 0;
+      this.name = name;
+      this.descriptor = descriptor;
+      this.parameterTypes = Type.getArgumentTypes(descriptor);
+      this.returnType = Type.getReturnType(descriptor);
+      // The last element of each array is for the return type.
+      this.typeVariables = typeVariables(signature, parameterTypes.length);
+      this.nullable = new boolean[parameterTypes.length + 1];
+      this.nonNull = new boolean[parameterTypes.length + 1];
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+      marked |= annotation.equals(ScopeResolver.NULL_MARKED);
+      unmarked |= annotation.equals(ScopeResolver.NULL_UNMARKED);
+      return super.visitAnnotation(annotation, visible);
+    }
+
+    @Override
+    public AnnotationVisitor visitTypeAnnotation(
+        int typeRef, TypePath typePath, String annotation, boolean visible) {
+      TypeReference reference = new TypeReference(typeRef);
+      int index = -1;
+      if (reference.getSort() == TypeReference.METHOD_FORMAL_PARAMETER) {
+        index = reference.getFormalParameterIndex();
+      } else if (reference.getSort() == TypeReference.METHOD_RETURN) {
+        index = parameterTypes.length;
+      }
+      if (index >= 0 && index <= parameterTypes.length && isOnRootType(typePath)) {
+        nullable[index] |= annotation.equals(NULLABLE);
+        nonNull[index] |= annotation.equals(NON_NULL);
+      }
+      return super.visitTypeAnnotation(typeRef, typePath, annotation, visible);
+    }
+
+    @Override
+    public void visitCode() {
+      super.visitCode();
+      Marking marking = Marking.of(marked, unmarked);
+      boolean nullMarked =
+          marking == Marking.NONE ? isClassNullMarked() : marking == Marking.MARKED;
+      int slot = isStatic ? 0 : 1;
+      for (int i = 0; i < parameterTypes.length; i++) {
+        if (isNonNull(parameterTypes[i], i, nullMarked)) {
+          super.visitVarInsn(Opcodes.ALOAD, slot);
+          checkNonNull("parameter " + i);
+          checks++;
+        }
+        slot += parameterTypes[i].getSize();
+      }
+      checkReturn = isNonNull(returnType, parameterTypes.length, nullMarked);
+    }
+
+    @Override
+    public void visitInsn(int opcode) {
+      if (opcode == Opcodes.ARETURN && checkReturn) {
+        super.visitInsn(Opcodes.DUP);
+        checkNonNull("return value");
+        checks++;
+      }
+      super.visitInsn(opcode);
+    }
+
+    /**
+     * Consumes the value on top of the stack, throwing if it is {@code null} or, in count mode,
+     * counting a violation.
+     */
+    private void checkNonNull(String what) {
+      String site =
+          "non-null " + what + " of " + info.name.replace('/', '.') + "." + name + descriptor;
+      if (options.countViolations) {
+        super.visitLdcInsn(Violations.register(site));
+        super.visitMethodInsn(
+            Opcodes.INVOKESTATIC,
+            "org/jspecify/agent/runtime/Violations",
+            "checkNonNull",
+            "(Ljava/lang/Object;I)V",
+            false);
+      } else {
+        super.visitLdcInsn(site);
+        super.visitMethodInsn(
+            Opcodes.INVOKESTATIC,
+            "java/util/Objects",
+            "requireNonNull",
+            "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/Object;",
+            false);
+        super.visitInsn(Opcodes.POP);
+      }
+    }
+
+    private boolean isNonNull(Type type, int index, boolean nullMarked) {
+      if (type.getSort() != Type.OBJECT && type.getSort() != Type.ARRAY) {
+        return false;
+      }
+      if (nullable[index] != nonNull[index]) {
+        return nonNull[index];
+      }
+      return nullMarked && !typeVariables[index];
+    }
+  }
+
+  /**
+   * Returns whether a type path leads to the type that a parameter or return type declares, rather
+   * than to a type argument or array component. Only steps into the enclosing type of an inner
+   * class are allowed, since {@code Outer.@Nullable Inner} annotates the root.
+   */
+  private static boolean isOnRootType(TypePath path) {
+    if (path == null) {
+      return true;
+    }
+    for (int i = 0; i < path.getLength(); i++) {
+      if (path.getStep(i) != TypePath.INNER_TYPE) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns whether each parameter type, and then the return type, is a type variable according to
+   * {@code signature}. If the signature doesn't match the descriptor, we assume that they all are,
+   * so that we insert no checks that might be wrong.
+   */
+  private static boolean[] typeVariables(String signature, int parameterCount) {
+    boolean[] result = new boolean[parameterCount + 1];
+    if (signature == null) {
+      return result;
+    }
+    List<Boolean> roots = new ArrayList<>();
+    new SignatureReader(signature)
+        .accept(
+            new SignatureVisitor(Opcodes.ASM9) {
+              @Override
+              public SignatureVisitor visitParameterType() {
+                return new RootVisitor(roots);
+              }
+
+              @Override
+              public SignatureVisitor visitReturnType() {
+                return new RootVisitor(roots);
+              }
+            });
+    if (roots.size() != parameterCount + 1) {
+      Arrays.fill(result, true);
+      return result;
+    }
+    for (int i = 0; i < result.length; i++) {
+      result[i] = roots.get(i);
+    }
+    return result;
+  }
+
+  /** Records whether the first type that it visits, the root, is a type variable. */
+  private static final class RootVisitor extends SignatureVisitor {
+    private final List<Boolean> roots;
+    private boolean recorded;
+
+    RootVisitor(List<Boolean> roots) {
+      super(Opcodes.ASM9);
+      this.roots = roots;
+    }
+
+    private void record(boolean typeVariable) {
+      if (!recorded) {
+        recorded = true;
+        roots.add(typeVariable);
+      }
+    }
+
+    @Override
+    public void visitBaseType(char descriptor) {
+      record(false);
+    }
+
+    @Override
+    public void visitTypeVariable(String name) {
+      record(true);
+    }
+
+    @Override
+    public SignatureVisitor visitArrayType() {
+      record(false);
+      return this;
+    }
+
+    @Override
+    public void visitClassType(String name) {
+      record(false);
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+/** Runs {@link NullCheckClassVisitor} over each class that the options select. */
+final class NullCheckTransformer implements ClassFileTransformer {
+  private final AgentOptions options;
+  private final ScopeResolver scopes = new ScopeResolver();
+
+  NullCheckTransformer(AgentOptions options) {
+    this.options = options;
+  }
+
+  @Override
+  public byte[] transform(
+      ClassLoader loader,
+      String className,
+      Class<?> classBeingRedefined,
+      ProtectionDomain protectionDomain,
+      byte[] classfileBuffer) {
+    // We can't read the package-info of classes in the bootstrap loader, and those are JDK classes.
+    if (loader == null || className == null || !options.isIncluded(className)) {
+      return null;
+    }
+    try {
+      return weave(loader, classfileBuffer);
+    } catch (RuntimeException | LinkageError e) {
+      // The JVM would ignore the exception, and we'd rather load the class unchecked than fail.
+      System.err.println("jspecify-agent: cannot instrument " + className + ": " + e);
+      return null;
+    }
+  }
+
+  /** Returns the class file with checks inserted, or {@code null} if it needs none. */
+  byte[] weave(ClassLoader loader, byte[] classFile) {
+    ClassReader reader = new ClassReader(classFile);
+    ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+    NullCheckClassVisitor visitor = new NullCheckClassVisitor(writer, loader, scopes, options);
+    reader.accept(visitor, 0);
+    if (visitor.checks == 0) {
+      return null;
+    }
+    if (options.verbose) {
+      System.err.println(
+          "jspecify-agent: " + visitor.checks + " null checks in " + reader.getClassName());
+    }
+    return writer.toByteArray();
+  }
+}
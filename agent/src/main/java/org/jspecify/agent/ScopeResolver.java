@@ -0,0 +1,249 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Decides whether code is null-marked by reading the class files of the enclosing classes and the
+ * {@code package-info} through the defining class loader, since the classes themselves may not be
+ * loaded yet (and we must not load them from inside a transformer).
+ *
+ * <p>Results are cached per class loader, in a map that doesn't keep the loader alive. Modules are
+ * not consulted, so a class that is null-marked only through its {@code module-info} is treated
+ * as unmarked, and we insert no checks into it.
+ */
+final class ScopeResolver {
+  static final String NULL_MARKED = "Lorg/jspecify/annotations/NullMarked;";
+  static final String NULL_UNMARKED = "Lorg/jspecify/annotations/NullUnmarked;";
+
+  /** Whether an element's own annotations decide whether it is null-marked. */
+  enum Marking {
+    MARKED,
+    UNMARKED,
+    /** Neither annotation, or both, which cancel each other out. */
+    NONE;
+
+    static Marking of(boolean marked, boolean unmarked) {
+      return marked == unmarked ? NONE : marked ? MARKED : UNMARKED;
+    }
+  }
+
+  /** What the class file of one class says about null-marking. */
+  static final class ClassInfo {
+    final String name;
+    boolean marked;
+    boolean unmarked;
+    /** The class that encloses this one, if any. */
+    String outerClass;
+    /** The name and descriptor of the method that encloses this local class, if any. */
+    String outerMethod;
+    /** Whether this is a non-static member class, whose constructors take the outer instance. */
+    boolean inner;
+    /** Whether this is a local or anonymous class, whose constructors may take more parameters. */
+    boolean local;
+    /** The name and descriptor of each method whose own annotations decide its marking. */
+    final Map<String, Marking> methods = new HashMap<>();
+
+    ClassInfo(String name) {
+      this.name = name;
+    }
+
+    Marking marking() {
+      return Marking.of(marked, unmarked);
+    }
+  }
+
+  /**
+   * Collects a {@link ClassInfo} while passing every event on to the next visitor, if any. Reading
+   * method annotations is left to subclasses that need them.
+   */
+  static class ClassInfoCollector extends ClassVisitor {
+    ClassInfo info;
+
+    ClassInfoCollector(ClassVisitor next) {
+      super(Opcodes.ASM9, next);
+    }
+
+    @Override
+    public void visit(
+        int version,
+        int access,
+        String name,
+        String signature,
+        String superName,
+        String[] interfaces) {
+      info = new ClassInfo(name);
+      super.visit(version, access, name, signature, superName, interfaces);
+    }
+
+    @Override
+    public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+      info.marked |= descriptor.equals(NULL_MARKED);
+      info.unmarked |= descriptor.equals(NULL_UNMARKED);
+      return super.visitAnnotation(descriptor, visible);
+    }
+
+    @Override
+    public void visitOuterClass(String owner, String name, String descriptor) {
+      info.outerClass = owner;
+      info.local = true;
+      info.outerMethod = name == null ? null : name + descriptor;
+      super.visitOuterClass(owner, name, descriptor);
+    }
+
+    @Override
+    public void visitInnerClass(String name, String outerName, String innerName, int access) {
+      if (name.equals(info.name) && outerName != null) {
+        info.outerClass = outerName;
+        info.inner = (access & Opcodes.ACC_STATIC) == 0;
+      }
+      super.visitInnerClass(name, outerName, innerName, access);
+    }
+  }
+
+  /** Also records the marking of each method. */
+  private static final class MethodMarkingCollector extends ClassInfoCollector {
+    MethodMarkingCollector() {
+      super(null);
+    }
+
+    @Override
+    public MethodVisitor visitMethod(
+        int access, String name, String descriptor, String signature, String[] exceptions) {
+      String key = name + descriptor;
+      return new MethodVisitor(Opcodes.ASM9) {
+        boolean marked;
+        boolean unmarked;
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String annotation, boolean visible) {
+          marked |= annotation.equals(NULL_MARKED);
+          unmarked |= annotation.equals(NULL_UNMARKED);
+          return null;
+        }
+
+        @Override
+        public void visitEnd() {
+          Marking marking = Marking.of(marked, unmarked);
+          if (marking != Marking.NONE) {
+            info.methods.put(key, marking);
+          }
+        }
+      };
+    }
+  }
+
+  /** For each class loader, the class infos and class scopes that we've computed. */
+  private final Map<ClassLoader, Map<String, Object>> cache = new WeakHashMap<>();
+
+  /** Returns whether code in the class described by {@code info} is null-marked. */
+  boolean isNullMarked(ClassLoader loader, ClassInfo info) {
+    Marking marking = info.marking();
+    if (marking != Marking.NONE) {
+      return marking == Marking.MARKED;
+    }
+    if (info.outerClass != null) {
+      if (info.outerMethod != null) {
+        ClassInfo outer = classInfo(loader, info.outerClass);
+        Marking methodMarking = outer == null ? null : outer.methods.get(info.outerMethod);
+        if (methodMarking != null) {
+          return methodMarking == Marking.MARKED;
+        }
+      }
+      return isClassNullMarked(loader, info.outerClass);
+    }
+    int slash = info.name.lastIndexOf('/');
+    return isClassNullMarked(loader, info.name.substring(0, slash + 1) + "package-info");
+  }
+
+  /** Returns whether the class (or package-info) with the given name is null-marked. */
+  private boolean isClassNullMarked(ClassLoader loader, String name) {
+    String key = "scope:" + name;
+    synchronized (cache) {
+      Object cached = loaderCache(loader).get(key);
+      if (cached != null) {
+        return (Boolean) cached;
+      }
+    }
+    ClassInfo info = classInfo(loader, name);
+    boolean nullMarked = info != null && isNullMarked(loader, info);
+    synchronized (cache) {
+      loaderCache(loader).put(key, nullMarked);
+    }
+    return nullMarked;
+  }
+
+  /** Reads the class file of the given class, returning {@code null} if there is none. */
+  private ClassInfo classInfo(ClassLoader loader, String name) {
+    String key = "info:" + name;
+    synchronized (cache) {
+      Object cached = loaderCache(loader).get(key);
+      if (cached != null) {
+        return cached instanceof ClassInfo ? (ClassInfo) cached : null;
+      }
+    }
+    Object info;
+    byte[] bytes = read(loader, name + ".class");
+    if (bytes == null) {
+      info = Boolean.FALSE; // a marker for "no such class file"
+    } else {
+      MethodMarkingCollector collector = new MethodMarkingCollector();
+      int skipped = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+      new ClassReader(bytes).accept(collector, skipped);
+      info = collector.info;
+    }
+    synchronized (cache) {
+      loaderCache(loader).put(key, info);
+    }
+    return info instanceof ClassInfo ? (ClassInfo) info : null;
+  }
+
+  private Map<String, Object> loaderCache(ClassLoader loader) {
+    Map<String, Object> map = cache.get(loader);
+    if (map == null) {
+      map = new HashMap<>();
+      cache.put(loader, map);
+    }
+    return map;
+  }
+
+  private static byte[] read(ClassLoader loader, String resource) {
+    try (InputStream in = loader.getResourceAsStream(resource)) {
+      if (in == null) {
+        return null;
+      }
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      for (int n; (n = in.read(buffer)) > 0; ) {
+        bytes.write(buffer, 0, n);
+      }
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      return null;
+    }
+  }
+}
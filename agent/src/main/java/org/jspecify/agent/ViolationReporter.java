@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.agent.runtime.Violations;
+import org.jspecify.runtime.NullnessViolations;
+
+/**
+ * Reports snapshots of the {@link Violations} counts, for {@code mode=count}: as JSON, and as
+ * {@code org.jspecify.NullContractViolationCount} JFR events (see {@link NullnessViolations}).
+ */
+final class ViolationReporter {
+  /**
+   * Starts reporting every {@code options.reportIntervalSeconds} and at exit. The JSON goes to
+   * {@code options.report} or, if there is no report file, to standard error at exit only. (A
+   * recording that JFR dumps at exit may miss the final events, since shutdown hooks run in no
+   * particular order.)
+   */
+  static void start(AgentOptions options) {
+    Path report = options.report;
+    ScheduledExecutorService executor =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "jspecify-agent-report");
+              thread.setDaemon(true);
+              return thread;
+            });
+    long interval = options.reportIntervalSeconds;
+    executor.scheduleAtFixedRate(
+        () -> {
+          Map<String, Long> counts = Violations.snapshot();
+          NullnessViolations.recordCounts(counts);
+          if (report != null) {
+            write(report, counts);
+          }
+        },
+        interval,
+        interval,
+        TimeUnit.SECONDS);
+    Runtime.getRuntime()
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  Map<String, Long> counts = Violations.snapshot();
+                  NullnessViolations.recordCounts(counts);
+                  if (report != null) {
+                    write(report, counts);
+                  } else {
+                    System.err.print(toJson(counts, System.currentTimeMillis()));
+                  }
+                },
+                "jspecify-agent-final-report"));
+  }
+
+  /** Atomically replaces {@code report} with a snapshot of the counts. */
+  static void write(Path report) {
+    write(report, Violations.snapshot());
+  }
+
+  private static void write(Path report, Map<String, Long> counts) {
+    String json = toJson(counts, System.currentTimeMillis());
+    Path temp = report.resolveSibling(report.getFileName() + ".tmp");
+    try {
+      Files.write(temp, json.getBytes(UTF_8));
+      Files.move(temp, report, ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (IOException e) {
+      System.err.println("jspecify-agent: cannot write " + report + ": " + e);
+    }
+  }
+
+  /**
+   * Formats counts as one line of JSON:
+   *
+   * <pre>{@code
+   * {"timeMillis":1700000000000,"violations":[{"site":"non-null parameter 0 of Foo.bar(...)V",
+   *     "count":3}]}
+   * }</pre>
+   */
+  static String toJson(Map<String, Long> counts, long timeMillis) {
+    StringBuilder json = new StringBuilder();
+    json.append("{\"timeMillis\":").append(timeMillis).append(",\"violations\":[");
+    boolean first = true;
+    for (Map.Entry<String, Long> entry : counts.entrySet()) {
+      if (!first) {
+        json.append(',');
+      }
+      first = false;
+      json.append("{\"site\":");
+      appendString(json, entry.getKey());
+      json.append(",\"count\":").append(entry.getValue()).append('}');
+    }
+    return json.append("]}\n").toString();
+  }
+
+  private static void appendString(StringBuilder json, String s) {
+    json.append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if (c < 0x20) {
+        json.append(String.format("\\u%04x", (int) c));
+      } else {
+        json.append(c);
+      }
+    }
+    json.append('"');
+  }
+
+  private ViolationReporter() {}
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent.runtime;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts null-contract violations per call site, for the agent's {@code mode=count}.
+ *
+ * <p>Code woven in count mode calls {@link #checkNonNull} where it would otherwise throw. That
+ * method does nothing but a null check unless there is a violation, so the JIT can inline it and
+ * the common path costs no more than a comparison. Each site has its own {@link LongAdder}, so
+ * threads that hit the same site rarely contend, and no counter ever takes a lock.
+ *
+ * <p>Woven classes may be defined by any class loader, so the agent puts this class on the
+ * bootstrap class path. It is public only for that reason.
+ */
+public final class Violations {
+  private static final Object lock = new Object();
+
+  /** Indexed by site. Written only under {@link #lock}; read without it by the woven code. */
+  private static volatile LongAdder[] counters = new LongAdder[64];
+
+  private static volatile String[] sites = new String[64];
+  private static int siteCount;
+
+  /** Registers a call site, described by {@code site}, and returns its number. */
+  public static int register(String site) {
+    synchronized (lock) {
+      int id = siteCount++;
+      LongAdder[] newCounters = counters;
+      String[] newSites = sites;
+      if (id == newCounters.length) {
+        newCounters = Arrays.copyOf(newCounters, id * 2);
+        newSites = Arrays.copyOf(newSites, id * 2);
+      }
+      newCounters[id] = new LongAdder();
+      newSites[id] = site;
+      // Write the fields even if the arrays are the same, to publish the new elements.
+      sites = newSites;
+      counters = newCounters;
+      return id;
+    }
+  }
+
+  /** Counts a violation at {@code site} if {@code value}, which must not be null there, is. */
+  public static void checkNonNull(Object value, int site) {
+    if (value == null) {
+      counters[site].increment();
+    }
+  }
+
+  /**
+   * Returns the number of violations so far at each site that has had any, in the order in which
+   * the sites were registered. Sites with the same description, as for a class loaded by two
+   * class loaders, are combined.
+   */
+  public static Map<String, Long> snapshot() {
+    LongAdder[] counters;
+    String[] sites;
+    int count;
+    synchronized (lock) {
+      counters = Violations.counters;
+      sites = Violations.sites;
+      count = siteCount;
+    }
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (int i = 0; i < count; i++) {
+      long sum = counters[i].sum();
+      if (sum != 0) {
+        result.merge(sites[i], sum, Long::sum);
+      }
+    }
+    return result;
+  }
+
+  private Violations() {}
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import org.jspecify.agent.fixtures.Marked;
+import org.jspecify.agent.fixtures.Unmarked;
+import org.jspecify.agent.fixtures.markedpackage.InMarkedPackage;
+import org.jspecify.agent.runtime.Violations;
+import org.junit.jupiter.api.Test;
+
+class NullCheckTransformerTest {
+  private static final String FIXTURES = "org.jspecify.agent.fixtures.";
+
+  @Test
+  void parameters() throws Exception {
+    Class<?> marked = weave("");
+    Object instance = marked.getConstructor().newInstance();
+    assertEquals("a", call(instance, "echo", "a"));
+    assertThrowsNpe(instance, "echo", (Object) null);
+    assertNull(call(instance, "nullableEcho", (Object) null));
+    assertNull(call(instance, "generic", (Object) null));
+    assertNull(call(instance, "unmarkedEcho", (Object) null));
+    assertNull(call(instance, "packagePrivateEcho", (Object) null));
+    assertEquals(0, ((List<?>) call(instance, "list", (Object) null)).size());
+
+    Method staticEcho = marked.getMethod("staticEcho", long.class, String.class);
+    InvocationTargetException e =
+        assertThrows(InvocationTargetException.class, () -> staticEcho.invoke(null, 1L, null));
+    assertTrue(e.getCause() instanceof NullPointerException);
+    assertTrue(e.getCause().getMessage().contains("parameter 1"), e.getCause().getMessage());
+
+    InvocationTargetException constructor =
+        assertThrows(
+            InvocationTargetException.class,
+            () -> marked.getConstructor(String.class).newInstance((Object) null));
+    assertTrue(constructor.getCause() instanceof NullPointerException);
+  }
+
+  @Test
+  void returnValues() throws Exception {
+    Object instance = weave("").getConstructor().newInstance();
+    assertThrowsNpe(instance, "returnsNull");
+  }
+
+  @Test
+  void enclosingScopes() throws Exception {
+    WeavingLoader loader = new WeavingLoader(AgentOptions.parse(""));
+    Object nested = loader.loadClass(Marked.Nested.class.getName()).getConstructor().newInstance();
+    assertThrowsNpe(nested, "echo", (Object) null);
+
+    Object inPackage =
+        loader.loadClass(InMarkedPackage.class.getName()).getConstructor().newInstance();
+    assertThrowsNpe(inPackage, "echo", (Object) null);
+
+    Object unmarked = loader.loadClass(Unmarked.class.getName()).getConstructor().newInstance();
+    assertNull(call(unmarked, "echo", (Object) null));
+    assertThrowsNpe(unmarked, "nonNullEcho", (Object) null);
+
+    Supplier<?> local =
+        (Supplier<?>) loader.loadClass(Marked.class.getName()).getMethod("localClass").invoke(null);
+    assertThrows(NullPointerException.class, local::get);
+  }
+
+  @Test
+  void localAndAnonymousClasses() throws Exception {
+    // javac adds the outer instance and captured values to the parameters of their constructors.
+    Object instance = weave("").getConstructor().newInstance();
+    assertNull(((Supplier<?>) call(instance, "localHolder", (Object) null)).get());
+    assertNull(((Supplier<?>) call(instance, "anonymousHolder", (Object) null)).get());
+  }
+
+  @Test
+  void filters() throws Exception {
+    Object excluded = weave("exclude=org.jspecify.agent.fixtures").getConstructor().newInstance();
+    assertNull(call(excluded, "echo", (Object) null));
+
+    Object notIncluded = weave("include=com.example").getConstructor().newInstance();
+    assertNull(call(notIncluded, "echo", (Object) null));
+
+    Object included = weave("include=org.jspecify.agent").getConstructor().newInstance();
+    assertThrowsNpe(included, "echo", (Object) null);
+
+    Object unsampled = weave("sample=0").getConstructor().newInstance();
+    assertNull(call(unsampled, "echo", (Object) null));
+  }
+
+  @Test
+  void countMode() throws Exception {
+    Object instance = weave("mode=count").getConstructor().newInstance();
+    assertNull(call(instance, "echo", (Object) null));
+    assertNull(call(instance, "echo", (Object) null));
+    assertNull(call(instance, "returnsNull"));
+    assertEquals("a", call(instance, "echo", "a"));
+
+    Map<String, Long> counts = Violations.snapshot();
+    String marked = Marked.class.getName();
+    assertEquals(
+        Long.valueOf(2),
+        counts.get(
+            "non-null parameter 0 of " + marked + ".echo(Ljava/lang/String;)Ljava/lang/String;"));
+    assertEquals(
+        Long.valueOf(1),
+        counts.get("non-null return value of " + marked + ".returnsNull()Ljava/lang/String;"));
+  }
+
+  @Test
+  void sampling() {
+    AgentOptions options = AgentOptions.parse("sample=0.25");
+    int sampled = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (options.isSampled("com/example/C", "m" + i, "()V")) {
+        sampled++;
+      }
+    }
+    assertTrue(sampled > 2_200 && sampled < 2_800, "sampled " + sampled);
+    assertEquals(
+        options.isSampled("com/example/C", "m", "()V"),
+        AgentOptions.parse("sample=0.25").isSampled("com/example/C", "m", "()V"));
+  }
+
+  @Test
+  void options() {
+    AgentOptions options = AgentOptions.parse("include=com.example.*:org.example.,verbose=true");
+    assertTrue(options.isIncluded("com/example/Foo"));
+    assertTrue(options.isIncluded("org/example/sub/Foo"));
+    assertFalse(options.isIncluded("com/examples/Foo"));
+    assertFalse(AgentOptions.parse("").isIncluded("java/lang/String"));
+    assertTrue(options.verbose);
+    assertThrows(IllegalArgumentException.class, () -> AgentOptions.parse("sample=2"));
+    assertThrows(IllegalArgumentException.class, () -> AgentOptions.parse("bogus=1"));
+  }
+
+  private static Class<?> weave(String options) throws ClassNotFoundException {
+    return new WeavingLoader(AgentOptions.parse(options)).loadClass(Marked.class.getName());
+  }
+
+  private static Object call(Object instance, String name, Object... args) throws Exception {
+    for (Method method : instance.getClass().getDeclaredMethods()) {
+      if (method.getName().equals(name)) {
+        method.setAccessible(true);
+        return method.invoke(instance, args);
+      }
+    }
+    throw new NoSuchMethodException(name);
+  }
+
+  private static void assertThrowsNpe(Object instance, String name, Object... args) {
+    InvocationTargetException e =
+        assertThrows(InvocationTargetException.class, () -> call(instance, name, args));
+    assertTrue(e.getCause() instanceof NullPointerException, e.getCause().toString());
+  }
+
+  /** Loads the fixtures itself, passing them through a {@link NullCheckTransformer}. */
+  private static final class WeavingLoader extends ClassLoader {
+    private final NullCheckTransformer transformer;
+
+    WeavingLoader(AgentOptions options) {
+      super(NullCheckTransformerTest.class.getClassLoader());
+      this.transformer = new NullCheckTransformer(options);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (!name.startsWith(FIXTURES)) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> loaded = findLoadedClass(name);
+        if (loaded == null) {
+          String internalName = name.replace('.', '/');
+          byte[] bytes = read(internalName + ".class");
+          byte[] woven = transformer.transform(this, internalName, null, null, bytes);
+          if (woven != null) {
+            bytes = woven;
+          }
+          loaded = defineClass(name, bytes, 0, bytes.length);
+        }
+        return loaded;
+      }
+    }
+
+    private byte[] read(String resource) {
+      try (InputStream in = getParent().getResourceAsStream(resource)) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) > 0; ) {
+          bytes.write(buffer, 0, n);
+        }
+        return bytes.toByteArray();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.jspecify.agent.runtime.Violations;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ViolationReporterTest {
+  @TempDir Path temp;
+
+  @Test
+  void json() {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    counts.put("site \"a\"", 3L);
+    counts.put("b\\c", 1L);
+    assertEquals(
+        "{\"timeMillis\":42,\"violations\":[{\"site\":\"site \\\"a\\\"\",\"count\":3},"
+            + "{\"site\":\"b\\\\c\",\"count\":1}]}\n",
+        ViolationReporter.toJson(counts, 42));
+    assertEquals(
+        "{\"timeMillis\":42,\"violations\":[]}\n",
+        ViolationReporter.toJson(new LinkedHashMap<>(), 42));
+  }
+
+  @Test
+  void write() throws Exception {
+    int site = Violations.register("ViolationReporterTest.write");
+    Violations.checkNonNull(null, site);
+    Violations.checkNonNull("not null", site);
+    Path report = temp.resolve("violations.json");
+    ViolationReporter.write(report);
+    String json = new String(Files.readAllBytes(report), UTF_8);
+    assertTrue(json.contains("{\"site\":\"ViolationReporterTest.write\",\"count\":1}"), json);
+  }
+}
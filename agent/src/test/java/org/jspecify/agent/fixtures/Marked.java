@@ -0,0 +1,115 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.agent.fixtures;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.NullUnmarked;
+import org.jspecify.annotations.Nullable;
+
+@NullMarked
+public class Marked {
+  public Marked() {}
+
+  public Marked(String s) {}
+
+  public String echo(String s) {
+    return s;
+  }
+
+  public static String staticEcho(long padding, String s) {
+    return s;
+  }
+
+  public @Nullable String nullableEcho(@Nullable String s) {
+    return s;
+  }
+
+  public String returnsNull() {
+    return nullString();
+  }
+
+  public <T> T generic(T t) {
+    return t;
+  }
+
+  public List<@Nullable String> list(String @Nullable [] array) {
+    return Collections.emptyList();
+  }
+
+  @NullUnmarked
+  public String unmarkedEcho(String s) {
+    return s;
+  }
+
+  String packagePrivateEcho(String s) {
+    return s;
+  }
+
+  public static Supplier<String> localClass() {
+    class Local implements Supplier<String> {
+      @Override
+      public String get() {
+        return nullString();
+      }
+    }
+    return new Local();
+  }
+
+  /** Returns an instance of a local class, whose constructor also takes {@code this}. */
+  public Supplier<@Nullable String> localHolder(@Nullable String value) {
+    class Local extends Holder {
+      public Local(@Nullable String value) {
+        super(value);
+      }
+    }
+    return new Local(value);
+  }
+
+  public Supplier<@Nullable String> anonymousHolder(@Nullable String captured) {
+    return new Holder(null) {
+      @Override
+      public @Nullable String get() {
+        return captured;
+      }
+    };
+  }
+
+  public static class Holder implements Supplier<@Nullable String> {
+    private final @Nullable String value;
+
+    public Holder(@Nullable String value) {
+      this.value = value;
+    }
+
+    @Override
+    public @Nullable String get() {
+      return value;
+    }
+  }
+
+  public static class Nested {
+    public String echo(String s) {
+      return s;
+    }
+  }
+
+  private static String nullString() {
+    return null;
+  }
+}
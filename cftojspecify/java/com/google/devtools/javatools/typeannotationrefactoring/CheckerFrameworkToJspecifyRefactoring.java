@@ -18,21 +18,21 @@ package com.google.devtools.javatools.typeannotationrefactoring;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.base.Verify.verifyNotNull;
 import static com.google.common.collect.Iterables.getOnlyElement;
-import static com.google.common.collect.Range.closedOpen;
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.IMPORT;
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.JAVA_UTIL_PARAMETER;
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.NULL_MARKED;
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.REMOVAL;
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.SUBSTITUTION;
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.TYPE_PARAMETER_BOUND;
 import static com.sun.source.tree.Tree.Kind.IDENTIFIER;
 import static com.sun.source.tree.Tree.Kind.MEMBER_SELECT;
 import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.nio.file.Files.readAllBytes;
-import static java.nio.file.Files.write;
-import static java.util.Arrays.stream;
-import static java.util.Comparator.comparing;
-import static javax.tools.Diagnostic.Kind.ERROR;
-import static javax.tools.StandardLocation.PLATFORM_CLASS_PATH;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Range;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.sun.source.tree.AnnotatedTypeTree;
 import com.sun.source.tree.AnnotationTree;
 import com.sun.source.tree.ClassTree;
@@ -50,67 +50,175 @@ import com.sun.source.tree.WildcardTree;
 import com.sun.source.util.SimpleTreeVisitor;
 import com.sun.source.util.TreePath;
 import com.sun.source.util.TreePathScanner;
-import com.sun.tools.javac.file.JavacFileManager;
-import com.sun.tools.javac.parser.JavacParser;
-import com.sun.tools.javac.parser.ParserFactory;
 import com.sun.tools.javac.tree.JCTree;
 import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
-import com.sun.tools.javac.util.Context;
-import com.sun.tools.javac.util.Log;
-import com.sun.tools.javac.util.Options;
-import java.io.IOError;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.net.URI;
-import java.nio.file.Path;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.Comparator;
-import java.util.Map.Entry;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.stream.Stream;
 import javax.lang.model.element.Name;
-import javax.tools.DiagnosticCollector;
-import javax.tools.DiagnosticListener;
-import javax.tools.JavaFileObject;
-import javax.tools.SimpleJavaFileObject;
 
 /**
  * A best effort refactoring to migrate Checker Framework {@code @Nullable} type annotations to
  * similar-ish JSpecify annotations.
  *
- * <p>usage: CheckerFrameworkToJspecifyRefactoring [files]
+ * <p>usage: CheckerFrameworkToJspecifyRefactoring [--threads=N] [--io-threads=N] [--glob=PATTERN]
+ * [--cache=FILE] [--no-prefilter] [--charset=NAME] [--dry-run [--diff-format=unified|edits]]
+ * [--stats-json=FILE] [files, directories, @argfiles, or - for stdin]
+ *
+ * <p>Directories are walked for files whose relative paths match {@code --glob} (default: {@code
+ * **.java}). Each line of an {@code @argfile} or of standard input is treated like another
+ * command-line input. See {@link InputPaths}.
+ *
+ * <p>{@code --cache} names a file in which to remember which file contents need no migration, so
+ * that later runs over the same tree skip them without parsing. See {@link MigrationCache}.
+ *
+ * <p>Before parsing a file, we scan it for anything that could need an edit, skipping the file if
+ * there is nothing. {@code --no-prefilter} disables that scan. See {@link LexicalPrefilter}.
+ *
+ * <p>{@code --charset} sets the encoding of the source files (default: UTF-8). Files that are not
+ * valid in that encoding are an error. We write a file only if we edit it, and then we replace it
+ * atomically. See {@link SourceIo}.
+ *
+ * <p>{@code --dry-run} leaves the files alone and instead prints the edits to each file to stdout
+ * as soon as that file is done, either as a unified diff (the default) or, with {@code
+ * --diff-format=edits}, as a line of JSON. See {@link EditFormat}.
+ *
+ * <p>{@code --threads} sets the number of threads that parse and refactor files (default: one per
+ * processor). {@code --io-threads} sets the number of threads that read files and the number that
+ * write them (default: 2).
+ *
+ * <p>When done, we print counts of files and edits, the time spent in each phase, and the slowest
+ * files to stderr. {@code --stats-json} also writes them to a file as JSON. See {@link RunStats}.
  */
 public final class CheckerFrameworkToJspecifyRefactoring {
   public static void main(String[] args) {
-    stream(args).parallel().forEach(file -> process(file));
-  }
-
-  private static void process(String file) {
-    if (!file.endsWith(".java")) {
-      return;
+    RefactoringOptions options = RefactoringOptions.parse(args);
+    MigrationCache cache =
+        options.cacheFile == null
+            ? null
+            : MigrationCache.load(Paths.get(options.cacheFile), rulesFingerprint());
+    Charset charset = Charset.forName(options.charset);
+    LexicalPrefilter prefilter =
+        options.prefilter && LexicalPrefilter.supports(charset) ? newLexicalPrefilter() : null;
+    RunStats stats = new RunStats(/* dryRun= */ options.dryRunFormat != null);
+    try (Stream<String> files = new InputPaths(options.glob).expand(options.inputs)) {
+      new MigrationPipeline(
+              options.threads,
+              options.ioThreads,
+              new SourceIo(charset),
+              cache,
+              prefilter,
+              options.dryRunFormat,
+              stats)
+          .run(files.iterator());
+    } finally {
+      // Whatever we recorded is accurate even if the run failed partway through.
+      if (cache != null) {
+        cache.save();
+      }
     }
-    try {
-      Path path = Paths.get(file);
-      String input = new String(readAllBytes(path), UTF_8);
-      String output = refactor(input);
-      if (!input.equals(output)) {
-        write(path, output.getBytes(UTF_8));
+    System.err.println(
+        "cftojspecify" + (options.dryRunFormat != null ? " (dry run): " : ": ") + stats.summary());
+    if (options.statsJsonFile != null) {
+      try {
+        Files.write(Paths.get(options.statsJsonFile), stats.toJson().getBytes(UTF_8));
+      } catch (IOException e) {
+        throw new UncheckedIOException(options.statsJsonFile, e);
       }
-    } catch (IOException e) {
-      throw new UncheckedIOException(file, e);
     }
   }
 
+  /** Returns a pre-filter that recognizes all the annotations that {@link #refactor} edits. */
+  static LexicalPrefilter newLexicalPrefilter() {
+    return new LexicalPrefilter(
+        ImmutableSet.<String>builder()
+            .addAll(CF_ANNOTATIONS)
+            .addAll(SUBSTITUTES.keySet())
+            .add("AnnotatedFor")
+            .build());
+  }
+
+  /**
+   * A version for the parts of the rules that aren't captured by the constants that {@link
+   * #rulesFingerprint} hashes. Bump it whenever {@link #refactor} changes behavior.
+   */
+  private static final int RULES_VERSION = 3;
+
+  /**
+   * Returns a fingerprint of the rules that {@link #refactor} applies, so that a {@link
+   * MigrationCache} built under different rules is discarded.
+   */
+  static String rulesFingerprint() {
+    Hasher hasher = Hashing.sha256().newHasher().putInt(RULES_VERSION);
+    for (Object rules :
+        ImmutableList.of(
+            SUBSTITUTES,
+            CF_ANNOTATIONS,
+            NULL_HOSTILE_CLASSES,
+            NULLABLE_OBJECT_PARAMETER_METHODS,
+            NULLABLE_OBJECT_PARAMETERS_METHODS)) {
+      hasher.putString(rules.toString(), UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
   private static final ImmutableMap<String, String> SUBSTITUTES =
       ImmutableMap.of("Nullable", "Nullable", "PolyNull", "Nullable");
 
-  private static String refactor(String input) {
-    SortedMap<Range<Integer>, String> definiteReplacements = new TreeMap<>(BY_START_THEN_END);
-    SortedMap<Range<Integer>, String> possibleReplacements = new TreeMap<>(BY_START_THEN_END);
-    Context context = new Context();
-    JCCompilationUnit unit = parse(context, input);
+  /**
+   * java.util classes that reject null even for lookups, so we don't make their Object parameters
+   * {@code @Nullable}.
+   */
+  private static final ImmutableSet<String> NULL_HOSTILE_CLASSES =
+      ImmutableSet.of(
+          "ConcurrentHashMap",
+          "ConcurrentLinkedDeque",
+          "ConcurrentSkipListMap",
+          "ConcurrentSkipListSet",
+          "Dictionary",
+          "Hashtable",
+          "Properties",
+          "UIDefaults",
+          "UIManager");
+
+  /** java.util methods whose sole parameter, if of type Object, should be {@code @Nullable}. */
+  private static final ImmutableSet<String> NULLABLE_OBJECT_PARAMETER_METHODS =
+      ImmutableSet.of(
+          "contains",
+          "containsKey",
+          "containsValue",
+          "get",
+          "indexOf",
+          "lastIndexOf",
+          "remove",
+          "removeFirstOccurrence",
+          "removeLastOccurrence");
+
+  /** java.util methods whose two parameters, where of type Object, should be {@code @Nullable}. */
+  private static final ImmutableSet<String> NULLABLE_OBJECT_PARAMETERS_METHODS =
+      ImmutableSet.of(
+          "getOrDefault", // first parameter only (type Object)
+          "remove"); // both parameters
+
+  /** Returns {@code input} migrated to JSpecify. */
+  static String refactor(CharSequence input) {
+    return edits(input).applyTo(input);
+  }
+
+  /** Returns the edits that migrate {@code input} to JSpecify, without any no-op edits. */
+  static EditBuffer edits(CharSequence input) {
+    return edits(input, ReusableJavacParser.forCurrentThread().parse(input));
+  }
+
+  /** Like {@link #edits(CharSequence)}, but for a file that the caller has already parsed. */
+  static EditBuffer edits(CharSequence input, JCCompilationUnit unit) {
+    EditBuffer definiteReplacements = new EditBuffer();
+    EditBuffer possibleReplacements = new EditBuffer();
     boolean[] sawAnnotatedForNullness = new boolean[1];
+    int[] firstImportStart = {-1};
 
     new TreePathScanner<Void, Void>() {
       boolean addedImports;
@@ -128,16 +236,7 @@ public final class CheckerFrameworkToJspecifyRefactoring {
       public Void visitClass(ClassTree node, Void aVoid) {
         boolean oldInNullHostileClass = inNullHostileClass;
         try {
-          inNullHostileClass |=
-              node.getSimpleName().contentEquals("ConcurrentHashMap")
-                  || node.getSimpleName().contentEquals("ConcurrentLinkedDeque")
-                  || node.getSimpleName().contentEquals("ConcurrentSkipListMap")
-                  || node.getSimpleName().contentEquals("ConcurrentSkipListSet")
-                  || node.getSimpleName().contentEquals("Dictionary")
-                  || node.getSimpleName().contentEquals("Hashtable")
-                  || node.getSimpleName().contentEquals("Properties")
-                  || node.getSimpleName().contentEquals("UIDefaults")
-                  || node.getSimpleName().contentEquals("UIManager");
+          inNullHostileClass |= NULL_HOSTILE_CLASSES.contains(node.getSimpleName().toString());
           return super.visitClass(node, aVoid);
         } finally {
           inNullHostileClass = oldInNullHostileClass;
@@ -148,14 +247,16 @@ public final class CheckerFrameworkToJspecifyRefactoring {
       public Void visitImport(ImportTree node, Void aVoid) {
         if (!addedImports) {
           addedImports = true;
-          definiteReplacements.put(atStart(node), "import org.jspecify.annotations.Nullable;\n");
+          firstImportStart[0] = startPos(node);
           possibleReplacements.put(
-              atStart(node),
+              startPos(node),
+              startPos(node),
               "import org.jspecify.annotations.NullMarked;\n"
-                  + "import org.jspecify.annotations.Nullable;\n");
+                  + "import org.jspecify.annotations.Nullable;\n",
+              IMPORT);
         }
         if (node.getQualifiedIdentifier().toString().startsWith("org.checkerframework.")) {
-          definiteReplacements.put(inPlaceOfNodeAndTrailingNewline(node, unit), "");
+          definiteReplacements.put(startPos(node), endPos(node, unit) + 1, "", REMOVAL);
         }
         return super.visitImport(node, aVoid);
       }
@@ -166,7 +267,10 @@ public final class CheckerFrameworkToJspecifyRefactoring {
         if (SUBSTITUTES.containsKey(simpleName)) {
           // putIfAbsent in case we're removing the annotation entirely (for <@Nullable T>).
           definiteReplacements.putIfAbsent(
-              inPlaceOf(node, unit), "@" + SUBSTITUTES.get(simpleName));
+              startPos(node),
+              endPos(node, unit),
+              "@" + SUBSTITUTES.get(simpleName),
+              SUBSTITUTION);
         } else if (simpleName.equals("AnnotatedFor")) {
           sawAnnotatedForNullness[0] =
               node.getArguments().stream()
@@ -176,10 +280,10 @@ public final class CheckerFrameworkToJspecifyRefactoring {
                               ? ((NewArrayTree) a).getInitializers().stream()
                               : Stream.of(a))
                   .anyMatch(a -> ((LiteralTree) a).getValue().equals("nullness"));
-          definiteReplacements.put(inPlaceOf(node, unit), "");
-          possibleReplacements.put(inPlaceOf(node, unit), "@NullMarked");
+          definiteReplacements.put(startPos(node), endPos(node, unit), "", REMOVAL);
+          possibleReplacements.put(startPos(node), endPos(node, unit), "@NullMarked", NULL_MARKED);
         } else if (CF_ANNOTATIONS.contains(simpleName)) {
-          definiteReplacements.put(inPlaceOf(node, unit), "");
+          definiteReplacements.put(startPos(node), endPos(node, unit), "", REMOVAL);
         }
         return super.visitAnnotation(node, aVoid);
       }
@@ -187,9 +291,14 @@ public final class CheckerFrameworkToJspecifyRefactoring {
       @Override
       public Void visitTypeParameter(TypeParameterTree node, Void aVoid) {
         if (node.getBounds().isEmpty()) {
-          possibleReplacements.put(atEnd(node, unit), " extends @Nullable Object");
+          possibleReplacements.put(
+              endPos(node, unit),
+              endPos(node, unit),
+              " extends @Nullable Object",
+              TYPE_PARAMETER_BOUND);
         } else if (soleBoundIsNonNullObject(node)) {
-          definiteReplacements.put(inPlaceOf(node, unit), node.getName().toString());
+          definiteReplacements.put(
+              startPos(node), endPos(node, unit), node.getName().toString(), TYPE_PARAMETER_BOUND);
           /*
            * Don't visit children: Doing so may produce overlapping edits to remove individual
            * annotations (@NonNull on the bound and/or an annotation on the type parameter itself).
@@ -197,7 +306,7 @@ public final class CheckerFrameworkToJspecifyRefactoring {
           return null;
         }
         for (AnnotationTree a : node.getAnnotations()) {
-          definiteReplacements.put(inPlaceOf(a, unit), "");
+          definiteReplacements.put(startPos(a), endPos(a, unit), "", REMOVAL);
         }
         return super.visitTypeParameter(node, aVoid);
       }
@@ -206,7 +315,7 @@ public final class CheckerFrameworkToJspecifyRefactoring {
       public Void visitAnnotatedType(AnnotatedTypeTree node, Void aVoid) {
         if (node.getUnderlyingType() instanceof WildcardTree) {
           for (AnnotationTree a : node.getAnnotations()) {
-            definiteReplacements.put(inPlaceOf(a, unit), "");
+            definiteReplacements.put(startPos(a), endPos(a, unit), "", REMOVAL);
           }
         }
         return super.visitAnnotatedType(node, aVoid);
@@ -222,10 +331,10 @@ public final class CheckerFrameworkToJspecifyRefactoring {
 
         if (method.getReceiverParameter() == node) {
           if (method.getParameters().isEmpty()) {
-            definiteReplacements.put(inPlaceOf(node, unit), "");
+            definiteReplacements.put(startPos(node), endPos(node, unit), "", REMOVAL);
           } else {
             definiteReplacements.put(
-                closedOpen(startPos(node), startPos(method.getParameters().get(0))), "");
+                startPos(node), startPos(method.getParameters().get(0)), "", REMOVAL);
           }
           /*
            * Don't visit children: Doing so may produce overlapping edits to remove individual
@@ -242,31 +351,30 @@ public final class CheckerFrameworkToJspecifyRefactoring {
          */
         if (inJavaUtil
             && !inNullHostileClass
-            && (method.getName().contentEquals("contains")
-                || method.getName().contentEquals("containsKey")
-                || method.getName().contentEquals("containsValue")
-                || method.getName().contentEquals("get")
-                || method.getName().contentEquals("indexOf")
-                || method.getName().contentEquals("lastIndexOf")
-                || method.getName().contentEquals("remove")
-                || method.getName().contentEquals("removeFirstOccurrence")
-                || method.getName().contentEquals("removeLastOccurrence"))
+            && NULLABLE_OBJECT_PARAMETER_METHODS.contains(method.getName().toString())
             && method.getParameters().size() == 1
             && (node.getType().getKind() == IDENTIFIER || node.getType().getKind() == MEMBER_SELECT)
             && getSimpleName(node.getType()).equals("Object")) {
-          definiteReplacements.put(inPlaceOf(node, unit), "@Nullable Object " + node.getName());
+          definiteReplacements.put(
+              startPos(node),
+              endPos(node, unit),
+              "@Nullable Object " + node.getName(),
+              JAVA_UTIL_PARAMETER);
           // Don't visit children.
           return null;
         }
 
         if (inJavaUtil
             && !inNullHostileClass
-            && (method.getName().contentEquals("getOrDefault") // first parameter only (type Object)
-                || method.getName().contentEquals("remove")) // both parameters
+            && NULLABLE_OBJECT_PARAMETERS_METHODS.contains(method.getName().toString())
             && method.getParameters().size() == 2
             && (node.getType().getKind() == IDENTIFIER || node.getType().getKind() == MEMBER_SELECT)
             && getSimpleName(node.getType()).equals("Object")) {
-          definiteReplacements.put(inPlaceOf(node, unit), "@Nullable Object " + node.getName());
+          definiteReplacements.put(
+              startPos(node),
+              endPos(node, unit),
+              "@Nullable Object " + node.getName(),
+              JAVA_UTIL_PARAMETER);
           // Don't visit children.
           return null;
         }
@@ -275,7 +383,11 @@ public final class CheckerFrameworkToJspecifyRefactoring {
             && !inNullHostileClass
             && method.getName().contentEquals("containsAll")
             && method.getParameters().size() == 1) {
-          definiteReplacements.put(inPlaceOf(node, unit), "Collection<?> " + node.getName());
+          definiteReplacements.put(
+              startPos(node),
+              endPos(node, unit),
+              "Collection<?> " + node.getName(),
+              JAVA_UTIL_PARAMETER);
           // Don't visit children.
           return null;
         }
@@ -306,7 +418,11 @@ public final class CheckerFrameworkToJspecifyRefactoring {
             && (method.getName().contentEquals("removeAll")
                 || method.getName().contentEquals("retainAll"))
             && method.getParameters().size() == 1) {
-          definiteReplacements.put(inPlaceOf(node, unit), "Collection<?> " + node.getName());
+          definiteReplacements.put(
+              startPos(node),
+              endPos(node, unit),
+              "Collection<?> " + node.getName(),
+              JAVA_UTIL_PARAMETER);
           // Don't visit children.
           return null;
         }
@@ -320,10 +436,24 @@ public final class CheckerFrameworkToJspecifyRefactoring {
         return super.visitVariable(node, aVoid);
       }
     }.scan(new TreePath(unit), null);
+    // Don't count, e.g., "substituting" @Nullable for itself as a reason to add the import.
+    definiteReplacements.removeNoOps(input);
+    possibleReplacements.removeNoOps(input);
+    /*
+     * Add the import only if we're making other edits. Otherwise, we'd rewrite every file that
+     * has no Checker Framework annotations at all, just to give it an unused import.
+     */
+    if (firstImportStart[0] >= 0 && !definiteReplacements.isEmpty()) {
+      definiteReplacements.put(
+          firstImportStart[0],
+          firstImportStart[0],
+          "import org.jspecify.annotations.Nullable;\n",
+          IMPORT);
+    }
     if (sawAnnotatedForNullness[0]) {
       definiteReplacements.putAll(possibleReplacements);
     }
-    return applyFixes(input, definiteReplacements);
+    return definiteReplacements;
   }
 
   private static boolean soleBoundIsNonNullObject(TypeParameterTree node) {
@@ -353,24 +483,6 @@ public final class CheckerFrameworkToJspecifyRefactoring {
     }
   }
 
-  private static Range<Integer> atStart(Tree classTree) {
-    int startPos = startPos(classTree);
-    return closedOpen(startPos, startPos);
-  }
-
-  private static Range<Integer> atEnd(Tree node, JCCompilationUnit unit) {
-    int endPos = endPos(node, unit);
-    return closedOpen(endPos, endPos);
-  }
-
-  private static Range<Integer> inPlaceOf(Tree node, JCCompilationUnit unit) {
-    return closedOpen(startPos(node), endPos(node, unit));
-  }
-
-  private static Range<Integer> inPlaceOfNodeAndTrailingNewline(Tree node, JCCompilationUnit unit) {
-    return closedOpen(startPos(node), endPos(node, unit) + 1);
-  }
-
   private static int startPos(Tree tree) {
     int startPos = ((JCTree) tree).getStartPosition();
     verify(startPos >= 0);
@@ -383,56 +495,6 @@ public final class CheckerFrameworkToJspecifyRefactoring {
     return endPos;
   }
 
-  /** Parses {@code input} as a Java compilation unit. */
-  private static JCCompilationUnit parse(Context context, String input) {
-    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-    context.put(DiagnosticListener.class, diagnostics);
-    Options.instance(context).put("allowStringFolding", "false");
-    JavacFileManager fileManager = new JavacFileManager(context, true, UTF_8);
-    try {
-      fileManager.setLocation(PLATFORM_CLASS_PATH, ImmutableList.of());
-    } catch (IOException e) {
-      // impossible
-      throw new IOError(e);
-    }
-    SimpleJavaFileObject source =
-        new SimpleJavaFileObject(URI.create("source"), JavaFileObject.Kind.SOURCE) {
-          @Override
-          public CharSequence getCharContent(boolean ignoreEncodingErrors) {
-            return input;
-          }
-        };
-    Log.instance(context).useSource(source);
-    ParserFactory parserFactory = ParserFactory.instance(context);
-    JavacParser parser =
-        parserFactory.newParser(
-            input, /* keepDocComments= */ true, /* keepEndPos= */ true, /* keepLineMap= */ true);
-    JCCompilationUnit unit = parser.parseCompilationUnit();
-    unit.sourcefile = source;
-    if (diagnostics.getDiagnostics().stream().anyMatch(d -> d.getKind() == ERROR)) {
-      throw new AssertionError(diagnostics.getDiagnostics());
-    }
-    return unit;
-  }
-
-  /** Applies the given replacements to the source text. */
-  private static String applyFixes(String source, SortedMap<Range<Integer>, String> replacements) {
-    if (replacements.isEmpty()) {
-      return source;
-    }
-    StringBuilder sb = new StringBuilder(source);
-    int offset = 0;
-    for (Entry<Range<Integer>, String> replacement : replacements.entrySet()) {
-      Range<Integer> range = replacement.getKey();
-      String replaceWith = replacement.getValue();
-      int start = offset + range.lowerEndpoint();
-      int end = offset + range.upperEndpoint();
-      sb.replace(start, end, replaceWith);
-      offset += replaceWith.length() - (range.upperEndpoint() - range.lowerEndpoint());
-    }
-    return sb.toString();
-  }
-
   /** Gets the simple name of a select or identifier tree. */
   private static String getSimpleName(Tree tree) {
     Name name =
@@ -754,12 +816,5 @@ public final class CheckerFrameworkToJspecifyRefactoring {
           "UpperBoundUnknown",
           "UsesObjectEquals");
 
-  /*
-   * We insert only closedOpen ranges, so we can safely compare only by endpoints, without needing
-   * to check for differences in bound type.
-   */
-  private static final Comparator<Range<Integer>> BY_START_THEN_END =
-      comparing((Range<Integer> r) -> r.lowerEndpoint()).thenComparing(Range::upperEndpoint);
-
   private CheckerFrameworkToJspecifyRefactoring() {}
 }
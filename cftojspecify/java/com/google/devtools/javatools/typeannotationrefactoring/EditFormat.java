@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+/** The ways in which a {@code --dry-run} can report the edits that it would make to a file. */
+enum EditFormat {
+  /** A unified diff. See {@link UnifiedDiff}. */
+  UNIFIED("unified") {
+    @Override
+    String render(String path, CharSequence source, EditBuffer edits) {
+      return UnifiedDiff.render(path, source, edits);
+    }
+  },
+
+  /**
+   * One line of JSON per file, listing its edits in source order:
+   *
+   * <pre>{@code
+   * {"file":"Foo.java","edits":[EDIT,EDIT,...]}
+   * }</pre>
+   *
+   * <p>Each {@code EDIT} is an object like:
+   *
+   * <pre>{@code
+   * {"start":120,"end":130,"line":7,"column":3,"kind":"removal","replacement":""}
+   * }</pre>
+   *
+   * <p>{@code start} and {@code end} are offsets, in UTF-16 code units, into the decoded file.
+   * {@code line} and {@code column} locate {@code start} and are 1-based. {@code kind} is the
+   * {@link EditKind#jsonName} of the rule that produced the edit.
+   */
+  EDITS("edits") {
+    @Override
+    String render(String path, CharSequence source, EditBuffer edits) {
+      int[] lineStarts = UnifiedDiff.lineStarts(source);
+      StringBuilder json = new StringBuilder();
+      json.append("{\"file\":");
+      Json.appendString(json, path);
+      json.append(",\"edits\":[");
+      for (int i = 0; i < edits.size(); i++) {
+        int start = edits.start(i);
+        int line = UnifiedDiff.lineOf(lineStarts, source, start);
+        if (i > 0) {
+          json.append(',');
+        }
+        json.append("{\"start\":").append(start);
+        json.append(",\"end\":").append(edits.end(i));
+        json.append(",\"line\":").append(line + 1);
+        json.append(",\"column\":").append(start - lineStarts[line] + 1);
+        json.append(",\"kind\":\"").append(edits.kind(i).jsonName).append('"');
+        json.append(",\"replacement\":");
+        Json.appendString(json, edits.replacement(i));
+        json.append('}');
+      }
+      return json.append("]}\n").toString();
+    }
+  };
+
+  /** The value of {@code --diff-format} that selects this format. */
+  final String flagValue;
+
+  EditFormat(String flagValue) {
+    this.flagValue = flagValue;
+  }
+
+  static EditFormat forFlagValue(String flagValue) {
+    for (EditFormat format : values()) {
+      if (format.flagValue.equals(flagValue)) {
+        return format;
+      }
+    }
+    throw new IllegalArgumentException("unknown diff format: " + flagValue);
+  }
+
+  /** Renders {@code edits} to {@code source}, the contents of {@code path}. */
+  abstract String render(String path, CharSequence source, EditBuffer edits);
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+/** The rule behind an edit, for reporting. */
+enum EditKind {
+  /** Replacing a Checker Framework annotation with its JSpecify equivalent. */
+  SUBSTITUTION("substitution", "substitution"),
+  /** Removing an annotation, import, or receiver parameter that has no JSpecify equivalent. */
+  REMOVAL("removal", "removal"),
+  /** Rewriting an {@code Object} or {@code Collection} parameter of a {@code java.util} method. */
+  JAVA_UTIL_PARAMETER("java_util_parameter", "java.util parameter"),
+  /** Promoting {@code @AnnotatedFor("nullness")} to {@code @NullMarked}. */
+  NULL_MARKED("null_marked", "@NullMarked promotion"),
+  /** Adding a JSpecify import. */
+  IMPORT("import", "import"),
+  /** Adding or removing the bound of a type parameter. */
+  TYPE_PARAMETER_BOUND("type_parameter_bound", "type-parameter bound");
+
+  /** The name of this kind in JSON output. */
+  final String jsonName;
+
+  /** The name of this kind in human-readable output. */
+  final String description;
+
+  EditKind(String jsonName, String description) {
+    this.jsonName = jsonName;
+    this.description = description;
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Expands the inputs given on the command line into the paths of the files to migrate.
+ *
+ * <p>Each input is one of:
+ *
+ * <ul>
+ *   <li>a directory, which we walk, keeping the regular files whose paths relative to that
+ *       directory match the {@code --glob} pattern
+ *   <li>{@code @argfile}, a file that lists one input per line
+ *   <li>{@code -}, which reads one input per line from standard input
+ *   <li>anything else, which we pass through as a file path
+ * </ul>
+ *
+ * <p>Expansion is lazy, so we start migrating files while we're still walking the tree.
+ */
+final class InputPaths {
+  private final PathMatcher matcher;
+
+  InputPaths(String glob) {
+    this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+  }
+
+  /** Returns the paths of all the files named by {@code inputs}, in order. */
+  Stream<String> expand(List<String> inputs) {
+    return inputs.stream().flatMap(this::expand);
+  }
+
+  private Stream<String> expand(String input) {
+    if (input.equals("-")) {
+      return lines(new BufferedReader(new InputStreamReader(System.in, UTF_8)));
+    }
+    if (input.startsWith("@")) {
+      Path argfile = Paths.get(input.substring(1));
+      BufferedReader reader;
+      try {
+        reader = Files.newBufferedReader(argfile, UTF_8);
+      } catch (IOException e) {
+        throw new UncheckedIOException(input, e);
+      }
+      return lines(reader).onClose(() -> close(reader, input));
+    }
+    Path path = Paths.get(input);
+    if (Files.isDirectory(path)) {
+      return walk(path);
+    }
+    return Stream.of(input);
+  }
+
+  private Stream<String> lines(BufferedReader reader) {
+    return reader.lines().map(String::trim).filter(line -> !line.isEmpty()).flatMap(this::expand);
+  }
+
+  private static void close(BufferedReader reader, String input) {
+    try {
+      reader.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(input, e);
+    }
+  }
+
+  private Stream<String> walk(Path directory) {
+    try {
+      return Files.walk(directory)
+          .filter(p -> matcher.matches(directory.relativize(p)) && Files.isRegularFile(p))
+          .map(Path::toString);
+    } catch (IOException e) {
+      throw new UncheckedIOException(directory.toString(), e);
+    }
+  }
+}
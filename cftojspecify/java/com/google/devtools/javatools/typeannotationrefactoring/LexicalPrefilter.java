@@ -0,0 +1,324 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableSet;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * A single pass over the bytes of a source file that proves, for most files, that {@link
+ * CheckerFrameworkToJspecifyRefactoring#refactor} would make no edits, so that we need not parse
+ * them.
+ *
+ * <p>The refactoring edits a file only if it contains at least one of the following, so we look
+ * for them with a rough tokenizer that skips comments and literals:
+ *
+ * <ul>
+ *   <li>an annotation whose simple name is one of the Checker Framework annotations
+ *   <li>an annotation between {@code <} and {@code >}, which may be on a type parameter or a
+ *       wildcard, where we remove annotations of any name
+ *   <li>a receiver parameter ({@code Foo this} or {@code Foo Outer.this} followed by {@code ,} or
+ *       {@code )})
+ *   <li>a package declaration for {@code java.util} or its subpackages
+ *   <li>the identifier {@code checkerframework}, as in an import to remove
+ * </ul>
+ *
+ * <p>The scan is conservative: When in doubt, it reports that the file may need edits. Notably, it
+ * doesn't try to tell type arguments from comparisons, and it gives up on any file that contains a
+ * Unicode escape. The scan works directly on the undecoded bytes of the file, so it supports only
+ * charsets in which ASCII characters are encoded as themselves, like UTF-8.
+ */
+final class LexicalPrefilter {
+  private final ImmutableSet<String> annotationNames;
+
+  LexicalPrefilter(ImmutableSet<String> annotationNames) {
+    this.annotationNames = annotationNames;
+  }
+
+  /**
+   * Returns whether we can scan files in {@code charset}. We require that every byte in the ASCII
+   * range stands for that ASCII character, which is not true of, e.g., UTF-16 or Shift_JIS.
+   */
+  static boolean supports(Charset charset) {
+    return charset.equals(UTF_8) || charset.equals(US_ASCII) || charset.equals(ISO_8859_1);
+  }
+
+  /**
+   * Returns false if refactoring {@code source} definitely produces no edits. Reads the bytes
+   * between the buffer's position and its limit without changing either.
+   */
+  boolean mayNeedEdits(ByteBuffer source) {
+    return new Scan(source).mayNeedEdits();
+  }
+
+  private static final byte[] THIS = "this".getBytes(US_ASCII);
+  private static final byte[] PACKAGE = "package".getBytes(US_ASCII);
+  private static final byte[] INTERFACE = "interface".getBytes(US_ASCII);
+  private static final byte[] CHECKERFRAMEWORK = "checkerframework".getBytes(US_ASCII);
+
+  /** Token kinds other than single punctuation characters, which are their own kinds. */
+  private static final int EOF = -1;
+
+  private static final int IDENTIFIER = -2;
+  private static final int LITERAL = -3;
+  private static final int UNICODE_ESCAPE = -4;
+
+  private final class Scan {
+    final ByteBuffer s;
+    final int length;
+    int pos;
+    int kind;
+    int start;
+    int end;
+
+    Scan(ByteBuffer s) {
+      this.s = s;
+      this.length = s.limit();
+      this.pos = s.position();
+    }
+
+    boolean mayNeedEdits() {
+      int angleDepth = 0;
+      boolean previousCouldEndType = false;
+      // Whether the previous token is part of a name right after a possible type, as in the
+      // "Outer." of the receiver parameter "Outer Outer.this".
+      boolean previousInQualifier = false;
+      next();
+      while (kind != EOF) {
+        boolean couldEndType = false;
+        boolean inQualifier = false;
+        switch (kind) {
+          case UNICODE_ESCAPE:
+            return true;
+          case '<':
+            angleDepth++;
+            break;
+          case '>':
+            angleDepth = Math.max(0, angleDepth - 1);
+            couldEndType = true;
+            break;
+          case ';':
+          case '{':
+          case '}':
+            angleDepth = 0;
+            break;
+          case '@':
+            next();
+            if (kind == IDENTIFIER && !is(INTERFACE)) {
+              if (angleDepth > 0 || annotationNames.contains(lastIdentifierOfQualifiedName())) {
+                return true;
+              }
+            }
+            // The token after the annotation name is already current.
+            previousCouldEndType = false;
+            previousInQualifier = false;
+            continue;
+          case IDENTIFIER:
+            if (is(CHECKERFRAMEWORK)) {
+              return true;
+            }
+            if (is(PACKAGE)) {
+              next();
+              if (kind == IDENTIFIER && qualifiedName().startsWith("java.util")) {
+                return true;
+              }
+              previousCouldEndType = false;
+              previousInQualifier = false;
+              continue;
+            }
+            if (is(THIS) && (previousCouldEndType || previousInQualifier)) {
+              next();
+              if (kind == ',' || kind == ')') {
+                return true;
+              }
+              previousCouldEndType = false;
+              previousInQualifier = false;
+              continue;
+            }
+            couldEndType = true;
+            inQualifier = previousCouldEndType || previousInQualifier;
+            break;
+          case '.':
+            inQualifier = previousInQualifier;
+            break;
+          default:
+            break;
+        }
+        previousCouldEndType = couldEndType;
+        previousInQualifier = inQualifier;
+        next();
+      }
+      return false;
+    }
+
+    /**
+     * Consumes the rest of the qualified name that starts with the current identifier, returning
+     * its last identifier. Leaves the token after the name as the current token.
+     */
+    String lastIdentifierOfQualifiedName() {
+      String last = identifier();
+      for (next(); kind == '.'; next()) {
+        next();
+        if (kind != IDENTIFIER) {
+          break;
+        }
+        last = identifier();
+      }
+      return last;
+    }
+
+    /**
+     * Consumes the qualified name that starts with the current identifier, returning it without
+     * any whitespace or comments. Leaves the token after the name as the current token.
+     */
+    String qualifiedName() {
+      StringBuilder name = new StringBuilder(identifier());
+      for (next(); kind == '.'; next()) {
+        next();
+        if (kind != IDENTIFIER) {
+          break;
+        }
+        name.append('.').append(identifier());
+      }
+      return name.toString();
+    }
+
+    boolean is(byte[] word) {
+      if (end - start != word.length) {
+        return false;
+      }
+      for (int i = 0; i < word.length; i++) {
+        if (s.get(start + i) != word[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    String identifier() {
+      /*
+       * Identifiers may contain non-ASCII characters, but none of the names that we look for do,
+       * so mapping each byte to a char (producing garbage for non-ASCII bytes) is harmless.
+       */
+      char[] chars = new char[end - start];
+      for (int i = 0; i < chars.length; i++) {
+        chars[i] = (char) (s.get(start + i) & 0xff);
+      }
+      return new String(chars);
+    }
+
+    /** Advances to the next token, setting {@link #kind}, {@link #start}, and {@link #end}. */
+    void next() {
+      while (pos < length) {
+        int c = s.get(pos);
+        if (c == '\\' && pos + 1 < length && s.get(pos + 1) == 'u') {
+          // Unicode escapes can hide anything, even the end of a comment. Give up.
+          kind = UNICODE_ESCAPE;
+          return;
+        }
+        if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f') {
+          pos++;
+        } else if (c == '/' && pos + 1 < length && s.get(pos + 1) == '/') {
+          pos += 2;
+          while (pos < length && s.get(pos) != '\n' && s.get(pos) != '\r') {
+            if (s.get(pos) == '\\' && pos + 1 < length && s.get(pos + 1) == 'u') {
+              kind = UNICODE_ESCAPE;
+              return;
+            }
+            pos++;
+          }
+        } else if (c == '/' && pos + 1 < length && s.get(pos + 1) == '*') {
+          pos += 2;
+          while (pos < length
+              && !(s.get(pos) == '*' && pos + 1 < length && s.get(pos + 1) == '/')) {
+            if (s.get(pos) == '\\' && pos + 1 < length && s.get(pos + 1) == 'u') {
+              kind = UNICODE_ESCAPE;
+              return;
+            }
+            pos++;
+          }
+          pos += 2;
+        } else if (c == '"' || c == '\'') {
+          start = pos;
+          skipLiteral(c);
+          end = pos;
+          return;
+        } else if (isIdentifierPart(c)) {
+          // This also covers numeric literals, which we treat like identifiers.
+          start = pos;
+          while (pos < length && isIdentifierPart(s.get(pos))) {
+            pos++;
+          }
+          end = pos;
+          kind = IDENTIFIER;
+          return;
+        } else {
+          start = pos;
+          end = ++pos;
+          kind = c;
+          return;
+        }
+      }
+      kind = EOF;
+    }
+
+    /**
+     * Skips the string, text block, or character literal that starts at {@link #pos}, setting
+     * {@link #kind} to {@link #LITERAL} or, if the literal contains a Unicode escape, {@link
+     * #UNICODE_ESCAPE}.
+     */
+    private void skipLiteral(int quote) {
+      boolean textBlock =
+          quote == '"' && pos + 2 < length && s.get(pos + 1) == '"' && s.get(pos + 2) == '"';
+      pos += textBlock ? 3 : 1;
+      kind = LITERAL;
+      while (pos < length) {
+        int c = s.get(pos);
+        if (c == '\\') {
+          if (pos + 1 < length && s.get(pos + 1) == 'u') {
+            kind = UNICODE_ESCAPE;
+          }
+          pos += 2;
+        } else if (textBlock) {
+          pos++;
+          if (c == '"' && pos + 1 < length && s.get(pos) == '"' && s.get(pos + 1) == '"') {
+            pos += 2;
+            return;
+          }
+        } else {
+          pos++;
+          if (c == quote || c == '\n') {
+            return;
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean isIdentifierPart(int c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '_'
+        || c == '$'
+        || c < 0; // a byte of a multi-byte character
+  }
+}
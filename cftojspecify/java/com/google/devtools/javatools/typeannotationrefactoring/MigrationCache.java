@@ -0,0 +1,139 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An on-disk record of file contents that need no further migration, keyed by a hash of those
+ * contents.
+ *
+ * <p>There are two reasons to skip a file:
+ *
+ * <ul>
+ *   <li>We refactored contents with this hash and produced no edits ({@link Outcome#UNCHANGED}).
+ *   <li>Contents with this hash are the output of an earlier rewrite ({@link Outcome#REWRITTEN}).
+ *       Migrating such a file again is not just wasted work: The refactoring is not idempotent (it
+ *       would insert the JSpecify imports a second time).
+ * </ul>
+ *
+ * <p>The file starts with a fingerprint of the refactoring rules. If that doesn't match the current
+ * rules, we ignore the old entries.
+ */
+final class MigrationCache {
+  enum Outcome {
+    UNCHANGED('U'),
+    REWRITTEN('R');
+
+    final char code;
+
+    Outcome(char code) {
+      this.code = code;
+    }
+
+    static Outcome forCode(char code) {
+      for (Outcome outcome : values()) {
+        if (outcome.code == code) {
+          return outcome;
+        }
+      }
+      throw new IllegalArgumentException("unknown outcome code: " + code);
+    }
+  }
+
+  private static final String HEADER_PREFIX = "cftojspecify-cache ";
+
+  private final Path file;
+  private final String rulesFingerprint;
+  private final Map<HashCode, Outcome> outcomes = new ConcurrentHashMap<>();
+
+  private MigrationCache(Path file, String rulesFingerprint) {
+    this.file = file;
+    this.rulesFingerprint = rulesFingerprint;
+  }
+
+  /**
+   * Reads the cache stored in {@code file}. Returns an empty cache if there is no such file or if
+   * it was written under rules other than those identified by {@code rulesFingerprint}.
+   */
+  static MigrationCache load(Path file, String rulesFingerprint) {
+    MigrationCache cache = new MigrationCache(file, rulesFingerprint);
+    try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+      if (!(HEADER_PREFIX + rulesFingerprint).equals(reader.readLine())) {
+        return cache;
+      }
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        int space = line.indexOf(' ');
+        cache.outcomes.put(
+            HashCode.fromString(line.substring(0, space)), Outcome.forCode(line.charAt(space + 1)));
+      }
+    } catch (NoSuchFileException e) {
+      // First run. Start empty.
+    } catch (IOException e) {
+      throw new UncheckedIOException(file.toString(), e);
+    }
+    return cache;
+  }
+
+  /** Hashes the bytes between the position and limit of {@code contents}, leaving both as is. */
+  static HashCode hash(ByteBuffer contents) {
+    return Hashing.sha256().hashBytes(contents.duplicate());
+  }
+
+  /** Returns whether contents with the given hash are known to need no migration. */
+  boolean isUpToDate(HashCode contents) {
+    return outcomes.containsKey(contents);
+  }
+
+  void record(HashCode contents, Outcome outcome) {
+    outcomes.put(contents, outcome);
+  }
+
+  /** Writes the cache back to its file, replacing the file atomically. */
+  void save() {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(temp, UTF_8)) {
+        writer.write(HEADER_PREFIX + rulesFingerprint);
+        writer.newLine();
+        for (Map.Entry<HashCode, Outcome> entry : outcomes.entrySet()) {
+          writer.write(entry.getKey().toString());
+          writer.write(' ');
+          writer.write(entry.getValue().code);
+          writer.newLine();
+        }
+      }
+      Files.move(temp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException(file.toString(), e);
+    }
+  }
+}
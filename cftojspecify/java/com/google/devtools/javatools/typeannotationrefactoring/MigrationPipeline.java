@@ -0,0 +1,329 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.devtools.javatools.typeannotationrefactoring.MigrationCache.Outcome.REWRITTEN;
+import static com.google.devtools.javatools.typeannotationrefactoring.MigrationCache.Outcome.UNCHANGED;
+import static com.google.devtools.javatools.typeannotationrefactoring.RunStats.Phase.APPLY;
+import static com.google.devtools.javatools.typeannotationrefactoring.RunStats.Phase.CACHE;
+import static com.google.devtools.javatools.typeannotationrefactoring.RunStats.Phase.PARSE;
+import static com.google.devtools.javatools.typeannotationrefactoring.RunStats.Phase.PREFILTER;
+import static com.google.devtools.javatools.typeannotationrefactoring.RunStats.Phase.READ;
+import static com.google.devtools.javatools.typeannotationrefactoring.RunStats.Phase.SCAN;
+import static com.google.devtools.javatools.typeannotationrefactoring.RunStats.Phase.WRITE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.hash.HashCode;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs files through separate read, refactor, and write stages that are connected by bounded
+ * queues.
+ *
+ * <p>The bounds give us backpressure: At most a few files per refactoring thread are held in memory
+ * at any time, no matter how many large files we're given. Meanwhile, the read and write stages
+ * keep the disk busy while the refactoring threads keep the CPUs busy. All refactoring threads pull
+ * from the same queue, so a thread that finishes a small file immediately moves on to the next one
+ * rather than waiting behind a thread that got a large one.
+ *
+ * <p>The first failure in any stage cancels the whole run and is rethrown from {@link #run}.
+ */
+final class MigrationPipeline {
+  /** A file on its way through the pipeline, either before or after refactoring. */
+  private static final class SourceFile {
+    final String path;
+    final CharSequence contents;
+    /** The hash of the original contents, or {@code null} if we're running without a cache. */
+    final HashCode hash;
+
+    SourceFile(String path, CharSequence contents, HashCode hash) {
+      this.path = path;
+      this.contents = contents;
+      this.hash = hash;
+    }
+  }
+
+  /** Marks the end of the input to a stage. Compared by identity. */
+  private static final String NO_MORE_PATHS = new String("end of paths");
+
+  private static final SourceFile NO_MORE_FILES = new SourceFile(NO_MORE_PATHS, "", null);
+
+  private final int threads;
+  private final int ioThreads;
+  private final SourceIo io;
+  private final MigrationCache cache;
+  private final LexicalPrefilter prefilter;
+  private final EditFormat dryRunFormat;
+  private final RunStats stats;
+  private final BlockingQueue<String> paths;
+  private final BlockingQueue<SourceFile> unrefactored;
+  private final BlockingQueue<SourceFile> refactored;
+  private final List<Thread> running = new ArrayList<>();
+  private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+  /**
+   * @param cache the cache to consult and update, or {@code null} to parse every file
+   * @param prefilter the pre-filter that avoids parsing most files that need no edits, or {@code
+   *     null} to parse every file
+   * @param dryRunFormat the format in which to print the edits to stdout instead of making them,
+   *     or {@code null} to make them
+   */
+  MigrationPipeline(
+      int threads,
+      int ioThreads,
+      SourceIo io,
+      MigrationCache cache,
+      LexicalPrefilter prefilter,
+      EditFormat dryRunFormat,
+      RunStats stats) {
+    this.threads = threads;
+    this.ioThreads = ioThreads;
+    this.io = io;
+    this.cache = cache;
+    this.prefilter = prefilter;
+    this.dryRunFormat = dryRunFormat;
+    this.stats = stats;
+    int capacity = 2 * threads;
+    this.paths = new ArrayBlockingQueue<>(capacity);
+    this.unrefactored = new ArrayBlockingQueue<>(capacity);
+    this.refactored = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /** Migrates each of {@code files} in place, returning once all of them have been written. */
+  void run(Iterator<String> files) {
+    List<Thread> readers = start("read", ioThreads, this::read);
+    List<Thread> refactorers = start("refactor", threads, this::refactor);
+    List<Thread> writers = start("write", ioThreads, this::write);
+    try {
+      while (files.hasNext()) {
+        put(paths, files.next());
+      }
+      finish(readers, paths, NO_MORE_PATHS);
+      finish(refactorers, unrefactored, NO_MORE_FILES);
+      finish(writers, refactored, NO_MORE_FILES);
+    } catch (Throwable t) {
+      // Including failures of the input iterator, which would otherwise leave the stages blocked.
+      cancel(t);
+    }
+    Throwable t = failure.get();
+    if (t != null) {
+      throwIfUnchecked(t);
+      throw new RuntimeException(t);
+    }
+  }
+
+  private void read() throws InterruptedException {
+    for (String path = take(paths); path != NO_MORE_PATHS; path = take(paths)) {
+      if (!path.endsWith(".java")) {
+        continue;
+      }
+      long start = System.nanoTime();
+      ByteBuffer bytes = io.read(path);
+      stats.addTime(READ, System.nanoTime() - start);
+      stats.files.increment();
+      HashCode hash = null;
+      if (cache != null) {
+        start = System.nanoTime();
+        hash = MigrationCache.hash(bytes);
+        boolean upToDate = cache.isUpToDate(hash);
+        stats.addTime(CACHE, System.nanoTime() - start);
+        if (upToDate) {
+          stats.skippedByCache.increment();
+          continue;
+        }
+      }
+      if (prefilter != null) {
+        start = System.nanoTime();
+        boolean mayNeedEdits = prefilter.mayNeedEdits(bytes);
+        stats.addTime(PREFILTER, System.nanoTime() - start);
+        if (!mayNeedEdits) {
+          stats.skippedByPrefilter.increment();
+          if (cache != null) {
+            cache.record(hash, UNCHANGED);
+          }
+          continue;
+        }
+      }
+      start = System.nanoTime();
+      CharBuffer contents = io.decode(path, bytes);
+      stats.addTime(READ, System.nanoTime() - start);
+      put(unrefactored, new SourceFile(path, contents, hash));
+    }
+  }
+
+  private void refactor() throws InterruptedException {
+    for (SourceFile file = take(unrefactored); file != NO_MORE_FILES; file = take(unrefactored)) {
+      long start = System.nanoTime();
+      JCCompilationUnit unit = ReusableJavacParser.forCurrentThread().parse(file.contents);
+      long parsed = System.nanoTime();
+      EditBuffer edits = CheckerFrameworkToJspecifyRefactoring.edits(file.contents, unit);
+      long scanned = System.nanoTime();
+      stats.addTime(PARSE, parsed - start);
+      stats.addTime(SCAN, scanned - parsed);
+      stats.addEdits(edits);
+      if (!edits.isEmpty()) {
+        CharSequence output =
+            dryRunFormat == null
+                ? edits.applyTo(file.contents)
+                : dryRunFormat.render(file.path, file.contents, edits);
+        long applied = System.nanoTime();
+        stats.addTime(APPLY, applied - scanned);
+        stats.addRefactoredFile(file.path, parsed - start, applied - start);
+        put(refactored, new SourceFile(file.path, output, file.hash));
+        continue;
+      }
+      stats.addRefactoredFile(file.path, parsed - start, scanned - start);
+      stats.unchanged.increment();
+      if (cache != null) {
+        cache.record(file.hash, UNCHANGED);
+      }
+    }
+  }
+
+  private void write() throws InterruptedException {
+    for (SourceFile file = take(refactored); file != NO_MORE_FILES; file = take(refactored)) {
+      long start = System.nanoTime();
+      if (dryRunFormat != null) {
+        print(file);
+        stats.addTime(WRITE, System.nanoTime() - start);
+        stats.wouldRewrite.increment();
+        continue;
+      }
+      ByteBuffer bytes = io.write(file.path, file.contents);
+      stats.addTime(WRITE, System.nanoTime() - start);
+      stats.rewritten.increment();
+      if (cache != null) {
+        cache.record(MigrationCache.hash(bytes), REWRITTEN);
+      }
+    }
+  }
+
+  /**
+   * Prints the rendered edits to {@code file}. We print each file's edits in one piece, in the
+   * charset of the sources, so that the output can be fed back to {@code patch}.
+   */
+  private void print(SourceFile file) {
+    ByteBuffer bytes;
+    try {
+      bytes = io.encode(file.contents);
+    } catch (CharacterCodingException e) {
+      throw new UncheckedIOException(file.path, e);
+    }
+    synchronized (System.out) {
+      System.out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+      System.out.flush();
+    }
+  }
+
+  private interface Stage {
+    void run() throws InterruptedException;
+  }
+
+  private List<Thread> start(String name, int count, Stage stage) {
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  stage.run();
+                } catch (Throwable t) {
+                  cancel(t);
+                }
+              },
+              "cftojspecify-" + name + "-" + i);
+      thread.setDaemon(true);
+      threads.add(thread);
+    }
+    synchronized (running) {
+      running.addAll(threads);
+    }
+    threads.forEach(Thread::start);
+    return threads;
+  }
+
+  /** Tells each of {@code stage}'s threads that its input is complete, and waits for them. */
+  private <T> void finish(List<Thread> stage, BlockingQueue<T> input, T endMarker)
+      throws InterruptedException {
+    for (int i = 0; i < stage.size(); i++) {
+      put(input, endMarker);
+    }
+    for (Thread thread : stage) {
+      thread.join();
+    }
+  }
+
+  /** Records {@code t} (unless we already failed) and stops every stage. */
+  private void cancel(Throwable t) {
+    if (!(t instanceof CancelledException) && !(t instanceof InterruptedException)) {
+      failure.compareAndSet(null, t);
+    } else {
+      failure.compareAndSet(null, new IllegalStateException("migration was interrupted", t));
+    }
+    synchronized (running) {
+      for (Thread thread : running) {
+        if (thread != Thread.currentThread()) {
+          thread.interrupt();
+        }
+      }
+    }
+  }
+
+  /*
+   * We poll instead of blocking indefinitely so that the thread feeding the pipeline, which is not
+   * one of the threads that cancel() interrupts, notices when a stage has failed.
+   */
+
+  private <T> void put(BlockingQueue<T> queue, T element) throws InterruptedException {
+    while (!queue.offer(element, 100, MILLISECONDS)) {
+      checkNotCancelled();
+    }
+  }
+
+  private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+    T element;
+    while ((element = queue.poll(100, MILLISECONDS)) == null) {
+      checkNotCancelled();
+    }
+    return element;
+  }
+
+  private void checkNotCancelled() {
+    if (failure.get() != null) {
+      throw new CancelledException();
+    }
+  }
+
+  /** Thrown within a stage to unwind it after another stage has failed. */
+  private static final class CancelledException extends RuntimeException {
+    private static final long serialVersionUID = 0;
+
+    CancelledException() {
+      super(null, null, false, false);
+    }
+  }
+}
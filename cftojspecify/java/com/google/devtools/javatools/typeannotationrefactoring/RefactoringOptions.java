@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableList;
+import java.nio.charset.Charset;
+
+/** Command-line options for {@link CheckerFrameworkToJspecifyRefactoring}. */
+final class RefactoringOptions {
+  /** Number of threads that parse and refactor files. */
+  final int threads;
+
+  /** Number of threads in each of the stages that read and write files. */
+  final int ioThreads;
+
+  /** The pattern that files found by walking a directory must match to be migrated. */
+  final String glob;
+
+  /** The file that backs the {@link MigrationCache}, or {@code null} to run without one. */
+  final String cacheFile;
+
+  /** Whether to skip files that the {@link LexicalPrefilter} proves need no edits. */
+  final boolean prefilter;
+
+  /** The name of the encoding of the source files. */
+  final String charset;
+
+  /**
+   * The format in which to print the edits to stdout instead of making them, or {@code null} to
+   * make them.
+   */
+  final EditFormat dryRunFormat;
+
+  /** The file to which to write {@link RunStats#toJson}, or {@code null} to write none. */
+  final String statsJsonFile;
+
+  /** The inputs, in the order given on the command line. See {@link InputPaths}. */
+  final ImmutableList<String> inputs;
+
+  private RefactoringOptions(
+      int threads,
+      int ioThreads,
+      String glob,
+      String cacheFile,
+      boolean prefilter,
+      String charset,
+      EditFormat dryRunFormat,
+      String statsJsonFile,
+      ImmutableList<String> inputs) {
+    this.threads = threads;
+    this.ioThreads = ioThreads;
+    this.glob = glob;
+    this.cacheFile = cacheFile;
+    this.prefilter = prefilter;
+    this.charset = charset;
+    this.dryRunFormat = dryRunFormat;
+    this.statsJsonFile = statsJsonFile;
+    this.inputs = inputs;
+  }
+
+  static RefactoringOptions parse(String[] args) {
+    int threads = Runtime.getRuntime().availableProcessors();
+    int ioThreads = 2;
+    String glob = "**.java";
+    String cacheFile = null;
+    boolean prefilter = true;
+    String charset = "UTF-8";
+    boolean dryRun = false;
+    EditFormat diffFormat = null;
+    String statsJsonFile = null;
+    ImmutableList.Builder<String> inputs = ImmutableList.builder();
+    for (String arg : args) {
+      if (arg.startsWith("--threads=")) {
+        threads = positiveInt(arg);
+      } else if (arg.startsWith("--io-threads=")) {
+        ioThreads = positiveInt(arg);
+      } else if (arg.startsWith("--glob=")) {
+        glob = arg.substring("--glob=".length());
+      } else if (arg.startsWith("--cache=")) {
+        cacheFile = arg.substring("--cache=".length());
+      } else if (arg.equals("--no-prefilter")) {
+        prefilter = false;
+      } else if (arg.startsWith("--charset=")) {
+        charset = arg.substring("--charset=".length());
+        checkArgument(Charset.isSupported(charset), "unsupported charset: %s", charset);
+      } else if (arg.equals("--dry-run")) {
+        dryRun = true;
+      } else if (arg.startsWith("--diff-format=")) {
+        diffFormat = EditFormat.forFlagValue(arg.substring("--diff-format=".length()));
+      } else if (arg.startsWith("--stats-json=")) {
+        statsJsonFile = arg.substring("--stats-json=".length());
+      } else {
+        checkArgument(!arg.startsWith("--"), "unknown flag: %s", arg);
+        inputs.add(arg);
+      }
+    }
+    checkArgument(dryRun || diffFormat == null, "--diff-format requires --dry-run");
+    EditFormat dryRunFormat =
+        dryRun ? (diffFormat == null ? EditFormat.UNIFIED : diffFormat) : null;
+    return new RefactoringOptions(
+        threads,
+        ioThreads,
+        glob,
+        cacheFile,
+        prefilter,
+        charset,
+        dryRunFormat,
+        statsJsonFile,
+        inputs.build());
+  }
+
+  private static int positiveInt(String flag) {
+    int value = Integer.parseInt(flag.substring(flag.indexOf('=') + 1));
+    checkArgument(value > 0, "%s must be positive", flag);
+    return value;
+  }
+}
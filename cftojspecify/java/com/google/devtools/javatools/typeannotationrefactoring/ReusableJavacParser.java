@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static javax.tools.Diagnostic.Kind.ERROR;
+import static javax.tools.StandardLocation.PLATFORM_CLASS_PATH;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.tools.javac.file.JavacFileManager;
+import com.sun.tools.javac.parser.JavacParser;
+import com.sun.tools.javac.parser.ParserFactory;
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import com.sun.tools.javac.util.Context;
+import com.sun.tools.javac.util.Log;
+import com.sun.tools.javac.util.Options;
+import java.io.IOError;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+/**
+ * A javac parser whose {@link Context}, file manager, and {@link ParserFactory} are built once and
+ * then reused for many compilation units.
+ *
+ * <p>Instances are not thread-safe. Use {@link #forCurrentThread} to get one per worker thread.
+ *
+ * <p>The only per-file state that we need to reset is the source that {@link Log} reports against
+ * and the diagnostics collected for the previous file. Each {@link JavacParser} that we create
+ * allocates its own scanner and end-position table, so nothing else carries over between files
+ * except for the (intentionally) shared name table.
+ */
+final class ReusableJavacParser {
+  /*
+   * The name table interns every identifier that we've ever seen, so a context that lives forever
+   * would retain the identifiers of the whole tree. We start over every so often to bound that.
+   */
+  private static final int MAX_UNITS_PER_CONTEXT = 10_000;
+
+  private static final ThreadLocal<ReusableJavacParser> FOR_CURRENT_THREAD =
+      ThreadLocal.withInitial(ReusableJavacParser::new);
+
+  /** Returns the parser owned by the calling thread, creating it on first use. */
+  static ReusableJavacParser forCurrentThread() {
+    return FOR_CURRENT_THREAD.get();
+  }
+
+  private final List<Diagnostic<? extends JavaFileObject>> diagnostics = new ArrayList<>();
+  private Context context;
+  private ParserFactory parserFactory;
+  private int unitsParsed;
+
+  private ReusableJavacParser() {}
+
+  /** Parses {@code input} as a Java compilation unit. */
+  JCCompilationUnit parse(CharSequence input) {
+    if (context == null || unitsParsed >= MAX_UNITS_PER_CONTEXT) {
+      initContext();
+    }
+    unitsParsed++;
+    diagnostics.clear();
+    SimpleJavaFileObject source =
+        new SimpleJavaFileObject(URI.create("source"), JavaFileObject.Kind.SOURCE) {
+          @Override
+          public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return input;
+          }
+        };
+    Log.instance(context).useSource(source);
+    JavacParser parser =
+        parserFactory.newParser(
+            input, /* keepDocComments= */ true, /* keepEndPos= */ true, /* keepLineMap= */ true);
+    JCCompilationUnit unit = parser.parseCompilationUnit();
+    unit.sourcefile = source;
+    if (diagnostics.stream().anyMatch(d -> d.getKind() == ERROR)) {
+      // Don't trust a context that has seen errors (e.g., Log's error count) with the next file.
+      context = null;
+      throw new AssertionError(ImmutableList.copyOf(diagnostics));
+    }
+    return unit;
+  }
+
+  private void initContext() {
+    context = new Context();
+    context.put(DiagnosticListener.class, (DiagnosticListener<JavaFileObject>) diagnostics::add);
+    Options.instance(context).put("allowStringFolding", "false");
+    JavacFileManager fileManager = new JavacFileManager(context, true, UTF_8);
+    try {
+      fileManager.setLocation(PLATFORM_CLASS_PATH, ImmutableList.of());
+    } catch (IOException e) {
+      // impossible
+      throw new IOError(e);
+    }
+    parserFactory = ParserFactory.instance(context);
+    unitsParsed = 0;
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and timings of what happened to the files in a migration run. Safe for use by multiple
+ * threads.
+ *
+ * <p>Phase times are summed over all the threads that run a phase, so with several threads they can
+ * add up to more than the wall time of the run.
+ */
+final class RunStats {
+  /** A step in migrating a file, for timing. */
+  enum Phase {
+    READ("read"),
+    CACHE("cache"),
+    PREFILTER("pre-filter"),
+    PARSE("parse"),
+    SCAN("scan"),
+    APPLY("apply"),
+    WRITE("write");
+
+    final String description;
+
+    Phase(String description) {
+      this.description = description;
+    }
+  }
+
+  /** The number of files to list in {@link #slowestFiles}. */
+  private static final int SLOWEST_FILE_COUNT = 10;
+
+  /** A file that we refactored and how long that took, excluding I/O. */
+  private static final class FileTime {
+    final String path;
+    final long nanos;
+
+    FileTime(String path, long nanos) {
+      this.path = path;
+      this.nanos = nanos;
+    }
+  }
+
+  private static final Comparator<FileTime> BY_NANOS =
+      Comparator.comparingLong((FileTime t) -> t.nanos);
+
+  /** Files that we read (that is, files whose names end in .java). */
+  final LongAdder files = new LongAdder();
+
+  /** Files whose contents the {@link MigrationCache} said need no migration. */
+  final LongAdder skippedByCache = new LongAdder();
+
+  /** Files that the {@link LexicalPrefilter} proved need no edits. */
+  final LongAdder skippedByPrefilter = new LongAdder();
+
+  /** Files that we parsed and refactored but that needed no edits. */
+  final LongAdder unchanged = new LongAdder();
+
+  /** Files that we rewrote. */
+  final LongAdder rewritten = new LongAdder();
+
+  /** Files that a dry run printed edits for instead of rewriting them. */
+  final LongAdder wouldRewrite = new LongAdder();
+
+  private final boolean dryRun;
+
+  private final long startNanos = System.nanoTime();
+  private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+  private final Map<EditKind, LongAdder> edits = new EnumMap<>(EditKind.class);
+
+  // The rest is guarded by this.
+  private long[] parseNanos = new long[64];
+  private int parsed;
+  /** The slowest files so far, slowest last, so that the fastest of them is the one to evict. */
+  private final PriorityQueue<FileTime> slowestFiles = new PriorityQueue<>(BY_NANOS);
+
+  RunStats(boolean dryRun) {
+    this.dryRun = dryRun;
+    for (Phase phase : Phase.values()) {
+      phaseNanos.put(phase, new LongAdder());
+    }
+    for (EditKind kind : EditKind.values()) {
+      edits.put(kind, new LongAdder());
+    }
+  }
+
+  void addTime(Phase phase, long nanos) {
+    phaseNanos.get(phase).add(nanos);
+  }
+
+  /** Counts the edits that we made (or, in a dry run, would have made) to a file. */
+  void addEdits(EditBuffer buffer) {
+    for (int i = 0; i < buffer.size(); i++) {
+      edits.get(buffer.kind(i)).increment();
+    }
+  }
+
+  /**
+   * Records the time to parse {@code path} and the total time to refactor it, including the
+   * parse.
+   */
+  synchronized void addRefactoredFile(String path, long parseNanos, long refactorNanos) {
+    if (parsed == this.parseNanos.length) {
+      this.parseNanos = Arrays.copyOf(this.parseNanos, parsed * 2);
+    }
+    this.parseNanos[parsed++] = parseNanos;
+    if (slowestFiles.size() < SLOWEST_FILE_COUNT) {
+      slowestFiles.add(new FileTime(path, refactorNanos));
+    } else if (slowestFiles.peek().nanos < refactorNanos) {
+      slowestFiles.poll();
+      slowestFiles.add(new FileTime(path, refactorNanos));
+    }
+  }
+
+  /** Returns a report for humans, whose first line is the counts of files by outcome. */
+  String summary() {
+    StringBuilder summary = new StringBuilder();
+    summary.append(
+        String.format(
+            "%d files: %d %s, %d unchanged, %d skipped by the lexical pre-filter,"
+                + " %d skipped by the cache",
+            files.sum(),
+            dryRun ? wouldRewrite.sum() : rewritten.sum(),
+            dryRun ? "would be rewritten" : "rewritten",
+            unchanged.sum(),
+            skippedByPrefilter.sum(),
+            skippedByCache.sum()));
+
+    summary.append(
+        String.format("%n  time: %.2f s wall;", seconds(System.nanoTime() - startNanos)));
+    for (Phase phase : Phase.values()) {
+      summary.append(
+          String.format(" %s %.2f s,", phase.description, seconds(phaseNanos.get(phase).sum())));
+    }
+    summary.setLength(summary.length() - 1);
+
+    long[] sorted = sortedParseNanos();
+    if (sorted.length > 0) {
+      summary.append(
+          String.format(
+              "%n  parse latency (%d files): p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms",
+              sorted.length,
+              millis(percentile(sorted, 50)),
+              millis(percentile(sorted, 90)),
+              millis(percentile(sorted, 99)),
+              millis(sorted[sorted.length - 1])));
+    }
+
+    summary.append(String.format("%n  edits:"));
+    for (EditKind kind : EditKind.values()) {
+      summary.append(String.format(" %d %s,", edits.get(kind).sum(), kind.description));
+    }
+    summary.setLength(summary.length() - 1);
+
+    List<FileTime> slowest = slowestFiles();
+    if (!slowest.isEmpty()) {
+      summary.append(String.format("%n  slowest files to refactor:"));
+      for (FileTime file : slowest) {
+        summary.append(String.format("%n    %8.2f ms  %s", millis(file.nanos), file.path));
+      }
+    }
+    return summary.toString();
+  }
+
+  /** Returns the same information as {@link #summary}, as a JSON object, with times in ms. */
+  String toJson() {
+    StringBuilder json = new StringBuilder();
+    json.append("{\n  \"files\": {");
+    json.append("\"total\": ").append(files.sum());
+    json.append(", \"rewritten\": ").append(rewritten.sum());
+    json.append(", \"would_rewrite\": ").append(wouldRewrite.sum());
+    json.append(", \"unchanged\": ").append(unchanged.sum());
+    json.append(", \"skipped_by_prefilter\": ").append(skippedByPrefilter.sum());
+    json.append(", \"skipped_by_cache\": ").append(skippedByCache.sum());
+    json.append("},\n  \"wall_ms\": ").append(jsonMillis(System.nanoTime() - startNanos));
+
+    json.append(",\n  \"phase_ms\": {");
+    for (Phase phase : Phase.values()) {
+      if (phase.ordinal() > 0) {
+        json.append(", ");
+      }
+      Json.appendString(json, phase.name().toLowerCase(Locale.ROOT));
+      json.append(": ").append(jsonMillis(phaseNanos.get(phase).sum()));
+    }
+
+    long[] sorted = sortedParseNanos();
+    json.append("},\n  \"parse_ms\": {\"count\": ").append(sorted.length);
+    if (sorted.length > 0) {
+      json.append(", \"p50\": ").append(jsonMillis(percentile(sorted, 50)));
+      json.append(", \"p90\": ").append(jsonMillis(percentile(sorted, 90)));
+      json.append(", \"p99\": ").append(jsonMillis(percentile(sorted, 99)));
+      json.append(", \"max\": ").append(jsonMillis(sorted[sorted.length - 1]));
+    }
+
+    json.append("},\n  \"edits\": {");
+    for (EditKind kind : EditKind.values()) {
+      if (kind.ordinal() > 0) {
+        json.append(", ");
+      }
+      Json.appendString(json, kind.jsonName);
+      json.append(": ").append(edits.get(kind).sum());
+    }
+
+    json.append("},\n  \"slowest_files\": [");
+    List<FileTime> slowest = slowestFiles();
+    for (int i = 0; i < slowest.size(); i++) {
+      json.append(i > 0 ? ",\n    " : "\n    ").append("{\"file\": ");
+      Json.appendString(json, slowest.get(i).path);
+      json.append(", \"ms\": ").append(jsonMillis(slowest.get(i).nanos)).append('}');
+    }
+    return json.append(slowest.isEmpty() ? "]\n}\n" : "\n  ]\n}\n").toString();
+  }
+
+  private synchronized long[] sortedParseNanos() {
+    long[] sorted = Arrays.copyOf(parseNanos, parsed);
+    Arrays.sort(sorted);
+    return sorted;
+  }
+
+  /** Returns the slowest files, slowest first. */
+  private synchronized List<FileTime> slowestFiles() {
+    List<FileTime> slowest = new ArrayList<>(slowestFiles);
+    slowest.sort(BY_NANOS.reversed());
+    return slowest;
+  }
+
+  /** Returns the nearest-rank {@code p}th percentile of {@code sorted}, which must be nonempty. */
+  private static long percentile(long[] sorted, int p) {
+    int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
+
+  private static double seconds(long nanos) {
+    return nanos / 1e9;
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+
+  /** Formats a time for JSON, which needs a "." as the decimal separator in every locale. */
+  private static String jsonMillis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", millis(nanos));
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+
+/**
+ * Reads and writes source files in a given charset.
+ *
+ * <ul>
+ *   <li>Large files are memory-mapped instead of being copied into a {@code byte[]} first.
+ *   <li>We decode into a {@link CharBuffer}, which we hand to javac as is, rather than into a
+ *       {@link String}, which javac would copy into a {@code char[]} anyway.
+ *   <li>Malformed input is an error rather than being silently replaced (and then written back).
+ *   <li>We write to a temporary file next to the original and then rename it over the original, so
+ *       an interrupted run never leaves a half-written source file behind.
+ * </ul>
+ */
+final class SourceIo {
+  /** Files at least this large are memory-mapped. Mapping smaller ones costs more than it saves. */
+  private static final long MAP_THRESHOLD = 1 << 20;
+
+  private final Charset charset;
+
+  SourceIo(Charset charset) {
+    this.charset = charset;
+  }
+
+  Charset charset() {
+    return charset;
+  }
+
+  /** Returns the raw contents of {@code file}. */
+  ByteBuffer read(String file) {
+    try (FileChannel channel = FileChannel.open(Paths.get(file), READ)) {
+      long size = channel.size();
+      if (size >= MAP_THRESHOLD) {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+      ByteBuffer bytes = ByteBuffer.allocate((int) size);
+      while (bytes.hasRemaining()) {
+        if (channel.read(bytes) < 0) {
+          break; // The file shrank while we were reading it.
+        }
+      }
+      bytes.flip();
+      return bytes;
+    } catch (IOException e) {
+      throw new UncheckedIOException(file, e);
+    }
+  }
+
+  /** Decodes the contents of {@code file}, which were returned by {@link #read}. */
+  CharBuffer decode(String file, ByteBuffer bytes) {
+    try {
+      return charset
+          .newDecoder()
+          .onMalformedInput(CodingErrorAction.REPORT)
+          .onUnmappableCharacter(CodingErrorAction.REPORT)
+          .decode(bytes.duplicate());
+    } catch (CharacterCodingException e) {
+      throw new UncheckedIOException(file, e);
+    }
+  }
+
+  /**
+   * Atomically replaces the contents of {@code file} with {@code contents}, preserving its
+   * permissions. Returns the bytes that were written.
+   */
+  ByteBuffer write(String file, CharSequence contents) {
+    try {
+      ByteBuffer bytes = encode(contents);
+      // Write through symlinks, as Files.write would, rather than replacing them.
+      Path path = Paths.get(file).toRealPath();
+      Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+      try {
+        try (FileChannel channel = FileChannel.open(temp, WRITE)) {
+          ByteBuffer toWrite = bytes.duplicate();
+          while (toWrite.hasRemaining()) {
+            channel.write(toWrite);
+          }
+        }
+        copyPermissions(path, temp);
+        try {
+          Files.move(temp, path, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+          Files.move(temp, path, REPLACE_EXISTING);
+        }
+      } finally {
+        Files.deleteIfExists(temp);
+      }
+      return bytes;
+    } catch (IOException e) {
+      throw new UncheckedIOException(file, e);
+    }
+  }
+
+  /** Encodes {@code contents}, throwing if any of it can't be represented in our charset. */
+  ByteBuffer encode(CharSequence contents) throws CharacterCodingException {
+    return charset
+        .newEncoder()
+        .onMalformedInput(CodingErrorAction.REPORT)
+        .onUnmappableCharacter(CodingErrorAction.REPORT)
+        .encode(CharBuffer.wrap(contents));
+  }
+
+  /** Gives {@code to} the permissions of {@code from}, since temporary files are owner-only. */
+  private static void copyPermissions(Path from, Path to) throws IOException {
+    PosixFileAttributeView view = Files.getFileAttributeView(from, PosixFileAttributeView.class);
+    if (view != null) {
+      Set<PosixFilePermission> permissions = view.readAttributes().permissions();
+      Files.setPosixFilePermissions(to, permissions);
+    }
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Renders an {@link EditBuffer} as a unified diff of the file that it edits.
+ *
+ * <p>We know exactly which ranges change, so there is no need for a general diff algorithm: Each
+ * run of edits that touch the same lines becomes one change, minus any lines at its start or end
+ * that the edits leave as they were (as for an import inserted before the first import).
+ */
+final class UnifiedDiff {
+  private static final int CONTEXT = 3;
+
+  /** A run of old lines {@code [oldStart, oldEnd)} (0-based) that becomes {@code newLines}. */
+  private static final class Change {
+    final int oldStart;
+    int oldEnd;
+    final List<String> newLines;
+
+    Change(int oldStart, int oldEnd, List<String> newLines) {
+      this.oldStart = oldStart;
+      this.oldEnd = oldEnd;
+      this.newLines = newLines;
+    }
+
+    int delta() {
+      return newLines.size() - (oldEnd - oldStart);
+    }
+  }
+
+  /**
+   * Returns a unified diff with three lines of context that turns {@code source} into the result of
+   * applying {@code edits} to it, or the empty string if there is no difference. Both file headers
+   * name {@code path}, so {@code patch -p0} applies the diff in place.
+   */
+  static String render(String path, CharSequence source, EditBuffer edits) {
+    int[] lineStarts = lineStarts(source);
+    int lineCount = lineStarts.length - 1;
+    List<Change> changes = changes(source, edits, lineStarts);
+    if (changes.isEmpty()) {
+      return "";
+    }
+    StringBuilder diff = new StringBuilder();
+    diff.append("--- ").append(path).append('\n');
+    diff.append("+++ ").append(path).append('\n');
+    int delta = 0;
+    for (int first = 0; first < changes.size(); ) {
+      int last = first;
+      while (last + 1 < changes.size()
+          && changes.get(last + 1).oldStart - changes.get(last).oldEnd <= 2 * CONTEXT) {
+        last++;
+      }
+      int hunkStart = Math.max(0, changes.get(first).oldStart - CONTEXT);
+      int hunkEnd = Math.min(lineCount, changes.get(last).oldEnd + CONTEXT);
+      int hunkDelta = 0;
+      for (int i = first; i <= last; i++) {
+        hunkDelta += changes.get(i).delta();
+      }
+      int oldCount = hunkEnd - hunkStart;
+      diff.append("@@ -")
+          .append(range(hunkStart, oldCount))
+          .append(" +")
+          .append(range(hunkStart + delta, oldCount + hunkDelta))
+          .append(" @@\n");
+      int line = hunkStart;
+      for (int i = first; i <= last; i++) {
+        Change change = changes.get(i);
+        for (; line < change.oldStart; line++) {
+          appendLine(diff, ' ', line(source, lineStarts, line));
+        }
+        for (; line < change.oldEnd; line++) {
+          appendLine(diff, '-', line(source, lineStarts, line));
+        }
+        for (String newLine : change.newLines) {
+          appendLine(diff, '+', newLine);
+        }
+      }
+      for (; line < hunkEnd; line++) {
+        appendLine(diff, ' ', line(source, lineStarts, line));
+      }
+      delta += hunkDelta;
+      first = last + 1;
+    }
+    return diff.toString();
+  }
+
+  private static List<Change> changes(CharSequence source, EditBuffer edits, int[] lineStarts) {
+    List<Change> changes = new ArrayList<>();
+    for (int i = 0; i < edits.size(); ) {
+      // Gather the edits whose lines overlap, and the lines that they cover.
+      int first = lineOf(lineStarts, source, edits.start(i));
+      int last = lastLineOf(lineStarts, source, edits, i);
+      int j = i + 1;
+      for (; j < edits.size() && lineOf(lineStarts, source, edits.start(j)) < last; j++) {
+        last = Math.max(last, lastLineOf(lineStarts, source, edits, j));
+      }
+
+      int blockStart = lineStarts[first];
+      int blockEnd = lineStarts[last];
+      StringBuilder edited = new StringBuilder();
+      int copied = blockStart;
+      for (int k = i; k < j; k++) {
+        edited.append(source, copied, edits.start(k)).append(edits.replacement(k));
+        copied = edits.end(k);
+      }
+      edited.append(source, copied, blockEnd);
+      List<String> newLines = splitLines(edited);
+
+      // Trim the lines that the edits leave as they were.
+      int oldStart = first;
+      int oldEnd = last;
+      int newStart = 0;
+      int newEnd = newLines.size();
+      while (oldStart < oldEnd
+          && newStart < newEnd
+          && newLines.get(newStart).equals(line(source, lineStarts, oldStart))) {
+        oldStart++;
+        newStart++;
+      }
+      while (oldStart < oldEnd
+          && newStart < newEnd
+          && newLines.get(newEnd - 1).equals(line(source, lineStarts, oldEnd - 1))) {
+        oldEnd--;
+        newEnd--;
+      }
+      if (oldStart < oldEnd || newStart < newEnd) {
+        Change previous = changes.isEmpty() ? null : changes.get(changes.size() - 1);
+        if (previous != null && previous.oldEnd == oldStart) {
+          // Show changes to adjacent lines as one block of removals followed by one of additions.
+          previous.oldEnd = oldEnd;
+          previous.newLines.addAll(newLines.subList(newStart, newEnd));
+        } else {
+          changes.add(
+              new Change(oldStart, oldEnd, new ArrayList<>(newLines.subList(newStart, newEnd))));
+        }
+      }
+      i = j;
+    }
+    return changes;
+  }
+
+  /** Returns the line after the last line that the {@code index}th edit touches. */
+  private static int lastLineOf(
+      int[] lineStarts, CharSequence source, EditBuffer edits, int index) {
+    int start = edits.start(index);
+    int end = edits.end(index);
+    int lineCount = lineStarts.length - 1;
+    return Math.min(lineCount, lineOf(lineStarts, source, end > start ? end - 1 : start) + 1);
+  }
+
+  /**
+   * Returns the offsets at which each line of {@code source} starts, followed by the length of
+   * {@code source}. Each line includes its terminating {@code \n}, if any.
+   */
+  static int[] lineStarts(CharSequence source) {
+    int[] lineStarts = new int[16];
+    int count = 0;
+    int length = source.length();
+    for (int start = 0; start < length; ) {
+      if (count + 1 == lineStarts.length) {
+        lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+      }
+      lineStarts[count++] = start;
+      while (start < length && source.charAt(start++) != '\n') {}
+    }
+    lineStarts[count] = length;
+    return Arrays.copyOf(lineStarts, count + 1);
+  }
+
+  /**
+   * Returns the (0-based) line that contains {@code offset}. For the offset just past the end of a
+   * file that ends with a line terminator (or is empty), that is the line after the last one.
+   */
+  static int lineOf(int[] lineStarts, CharSequence source, int offset) {
+    int lineCount = lineStarts.length - 1;
+    if (offset == source.length()
+        && lineCount > 0
+        && source.charAt(source.length() - 1) != '\n') {
+      return lineCount - 1;
+    }
+    int index = Arrays.binarySearch(lineStarts, offset);
+    return index >= 0 ? index : -index - 2;
+  }
+
+  private static String line(CharSequence source, int[] lineStarts, int line) {
+    return source.subSequence(lineStarts[line], lineStarts[line + 1]).toString();
+  }
+
+  private static List<String> splitLines(CharSequence text) {
+    List<String> lines = new ArrayList<>();
+    int[] lineStarts = lineStarts(text);
+    for (int i = 0; i + 1 < lineStarts.length; i++) {
+      lines.add(line(text, lineStarts, i));
+    }
+    return lines;
+  }
+
+  private static void appendLine(StringBuilder diff, char prefix, String line) {
+    diff.append(prefix).append(line);
+    if (!line.endsWith("\n")) {
+      diff.append("\n\\ No newline at end of file\n");
+    }
+  }
+
+  /** Formats a hunk range, which for an empty range names the line before it, as diff does. */
+  private static String range(int start, int count) {
+    if (count == 1) {
+      return Integer.toString(start + 1);
+    }
+    return (count == 0 ? start : start + 1) + "," + count;
+  }
+
+  private UnifiedDiff() {}
+}
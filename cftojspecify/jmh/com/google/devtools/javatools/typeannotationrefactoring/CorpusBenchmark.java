@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks whole runs over a corpus: the files in the directory named by the {@code
+ * cftojspecify.corpus} system property (which the build points at the conformance tests'
+ * assertions) plus copies of the {@link SyntheticSources} files.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CorpusBenchmark {
+  /** The number of copies of each synthetic file in the corpus. */
+  private static final int SYNTHETIC_COPIES = 10;
+
+  private final LexicalPrefilter prefilter =
+      CheckerFrameworkToJspecifyRefactoring.newLexicalPrefilter();
+  /** The contents of each file, keyed by its path relative to the corpus root. */
+  private final Map<String, byte[]> files = new LinkedHashMap<>();
+  private final List<String> sources = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    String corpus = System.getProperty("cftojspecify.corpus");
+    checkState(corpus != null, "set -Dcftojspecify.corpus to a directory of Java sources");
+    Path root = Paths.get(corpus);
+    List<Path> corpusFiles;
+    try (Stream<Path> walk = Files.walk(root)) {
+      corpusFiles =
+          walk.filter(f -> f.toString().endsWith(".java")).sorted().collect(Collectors.toList());
+    }
+    for (Path file : corpusFiles) {
+      add(root.relativize(file).toString(), Files.readAllBytes(file));
+    }
+    for (int i = 0; i < SYNTHETIC_COPIES; i++) {
+      String copy = "synthetic" + i + "/";
+      add(copy + "bench/None.java", SyntheticSources.withAnnotations(0));
+      add(copy + "bench/Ten.java", SyntheticSources.withAnnotations(10));
+      add(copy + "bench/Many.java", SyntheticSources.withAnnotations(5000));
+      add(
+          copy + "java/util/bench/SyntheticCollections.java",
+          SyntheticSources.javaUtilCollections());
+    }
+  }
+
+  private void add(String path, String contents) {
+    add(path, contents.getBytes(UTF_8));
+  }
+
+  private void add(String path, byte[] contents) {
+    files.put(path, contents);
+    sources.add(new String(contents, UTF_8));
+  }
+
+  /**
+   * A scratch copy of the corpus on disk for {@link #process} to rewrite, restored before each
+   * invocation.
+   */
+  @State(Scope.Benchmark)
+  public static class ScratchDirectory {
+    private Path directory;
+    private final List<String> paths = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void create(CorpusBenchmark corpus) throws IOException {
+      directory = Files.createTempDirectory("cftojspecify-benchmark");
+      for (String path : corpus.files.keySet()) {
+        paths.add(directory.resolve(path).toString());
+      }
+    }
+
+    @Setup(Level.Invocation)
+    public void restore(CorpusBenchmark corpus) throws IOException {
+      for (Map.Entry<String, byte[]> entry : corpus.files.entrySet()) {
+        Path file = directory.resolve(entry.getKey());
+        Files.createDirectories(file.getParent());
+        Files.write(file, entry.getValue());
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+      MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
+
+  /** Returns the number of files that the pre-filter can't skip. */
+  @Benchmark
+  public int prefilter() {
+    int mayNeedEdits = 0;
+    for (byte[] contents : files.values()) {
+      if (prefilter.mayNeedEdits(ByteBuffer.wrap(contents))) {
+        mayNeedEdits++;
+      }
+    }
+    return mayNeedEdits;
+  }
+
+  /** Returns the total number of edits to all the files, computed without the pre-filter. */
+  @Benchmark
+  public int refactor() {
+    int edits = 0;
+    for (String source : sources) {
+      edits += CheckerFrameworkToJspecifyRefactoring.edits(source).size();
+    }
+    return edits;
+  }
+
+  /**
+   * Migrates all the files in place, as a command-line run would: reading, pre-filtering,
+   * refactoring, and rewriting them through the {@link MigrationPipeline}.
+   */
+  @Benchmark
+  public long process(ScratchDirectory scratch) {
+    RunStats stats = new RunStats(/* dryRun= */ false);
+    new MigrationPipeline(
+            Runtime.getRuntime().availableProcessors(),
+            /* ioThreads= */ 2,
+            new SourceIo(UTF_8),
+            /* cache= */ null,
+            prefilter,
+            /* dryRunFormat= */ null,
+            stats)
+        .run(scratch.paths.iterator());
+    return stats.rewritten.sum();
+  }
+}
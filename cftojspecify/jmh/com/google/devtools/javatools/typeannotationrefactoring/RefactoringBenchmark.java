@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.sun.tools.javac.tree.JCTree.JCCompilationUnit;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks each step of refactoring a single file: the lexical pre-filter, parsing, the tree
+ * scan that computes the edits, applying the edits, and all of those together.
+ *
+ * <p>The inputs come from {@link SyntheticSources}: files with 0, 10, and 5,000 annotations (and
+ * otherwise identical contents) and a {@code java.util}-style file of collection classes.
+ *
+ * <p>Benchmarks whose results have package-private types return {@code Object} so that JMH's
+ * generated code, which lives in another package, can consume them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RefactoringBenchmark {
+  @Param({"0", "10", "5000", "java.util"})
+  public String input;
+
+  private final LexicalPrefilter prefilter =
+      CheckerFrameworkToJspecifyRefactoring.newLexicalPrefilter();
+  private String source;
+  private ByteBuffer bytes;
+  private JCCompilationUnit unit;
+  private EditBuffer edits;
+
+  @Setup
+  public void setUp() {
+    source =
+        input.equals("java.util")
+            ? SyntheticSources.javaUtilCollections()
+            : SyntheticSources.withAnnotations(Integer.parseInt(input));
+    bytes = ByteBuffer.wrap(source.getBytes(UTF_8));
+    unit = ReusableJavacParser.forCurrentThread().parse(source);
+    edits = CheckerFrameworkToJspecifyRefactoring.edits(source, unit);
+  }
+
+  @Benchmark
+  public boolean prefilter() {
+    return prefilter.mayNeedEdits(bytes);
+  }
+
+  @Benchmark
+  public JCCompilationUnit parse() {
+    return ReusableJavacParser.forCurrentThread().parse(source);
+  }
+
+  /** The {@code TreePathScanner} pass over an already parsed file. */
+  @Benchmark
+  public Object scan() {
+    return CheckerFrameworkToJspecifyRefactoring.edits(source, unit);
+  }
+
+  @Benchmark
+  public String apply() {
+    return edits.applyTo(source);
+  }
+
+  /** Parsing, scanning, and applying the edits. */
+  @Benchmark
+  public String refactor() {
+    return CheckerFrameworkToJspecifyRefactoring.refactor(source);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+/** Generates source files of known shapes for the benchmarks. */
+final class SyntheticSources {
+  /** The number of methods in a {@link #withAnnotations} file, each with two annotation slots. */
+  private static final int METHODS = 2_500;
+
+  /** The number of nested classes in {@link #javaUtilCollections}. */
+  private static final int COLLECTION_CLASSES = 100;
+
+  /**
+   * Returns a class with a fixed number of methods, the first of which carry {@code annotations}
+   * Checker Framework annotations in total, alternating between declaration annotations (which we
+   * remove) and type annotations (which we replace with {@code @Nullable}). Only the number of
+   * annotations varies, so comparing the results for different numbers isolates the cost of the
+   * edits themselves.
+   */
+  static String withAnnotations(int annotations) {
+    if (annotations < 0 || annotations > 2 * METHODS) {
+      throw new IllegalArgumentException("unsupported number of annotations: " + annotations);
+    }
+    StringBuilder s = new StringBuilder();
+    s.append("package bench;\n\n");
+    s.append("import java.util.List;\n");
+    if (annotations > 0) {
+      s.append("import org.checkerframework.checker.nullness.qual.PolyNull;\n");
+      s.append("import org.checkerframework.dataflow.qual.Pure;\n");
+    }
+    s.append("\n/** A class with ").append(annotations).append(" annotations. */\n");
+    s.append("class Synthetic {\n");
+    for (int i = 0; i < METHODS; i++) {
+      s.append('\n');
+      if (2 * i < annotations) {
+        s.append("  @Pure\n");
+      }
+      s.append("  String m").append(i).append('(');
+      if (2 * i + 1 < annotations) {
+        s.append("@PolyNull ");
+      }
+      s.append("String p, List<String> l) {\n");
+      s.append("    // Returns the first element of l, or p if there is none.\n");
+      s.append("    return l.isEmpty() ? p : l.get(0);\n");
+      s.append("  }\n");
+    }
+    return s.append("}\n").toString();
+  }
+
+  /**
+   * Returns a file in a {@code java.util} package that is {@code @AnnotatedFor("nullness")} and
+   * declares many map- and collection-like classes, which exercises the {@code java.util} parameter
+   * rules, the type-parameter rules, and the {@code @NullMarked} promotion.
+   */
+  static String javaUtilCollections() {
+    StringBuilder s = new StringBuilder();
+    s.append("package java.util.bench;\n\n");
+    s.append("import java.util.Collection;\n");
+    s.append("import org.checkerframework.checker.nullness.qual.NonNull;\n");
+    s.append("import org.checkerframework.checker.nullness.qual.Nullable;\n");
+    s.append("import org.checkerframework.framework.qual.AnnotatedFor;\n\n");
+    s.append("@AnnotatedFor(\"nullness\")\n");
+    s.append("public class SyntheticCollections {\n");
+    for (int i = 0; i < COLLECTION_CLASSES; i++) {
+      s.append("\n  static class Map").append(i).append("<K extends @NonNull Object, V> {\n");
+      s.append("    public boolean containsKey(Object key) {\n      return false;\n    }\n\n");
+      s.append("    public boolean containsValue(Object value) {\n      return false;\n    }\n\n");
+      s.append("    public @Nullable V get(Object key) {\n      return null;\n    }\n\n");
+      s.append("    public @Nullable V remove(Object key) {\n      return null;\n    }\n\n");
+      s.append("    public boolean remove(Object key, Object value) {\n");
+      s.append("      return false;\n    }\n\n");
+      s.append("    public V getOrDefault(Object key, V defaultValue) {\n");
+      s.append("      return defaultValue;\n    }\n\n");
+      s.append("    public boolean containsAll(Collection<?> c) {\n      return false;\n    }\n\n");
+      s.append("    public boolean removeAll(Collection<?> c) {\n      return false;\n    }\n\n");
+      s.append("    public boolean retainAll(Collection<?> c) {\n      return false;\n    }\n");
+      s.append("  }\n");
+    }
+    return s.append("}\n").toString();
+  }
+
+  private SyntheticSources() {}
+}
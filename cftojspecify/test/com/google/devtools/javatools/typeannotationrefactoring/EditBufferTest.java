@@ -0,0 +1,111 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.IMPORT;
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.REMOVAL;
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.SUBSTITUTION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.base.VerifyException;
+import org.junit.jupiter.api.Test;
+
+class EditBufferTest {
+  @Test
+  void keepsEditsSortedByStartThenEnd() {
+    EditBuffer edits = new EditBuffer();
+    edits.put(10, 12, "c", REMOVAL);
+    edits.put(0, 2, "a", REMOVAL);
+    edits.put(5, 7, "b2", REMOVAL);
+    edits.put(5, 5, "b1", IMPORT);
+    // Enough edits to grow the arrays.
+    for (int i = 100; i > 80; i--) {
+      edits.put(i, i + 1, "", REMOVAL);
+    }
+    assertEquals(24, edits.size());
+    for (int i = 1; i < edits.size(); i++) {
+      int c = Integer.compare(edits.start(i - 1), edits.start(i));
+      assertTrue(c < 0 || (c == 0 && edits.end(i - 1) < edits.end(i)));
+    }
+    assertEquals("a", edits.replacement(0));
+    assertEquals("b1", edits.replacement(1));
+    assertEquals(IMPORT, edits.kind(1));
+    assertEquals("b2", edits.replacement(2));
+  }
+
+  @Test
+  void putOverridesAndPutIfAbsentDoesNot() {
+    EditBuffer edits = new EditBuffer();
+    edits.put(0, 1, "x", REMOVAL);
+    edits.putIfAbsent(0, 1, "y", SUBSTITUTION);
+    assertEquals("x", edits.replacement(0));
+    edits.put(0, 1, "z", SUBSTITUTION);
+    assertEquals(1, edits.size());
+    assertEquals("z", edits.replacement(0));
+    assertEquals(SUBSTITUTION, edits.kind(0));
+
+    EditBuffer other = new EditBuffer();
+    other.put(0, 1, "w", REMOVAL);
+    other.put(2, 3, "v", REMOVAL);
+    edits.putAll(other);
+    assertEquals(2, edits.size());
+    assertEquals("w", edits.replacement(0));
+  }
+
+  @Test
+  void applyTo() {
+    EditBuffer edits = new EditBuffer();
+    edits.put(4, 9, "", REMOVAL);
+    edits.put(0, 0, "// x\n", IMPORT);
+    edits.put(16, 16, "!", IMPORT);
+    // An insertion at the end of another edit's range doesn't overlap it.
+    edits.put(9, 9, "[", IMPORT);
+    assertEquals("// x\nabc [def ghi!", edits.applyTo("abc @Foo def ghi"));
+    assertEquals("unchanged", new EditBuffer().applyTo("unchanged"));
+  }
+
+  @Test
+  void applyToRejectsOverlappingEdits() {
+    EditBuffer edits = new EditBuffer();
+    edits.put(0, 5, "", REMOVAL);
+    edits.put(3, 8, "", REMOVAL);
+    VerifyException e = assertThrows(VerifyException.class, () -> edits.applyTo("0123456789"));
+    assertEquals("overlapping edits: [0, 5) and [3, 8)", e.getMessage());
+  }
+
+  @Test
+  void removeNoOps() {
+    String source = "@Nullable String s;";
+    EditBuffer edits = new EditBuffer();
+    edits.put(0, 9, "@Nullable", SUBSTITUTION);
+    edits.put(10, 16, "Object", SUBSTITUTION);
+    edits.put(17, 18, "s", SUBSTITUTION);
+    edits.put(18, 18, "", IMPORT);
+    edits.removeNoOps(source);
+    assertEquals(1, edits.size());
+    assertEquals("Object", edits.replacement(0));
+    assertEquals("@Nullable Object s;", edits.applyTo(source));
+  }
+
+  @Test
+  void rejectsInvalidRanges() {
+    EditBuffer edits = new EditBuffer();
+    assertThrows(IllegalArgumentException.class, () -> edits.put(5, 4, "", REMOVAL));
+    assertThrows(IndexOutOfBoundsException.class, () -> edits.start(0));
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class InputPathsTest {
+  @TempDir Path dir;
+
+  @Test
+  void walksDirectoriesForMatchingFiles() throws IOException {
+    Path a = touch("src/A.java");
+    Path b = touch("src/p/B.java");
+    touch("src/p/notes.txt");
+    Files.createDirectories(dir.resolve("src/empty.java"));
+    assertEquals(
+        ImmutableList.of(a.toString(), b.toString()),
+        sorted(new InputPaths("**.java").expand(ImmutableList.of(dir.resolve("src").toString()))));
+    assertEquals(
+        ImmutableList.of(b.toString()),
+        sorted(new InputPaths("p/*.java").expand(ImmutableList.of(dir.resolve("src").toString()))));
+  }
+
+  @Test
+  void argfiles() throws IOException {
+    Path a = touch("src/A.java");
+    Path b = touch("other/B.java");
+    Path nested = dir.resolve("nested.args");
+    Files.write(nested, ImmutableList.of(b.toString()), UTF_8);
+    Path args = dir.resolve("files.args");
+    Files.write(args, ImmutableList.of("", "  " + dir.resolve("src") + "  ", "@" + nested), UTF_8);
+    try (Stream<String> paths =
+        new InputPaths("**.java").expand(ImmutableList.of("@" + args, "Missing.java"))) {
+      assertEquals(
+          ImmutableList.of(a.toString(), b.toString(), "Missing.java"), paths.collect(toList()));
+    }
+  }
+
+  @Test
+  void missingArgfile() {
+    InputPaths inputs = new InputPaths("**.java");
+    List<String> missing = ImmutableList.of("@" + dir.resolve("missing.args"));
+    assertThrows(UncheckedIOException.class, () -> inputs.expand(missing).collect(toList()));
+  }
+
+  private Path touch(String name) throws IOException {
+    Path file = dir.resolve(name);
+    Files.createDirectories(file.getParent());
+    Files.write(file, new byte[0]);
+    return file;
+  }
+
+  private static List<String> sorted(Stream<String> paths) {
+    try (Stream<String> closing = paths) {
+      return closing.sorted().collect(toList());
+    }
+  }
+}
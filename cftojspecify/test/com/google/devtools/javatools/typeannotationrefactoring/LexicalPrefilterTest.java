@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class LexicalPrefilterTest {
+  private static final LexicalPrefilter PREFILTER =
+      CheckerFrameworkToJspecifyRefactoring.newLexicalPrefilter();
+
+  /** Sources that need edits only because of a single construct that the prefilter looks for. */
+  private static final ImmutableMap<String, String> NEEDING_EDITS =
+      ImmutableMap.<String, String>builder()
+          .put("annotation", "class A {\n  @PolyNull String s;\n}\n")
+          .put("qualified annotation", "class A {\n  @qual.PolyNull String s;\n}\n")
+          .put("type-parameter annotation", "class A<@Foo T> {}\n")
+          .put("receiver", "class A {\n  void f(A this) {}\n}\n")
+          .put("generic receiver", "class A<T> {\n  void f(A<T> this, int i) {}\n}\n")
+          .put(
+              "qualified receiver",
+              "class Outer {\n  class Inner {\n    Inner(Outer Outer.this) {}\n  }\n}\n")
+          .put(
+              "doubly qualified receiver",
+              "class A {\n  class B {\n    class C {\n"
+                  + "      C(A.B A.B.this, int i) {}\n    }\n  }\n}\n")
+          .put(
+              "generic qualified receiver",
+              "class Outer<T> {\n  class Inner {\n    Inner(Outer<T> Outer.this) {}\n  }\n}\n")
+          .put(
+              "java.util",
+              "package java.util;\n\nclass A {\n  boolean contains(Object o) {\n"
+                  + "    return false;\n  }\n}\n")
+          .put(
+              "import",
+              "import org.checkerframework.framework.qual.DefaultQualifier;\n\nclass A {}\n")
+          .build();
+
+  /** Sources that mention the same words as {@link #NEEDING_EDITS} but need no edits. */
+  private static final ImmutableMap<String, String> NEEDING_NO_EDITS =
+      ImmutableMap.<String, String>builder()
+          .put("other annotation", "class A {\n  @Deprecated String s;\n}\n")
+          .put("comment", "class A {\n  // @Nullable String s;\n  /* void f(A this) */\n}\n")
+          .put("string", "class A {\n  String s = \"@Nullable checkerframework\";\n}\n")
+          .put("this", "class A {\n  A f() {\n    g(this, this);\n    return (this);\n  }\n}\n")
+          .put(
+              "qualified this",
+              "class Outer {\n  class Inner {\n    Object f() {\n"
+                  + "      g(x, Outer.this);\n      return (Outer.this);\n    }\n  }\n}\n")
+          .build();
+
+  @Test
+  void constructsThatNeedEdits() {
+    NEEDING_EDITS.forEach(
+        (name, source) -> {
+          assertFalse(edits(source).isEmpty(), name);
+          assertTrue(mayNeedEdits(source), name);
+        });
+  }
+
+  @Test
+  void sourcesThatNeedNoEdits() {
+    NEEDING_NO_EDITS.forEach(
+        (name, source) -> {
+          assertTrue(edits(source).isEmpty(), name);
+          assertFalse(mayNeedEdits(source), name);
+        });
+  }
+
+  /**
+   * Checks that the prefilter never skips a file that needs edits, over our examples and over every
+   * Java file in the samples, the conformance tests and this tool.
+   */
+  @Test
+  void isSound() throws IOException {
+    Map<String, String> corpus = new LinkedHashMap<>();
+    corpus.putAll(NEEDING_EDITS);
+    corpus.putAll(NEEDING_NO_EDITS);
+    for (String root :
+        ImmutableList.of("../samples", "../conformance-tests/src/assertions/java", "java")) {
+      Path dir = Paths.get(root);
+      if (!Files.isDirectory(dir)) {
+        continue;
+      }
+      try (Stream<Path> files = Files.walk(dir)) {
+        for (Path file : (Iterable<Path>) files::iterator) {
+          if (file.toString().endsWith(".java")) {
+            corpus.put(file.toString(), new String(Files.readAllBytes(file), UTF_8));
+          }
+        }
+      }
+    }
+    List<String> unsound = new ArrayList<>();
+    corpus.forEach(
+        (name, source) -> {
+          if (!mayNeedEdits(source) && !edits(source).isEmpty()) {
+            unsound.add(name);
+          }
+        });
+    assertEquals(ImmutableList.of(), unsound);
+  }
+
+  private static boolean mayNeedEdits(String source) {
+    return PREFILTER.mayNeedEdits(ByteBuffer.wrap(source.getBytes(UTF_8)));
+  }
+
+  /** Refactors {@code source}, first putting it in a package if it isn't in one already. */
+  private static EditBuffer edits(String source) {
+    // The refactoring expects a package declaration, which most samples don't have.
+    if (!source.startsWith("package ") && !source.contains("\npackage ")) {
+      source = "package p; " + source;
+    }
+    return CheckerFrameworkToJspecifyRefactoring.edits(source);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static com.google.devtools.javatools.typeannotationrefactoring.MigrationCache.Outcome.REWRITTEN;
+import static com.google.devtools.javatools.typeannotationrefactoring.MigrationCache.Outcome.UNCHANGED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.hash.HashCode;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MigrationCacheTest {
+  @TempDir Path dir;
+
+  private static final HashCode A = MigrationCache.hash(ByteBuffer.wrap("a".getBytes(UTF_8)));
+  private static final HashCode B = MigrationCache.hash(ByteBuffer.wrap("b".getBytes(UTF_8)));
+
+  @Test
+  void roundTrip() {
+    Path file = dir.resolve("cache");
+    MigrationCache cache = MigrationCache.load(file, "rules");
+    assertFalse(cache.isUpToDate(A));
+    cache.record(A, UNCHANGED);
+    cache.record(B, REWRITTEN);
+    cache.save();
+
+    MigrationCache loaded = MigrationCache.load(file, "rules");
+    assertTrue(loaded.isUpToDate(A));
+    assertTrue(loaded.isUpToDate(B));
+  }
+
+  @Test
+  void otherRulesInvalidateTheCache() {
+    Path file = dir.resolve("cache");
+    MigrationCache cache = MigrationCache.load(file, "old rules");
+    cache.record(A, UNCHANGED);
+    cache.save();
+
+    MigrationCache loaded = MigrationCache.load(file, "new rules");
+    assertFalse(loaded.isUpToDate(A));
+    loaded.save();
+    assertFalse(MigrationCache.load(file, "old rules").isUpToDate(A));
+  }
+
+  @Test
+  void hashCoversOnlyTheRemainingBytes() throws Exception {
+    ByteBuffer bytes = ByteBuffer.wrap("xa".getBytes(UTF_8));
+    bytes.position(1);
+    assertEquals(A, MigrationCache.hash(bytes));
+    assertEquals(1, bytes.position());
+    assertTrue(Files.notExists(dir.resolve("cache.tmp")));
+  }
+
+  @Test
+  void rulesFingerprintIsStable() {
+    assertEquals(
+        CheckerFrameworkToJspecifyRefactoring.rulesFingerprint(),
+        CheckerFrameworkToJspecifyRefactoring.rulesFingerprint());
+  }
+}
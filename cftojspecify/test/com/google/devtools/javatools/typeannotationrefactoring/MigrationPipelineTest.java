@@ -0,0 +1,162 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MigrationPipelineTest {
+  @TempDir Path dir;
+
+  private static final String NEEDS_EDITS =
+      "package p;\n\n"
+          + "import org.checkerframework.checker.nullness.qual.Nullable;\n\n"
+          + "class A {\n  @Nullable String s;\n}\n";
+
+  private static final String NEEDS_NO_EDITS = "package p;\n\nclass B {\n  String s;\n}\n";
+
+  @Test
+  void rewritesOnlyFilesThatNeedEdits() throws IOException {
+    Path a = write("A.java", NEEDS_EDITS);
+    Path b = write("B.java", NEEDS_NO_EDITS);
+    Path notJava = write("C.txt", NEEDS_EDITS);
+    RunStats stats = new RunStats(/* dryRun= */ false);
+    pipeline(stats)
+        .run(ImmutableList.of(a.toString(), b.toString(), notJava.toString()).iterator());
+
+    assertEquals(CheckerFrameworkToJspecifyRefactoring.refactor(NEEDS_EDITS), read(a));
+    assertEquals(NEEDS_NO_EDITS, read(b));
+    assertEquals(NEEDS_EDITS, read(notJava));
+    assertEquals(2, stats.files.sum());
+    assertEquals(1, stats.rewritten.sum());
+    assertEquals(1, stats.skippedByPrefilter.sum());
+  }
+
+  @Test
+  void dryRunPrintsEditsWithoutRewriting() throws IOException {
+    Path a = write("A.java", NEEDS_EDITS);
+    Path b = write("B.java", NEEDS_NO_EDITS);
+    RunStats stats = new RunStats(/* dryRun= */ true);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PrintStream oldOut = System.out;
+    System.setOut(new PrintStream(out, true, "UTF-8"));
+    try {
+      pipeline(stats, EditFormat.EDITS)
+          .run(ImmutableList.of(a.toString(), b.toString()).iterator());
+    } finally {
+      System.setOut(oldOut);
+    }
+
+    assertEquals(NEEDS_EDITS, read(a));
+    assertTrue(new String(out.toByteArray(), UTF_8).startsWith("{\"file\":"));
+    assertEquals(0, stats.rewritten.sum());
+    assertEquals(1, stats.wouldRewrite.sum());
+    assertTrue(stats.summary().startsWith("2 files: 1 would be rewritten, 0 unchanged,"));
+  }
+
+  @Test
+  void failureInAStageIsRethrown() throws IOException {
+    Path a = write("A.java", NEEDS_EDITS);
+    String missing = dir.resolve("Missing.java").toString();
+    MigrationPipeline pipeline = pipeline(new RunStats(/* dryRun= */ false));
+    UncheckedIOException e =
+        assertThrows(
+            UncheckedIOException.class,
+            () -> pipeline.run(ImmutableList.of(missing, a.toString()).iterator()));
+    assertEquals(missing, e.getMessage().substring(0, missing.length()));
+    assertStagesStop();
+  }
+
+  @Test
+  void failureOfTheInputIsRethrownAndStopsTheStages() throws IOException {
+    Path a = write("A.java", NEEDS_EDITS);
+    UncheckedIOException failure = new UncheckedIOException(new IOException("walk failed"));
+    Iterator<String> inputs =
+        new Iterator<String>() {
+          int next;
+
+          @Override
+          public boolean hasNext() {
+            return true;
+          }
+
+          @Override
+          public String next() {
+            if (next++ == 0) {
+              return a.toString();
+            }
+            throw failure;
+          }
+        };
+    MigrationPipeline pipeline = pipeline(new RunStats(/* dryRun= */ false));
+    assertSame(failure, assertThrows(UncheckedIOException.class, () -> pipeline.run(inputs)));
+    assertStagesStop();
+  }
+
+  private static MigrationPipeline pipeline(RunStats stats) {
+    return pipeline(stats, null);
+  }
+
+  private static MigrationPipeline pipeline(RunStats stats, EditFormat dryRunFormat) {
+    return new MigrationPipeline(
+        2,
+        1,
+        new SourceIo(UTF_8),
+        null,
+        CheckerFrameworkToJspecifyRefactoring.newLexicalPrefilter(),
+        dryRunFormat,
+        stats);
+  }
+
+  /** Waits for the pipeline's threads, which a failed run must not leave blocked, to finish. */
+  private static void assertStagesStop() {
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (System.nanoTime() < deadline) {
+      boolean running =
+          Thread.getAllStackTraces().keySet().stream()
+              .anyMatch(t -> t.getName().startsWith("cftojspecify-"));
+      if (!running) {
+        return;
+      }
+      Thread.yield();
+    }
+    assertTrue(false, "pipeline threads still running");
+  }
+
+  private Path write(String name, String contents) throws IOException {
+    Path file = dir.resolve(name);
+    Files.write(file, contents.getBytes(UTF_8));
+    return file;
+  }
+
+  private static String read(Path file) throws IOException {
+    return new String(Files.readAllBytes(file), UTF_8);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.devtools.javatools.typeannotationrefactoring;
+
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.REMOVAL;
+import static com.google.devtools.javatools.typeannotationrefactoring.EditKind.SUBSTITUTION;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UnifiedDiffTest {
+  @TempDir Path dir;
+
+  private static final String SOURCE =
+      String.join(
+          "\n",
+          "package p;",
+          "",
+          "import org.checkerframework.checker.nullness.qual.NonNull;",
+          "import org.checkerframework.checker.nullness.qual.Nullable;",
+          "",
+          "class Foo {",
+          "  @Nullable String a;",
+          "",
+          "  String b;",
+          "  String c;",
+          "  String d;",
+          "  String e;",
+          "  String f;",
+          "  String g;",
+          "  String h;",
+          "",
+          "  void m(Foo this, @NonNull String t) {}",
+          "}",
+          "");
+
+  @Test
+  void patchAppliesTheEdits() throws Exception {
+    EditBuffer edits = CheckerFrameworkToJspecifyRefactoring.edits(SOURCE);
+    assertPatchApplies(SOURCE, edits);
+  }
+
+  @Test
+  void patchAppliesTheEditsWithoutFinalNewline() throws Exception {
+    String source = SOURCE.substring(0, SOURCE.length() - 1);
+    EditBuffer edits = CheckerFrameworkToJspecifyRefactoring.edits(source);
+    assertPatchApplies(source, edits);
+  }
+
+  @Test
+  void hunks() {
+    String source = "a\nb\nc\nd\ne\nf\ng\nh\ni\nj\nk\nl\n";
+    EditBuffer edits = new EditBuffer();
+    edits.put(0, 1, "A", SUBSTITUTION);
+    edits.put(20, 22, "", REMOVAL);
+    assertEquals(
+        String.join(
+            "\n",
+            "--- F.java",
+            "+++ F.java",
+            "@@ -1,4 +1,4 @@",
+            "-a",
+            "+A",
+            " b",
+            " c",
+            " d",
+            "@@ -8,5 +8,4 @@",
+            " h",
+            " i",
+            " j",
+            "-k",
+            " l",
+            ""),
+        UnifiedDiff.render("F.java", source, edits));
+    assertEquals("", UnifiedDiff.render("F.java", source, new EditBuffer()));
+  }
+
+  @Test
+  void editsFormat() {
+    String source = "class A {\n  @Nullable String s;\n}\n";
+    EditBuffer edits = new EditBuffer();
+    edits.put(12, 22, "", REMOVAL);
+    assertEquals(
+        "{\"file\":\"dir/A.java\",\"edits\":[{\"start\":12,\"end\":22,\"line\":2,\"column\":3,"
+            + "\"kind\":\"removal\",\"replacement\":\"\"}]}\n",
+        EditFormat.EDITS.render("dir/A.java", source, edits));
+    assertEquals(EditFormat.UNIFIED, EditFormat.forFlagValue("unified"));
+  }
+
+  /** Checks that {@code patch -p0} turns {@code source} into the result of applying the edits. */
+  private void assertPatchApplies(String source, EditBuffer edits) throws Exception {
+    assumeTrue(hasPatch(), "needs the patch command");
+    Path file = dir.resolve("Foo.java");
+    Files.write(file, source.getBytes(UTF_8));
+    String diff = UnifiedDiff.render("Foo.java", source, edits);
+    Process patch = new ProcessBuilder("patch", "-p0").directory(dir.toFile()).start();
+    try (OutputStream in = patch.getOutputStream()) {
+      in.write(diff.getBytes(UTF_8));
+    }
+    assertEquals(0, patch.waitFor(), diff);
+    assertEquals(edits.applyTo(source), new String(Files.readAllBytes(file), UTF_8));
+  }
+
+  private static boolean hasPatch() {
+    try {
+      return new ProcessBuilder("patch", "--version").start().waitFor() == 0;
+    } catch (IOException | InterruptedException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import java.nio.file.Path;
+
+/** An assertion comment, attached to the line of code that follows it. */
+public final class Assertion {
+  /** The kinds of assertion comments, by the prefix that starts them. */
+  public enum Kind {
+    EXPRESSION_TYPE("test:expression-type:"),
+    SINK_TYPE("test:sink-type:"),
+    CANNOT_CONVERT("test:cannot-convert:"),
+    IRRELEVANT_ANNOTATION("test:irrelevant-annotation:"),
+    /** Names the assertions that follow it. Never a {@link Fact}. */
+    NAME("test:name:"),
+    /** One of the {@code jspecify_} findings that the samples use. */
+    DIAGNOSTIC("jspecify_");
+
+    final String prefix;
+
+    Kind(String prefix) {
+      this.prefix = prefix;
+    }
+
+    /** Returns the kind of {@code comment}, or {@code null} if it has none of our prefixes. */
+    static Kind of(String comment) {
+      for (Kind kind : values()) {
+        if (comment.startsWith(kind.prefix)) {
+          return kind;
+        }
+      }
+      return null;
+    }
+  }
+
+  private final int line;
+  private final Kind kind;
+  private final String text;
+
+  Assertion(int line, Kind kind, String text) {
+    this.line = line;
+    this.kind = kind;
+    this.text = text;
+  }
+
+  /** The (1-based) line of code that the assertion is about. */
+  public int line() {
+    return line;
+  }
+
+  public Kind kind() {
+    return kind;
+  }
+
+  /** The text of the comment, without the {@code //}. */
+  public String text() {
+    return text;
+  }
+
+  /** The text of the comment after its {@link Kind} prefix, like {@code Object?:nullable}. */
+  public String detail() {
+    return text.substring(kind.prefix.length());
+  }
+
+  /** Returns the fact that the assertion expects of {@code file}. */
+  Fact toFact(Path file) {
+    return Fact.of(file, line, text);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof Assertion)) {
+      return false;
+    }
+    Assertion that = (Assertion) o;
+    return line == that.line && kind == that.kind && text.equals(that.text);
+  }
+
+  @Override
+  public int hashCode() {
+    return line * 31 + text.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return line + ": " + text;
+  }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jspecify.conformance.runner.Assertion.Kind;
+
+/**
+ * The assertions of a set of files, keyed by a relative path for each file, like {@code
+ * assertions/org/jspecify/conformance/tests/Basic.java}.
+ *
+ * <p>The distribution of the conformance tests includes an index of its files, so that runners can
+ * load their expectations without parsing every file again. The index records the SHA-256 hash of
+ * each file, so that runners can tell when a file no longer matches its entry.
+ *
+ * <p>The serialized form is a header, a table of the distinct strings (keys and comment texts),
+ * and then each file's hash and assertions, with strings as indexes into the table:
+ *
+ * <pre>
+ * int magic, int version
+ * int stringCount, stringCount * UTF string
+ * int fileCount, fileCount * (int key, byte[32] sha256, int assertionCount,
+ *     assertionCount * (int line, byte kind, int text))
+ * </pre>
+ */
+public final class AssertionIndex {
+  /** The name of the index in the distribution of the conformance tests. */
+  public static final String FILE_NAME = "assertions.index";
+
+  private static final int MAGIC = 0x4a53_4149; // "JSAI"
+  private static final int VERSION = 2;
+
+  private static final int HASH_BYTES = 32;
+
+  private final Map<String, List<Assertion>> assertionsByKey;
+  private final Map<String, String> hashesByKey;
+
+  private AssertionIndex(
+      Map<String, List<Assertion>> assertionsByKey, Map<String, String> hashesByKey) {
+    this.assertionsByKey = assertionsByKey;
+    this.hashesByKey = hashesByKey;
+  }
+
+  /** Builds an index one file at a time. */
+  public static final class Builder {
+    private final Map<String, String> strings = new HashMap<>();
+    private final Map<String, List<Assertion>> assertionsByKey = new LinkedHashMap<>();
+    private final Map<String, String> hashesByKey = new HashMap<>();
+
+    /** Parses {@code file} and adds its assertions and hash under {@code key}. */
+    public Builder add(String key, Path file) throws IOException {
+      byte[] contents = Files.readAllBytes(file);
+      key = strings.computeIfAbsent(key, k -> k);
+      assertionsByKey.put(
+          key, unmodifiableList(parse(contents, file.toString(), new AssertionParser(strings))));
+      hashesByKey.put(key, sha256(contents));
+      return this;
+    }
+
+    public AssertionIndex build() {
+      return new AssertionIndex(new LinkedHashMap<>(assertionsByKey), new HashMap<>(hashesByKey));
+    }
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /** Returns the assertions in {@code file}, parsing it from scratch. */
+  static List<Assertion> parse(Path file) throws IOException {
+    return parse(Files.readAllBytes(file), file.toString());
+  }
+
+  /** Returns the assertions in {@code contents}, the UTF-8 bytes of the file {@code source}. */
+  static List<Assertion> parse(byte[] contents, String source) throws IOException {
+    return parse(contents, source, new AssertionParser(new HashMap<>()));
+  }
+
+  private static List<Assertion> parse(byte[] contents, String source, AssertionParser parser)
+      throws IOException {
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(new ByteArrayInputStream(contents), UTF_8))) {
+      return parser.parse(reader, source);
+    }
+  }
+
+  /** Returns the SHA-256 hash of {@code contents}, in lowercase hex. */
+  static String sha256(byte[] contents) {
+    return hex(sha256Digest().digest(contents));
+  }
+
+  static MessageDigest sha256Digest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new AssertionError("every Java platform supports SHA-256", e);
+    }
+  }
+
+  static String hex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  /** Returns the key of {@code file}: its path relative to {@code root}, separated by {@code /}. */
+  public static String key(Path root, Path file) {
+    return root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+  }
+
+  /** The keys of the indexed files, in the order they were added. */
+  public Set<String> keys() {
+    return unmodifiableSet(assertionsByKey.keySet());
+  }
+
+  /** Returns whether the index has an entry for {@code key}. */
+  public boolean contains(String key) {
+    return assertionsByKey.containsKey(key);
+  }
+
+  /**
+   * Returns the SHA-256 hash, in lowercase hex, of the contents that the file with {@code key} had
+   * when it was indexed, or {@code null} if there is no such file.
+   */
+  public String sha256(String key) {
+    return hashesByKey.get(key);
+  }
+
+  /** Returns the assertions of the file with {@code key}, or an empty list if there is none. */
+  public List<Assertion> assertions(String key) {
+    return assertionsByKey.getOrDefault(key, emptyList());
+  }
+
+  /** Writes the index to {@code out}, which this method does not close. */
+  public void write(OutputStream out) throws IOException {
+    Map<String, Integer> indexes = new LinkedHashMap<>();
+    assertionsByKey.forEach(
+        (key, assertions) -> {
+          indexes.putIfAbsent(key, indexes.size());
+          for (Assertion assertion : assertions) {
+            indexes.putIfAbsent(assertion.text(), indexes.size());
+          }
+        });
+    DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+    data.writeInt(MAGIC);
+    data.writeInt(VERSION);
+    data.writeInt(indexes.size());
+    for (String string : indexes.keySet()) {
+      data.writeUTF(string);
+    }
+    data.writeInt(assertionsByKey.size());
+    for (Map.Entry<String, List<Assertion>> entry : assertionsByKey.entrySet()) {
+      data.writeInt(indexes.get(entry.getKey()));
+      data.write(unhex(hashesByKey.get(entry.getKey())));
+      data.writeInt(entry.getValue().size());
+      for (Assertion assertion : entry.getValue()) {
+        data.writeInt(assertion.line());
+        data.writeByte(assertion.kind().ordinal());
+        data.writeInt(indexes.get(assertion.text()));
+      }
+    }
+    data.flush();
+  }
+
+  /** Reads an index that {@link #write} wrote. Does not close {@code in}. */
+  public static AssertionIndex read(InputStream in) throws IOException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+    if (data.readInt() != MAGIC) {
+      throw new IOException("not an assertion index");
+    }
+    int version = data.readInt();
+    if (version != VERSION) {
+      throw new IOException("unsupported assertion index version: " + version);
+    }
+    String[] strings = new String[data.readInt()];
+    for (int i = 0; i < strings.length; i++) {
+      strings[i] = data.readUTF();
+    }
+    Kind[] kinds = Kind.values();
+    int fileCount = data.readInt();
+    Map<String, List<Assertion>> assertionsByKey = new LinkedHashMap<>();
+    Map<String, String> hashesByKey = new HashMap<>();
+    byte[] hash = new byte[HASH_BYTES];
+    for (int i = 0; i < fileCount; i++) {
+      String key = strings[data.readInt()];
+      data.readFully(hash);
+      hashesByKey.put(key, hex(hash));
+      int count = data.readInt();
+      List<Assertion> assertions = new ArrayList<>(count);
+      for (int j = 0; j < count; j++) {
+        int line = data.readInt();
+        Kind kind = kinds[data.readUnsignedByte()];
+        assertions.add(new Assertion(line, kind, strings[data.readInt()]));
+      }
+      assertionsByKey.put(key, unmodifiableList(assertions));
+    }
+    return new AssertionIndex(assertionsByKey, hashesByKey);
+  }
+
+  private static byte[] unhex(String hex) {
+    byte[] bytes = new byte[hex.length() / 2];
+    for (int i = 0; i < bytes.length; i++) {
+      int high = Character.digit(hex.charAt(2 * i), 16);
+      int low = Character.digit(hex.charAt(2 * i + 1), 16);
+      bytes[i] = (byte) (high << 4 | low);
+    }
+    return bytes;
+  }
+
+  /** Reads the index in {@code file}. */
+  public static AssertionIndex read(Path file) throws IOException {
+    try (InputStream in = Files.newInputStream(file)) {
+      return read(in);
+    }
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Writes the {@link AssertionIndex} that the distribution of the conformance tests includes.
+ *
+ * <p>usage: AssertionIndexer --output=FILE [--assertions=DIR] [--samples=DIR]
+ *
+ * <p>Each Java file under {@code --assertions} and {@code --samples} is indexed under its path in
+ * the distribution, like {@code assertions/org/jspecify/conformance/tests/Basic.java} or {@code
+ * samples/Foo.java}.
+ */
+public final class AssertionIndexer {
+  public static void main(String[] args) throws IOException {
+    Path output = null;
+    Map<String, Path> dirs = new LinkedHashMap<>();
+    for (String arg : args) {
+      String value = arg.substring(arg.indexOf('=') + 1);
+      if (arg.startsWith("--output=")) {
+        output = Paths.get(value);
+      } else if (arg.startsWith("--assertions=")) {
+        dirs.put("assertions", Paths.get(value));
+      } else if (arg.startsWith("--samples=")) {
+        dirs.put("samples", Paths.get(value));
+      } else {
+        System.err.println("unknown argument: " + arg);
+        System.exit(2);
+      }
+    }
+    if (output == null) {
+      System.err.println("--output is required");
+      System.exit(2);
+    }
+
+    AssertionIndex.Builder index = AssertionIndex.builder();
+    for (Map.Entry<String, Path> dir : dirs.entrySet()) {
+      Path root = dir.getValue().toAbsolutePath().normalize();
+      for (Path file : javaFiles(root)) {
+        index.add(dir.getKey() + "/" + AssertionIndex.key(root, file), file);
+      }
+    }
+    if (output.getParent() != null) {
+      Files.createDirectories(output.getParent());
+    }
+    try (OutputStream out = Files.newOutputStream(output)) {
+      index.build().write(out);
+    }
+  }
+
+  private static List<Path> javaFiles(Path root) throws IOException {
+    try (Stream<Path> files = Files.walk(root)) {
+      return files
+          .filter(f -> f.getFileName().toString().endsWith(".java") && Files.isRegularFile(f))
+          .sorted()
+          .collect(toList());
+    }
+  }
+
+  private AssertionIndexer() {}
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.conformance.runner.Assertion.Kind;
+
+/**
+ * Reads the assertion comments of a source file in one pass over its lines, without regular
+ * expressions.
+ *
+ * <p>An assertion is a line comment that is alone on its line and starts with one of the {@link
+ * Kind} prefixes. It is about the next line that has code on it. Comments that start with {@code
+ * test:} but no known prefix are errors, so that typos don't silently drop assertions. Comments
+ * that start with {@code jspecify_} but contain anything other than lowercase letters and
+ * underscores are not assertions.
+ *
+ * <p>The parser tracks block comments and skips string and character literals, which is enough to
+ * tell code lines from comment lines. It does not otherwise tokenize the file.
+ */
+final class AssertionParser {
+  /** Strings that we've already seen, so that equal comments share one {@code String}. */
+  private final Map<String, String> strings;
+
+  private boolean inBlockComment;
+
+  AssertionParser(Map<String, String> strings) {
+    this.strings = strings;
+  }
+
+  /**
+   * Returns the assertions in the file that {@code reader} reads, in line order. {@code source}
+   * names the file in errors.
+   */
+  List<Assertion> parse(BufferedReader reader, String source) throws IOException {
+    List<Assertion> assertions = new ArrayList<>();
+    List<Assertion> pending = new ArrayList<>();
+    inBlockComment = false;
+    int lineNumber = 0;
+    for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+      lineNumber++;
+      int start = skipWhitespace(line, 0);
+      if (!inBlockComment && line.startsWith("//", start)) {
+        String comment = line.substring(skipWhitespace(line, start + 2)).trim();
+        Kind kind = Kind.of(comment);
+        if (kind == null && comment.startsWith("test:")) {
+          throw new IllegalArgumentException(
+              source + ":" + lineNumber + ": unknown assertion: " + comment);
+        }
+        if (kind != null && (kind != Kind.DIAGNOSTIC || isDiagnosticName(comment))) {
+          // The line isn't known until we reach code, so 0 holds its place.
+          pending.add(new Assertion(0, kind, strings.computeIfAbsent(comment, c -> c)));
+        }
+      } else if (hasCode(line, start) && !pending.isEmpty()) {
+        for (Assertion assertion : pending) {
+          assertions.add(new Assertion(lineNumber, assertion.kind(), assertion.text()));
+        }
+        pending.clear();
+      }
+    }
+    return assertions;
+  }
+
+  /**
+   * Returns whether {@code line} has anything but whitespace and comments from {@code start} on,
+   * and tracks whether a block comment is still open at its end.
+   */
+  private boolean hasCode(String line, int start) {
+    boolean code = false;
+    int length = line.length();
+    for (int i = start; i < length; ) {
+      if (inBlockComment) {
+        int end = line.indexOf("*/", i);
+        if (end < 0) {
+          return code;
+        }
+        inBlockComment = false;
+        i = end + 2;
+        continue;
+      }
+      char c = line.charAt(i);
+      if (Character.isWhitespace(c)) {
+        i++;
+      } else if (line.startsWith("//", i)) {
+        return code;
+      } else if (line.startsWith("/*", i)) {
+        inBlockComment = true;
+        i += 2;
+      } else if (c == '"' || c == '\'') {
+        code = true;
+        i = skipLiteral(line, i);
+      } else {
+        code = true;
+        i++;
+      }
+    }
+    return code;
+  }
+
+  /** Returns the index after the literal that starts at {@code start}, or after the line. */
+  private static int skipLiteral(String line, int start) {
+    char quote = line.charAt(start);
+    int length = line.length();
+    for (int i = start + 1; i < length; i++) {
+      char c = line.charAt(i);
+      if (c == '\\') {
+        i++;
+      } else if (c == quote) {
+        return i + 1;
+      }
+    }
+    return length;
+  }
+
+  private static int skipWhitespace(String line, int start) {
+    int i = start;
+    while (i < line.length() && Character.isWhitespace(line.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static boolean isDiagnosticName(String comment) {
+    if (comment.length() == Kind.DIAGNOSTIC.prefix.length()) {
+      return false;
+    }
+    for (int i = Kind.DIAGNOSTIC.prefix.length(); i < comment.length(); i++) {
+      char c = comment.charAt(i);
+      if (!(c >= 'a' && c <= 'z') && c != '_') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
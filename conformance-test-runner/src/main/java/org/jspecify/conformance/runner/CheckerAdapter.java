@@ -0,0 +1,95 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs one nullness checker on conformance test files and reports what it found as {@linkplain
+ * Fact facts}.
+ *
+ * <p>Implementations are found with {@link java.util.ServiceLoader}: List the implementing class
+ * in {@code META-INF/services/org.jspecify.conformance.runner.CheckerAdapter}, and put its jar on
+ * the runner's classpath. The runner calls {@link #check} from several threads at once, or, in
+ * batch mode, calls {@link #checkAll} once.
+ */
+public interface CheckerAdapter {
+  /** The name that selects this adapter on the command line, like {@code "checker-framework"}. */
+  String name();
+
+  /**
+   * The version of the adapter and the checker it runs. Results recorded under one version are
+   * never reused under another.
+   */
+  String version();
+
+  /**
+   * Compiles {@code files} with the checker and returns the facts that it reports about them.
+   *
+   * <p>{@code sourceRoot} is the root of the source tree that contains the files. Put it on the
+   * source path: The files may refer to other files under it, which another call checks, and a
+   * package's {@code package-info.java} may be checked in another call than its classes. Facts
+   * about files other than {@code files} are ignored.
+   *
+   * @param files the files to check, under {@code sourceRoot}. Each {@link Fact#file()} must be
+   *     one of these paths, though it may be relative or not normalized.
+   * @param classpath the jars that the files depend on, including the JSpecify annotations
+   * @throws Exception if the checker could not check the files at all, in which case all their
+   *     expected facts count as missing
+   */
+  List<Fact> check(Path sourceRoot, List<Path> files, List<Path> classpath) throws Exception;
+
+  /**
+   * Compiles all of {@code files}, which are under any of {@code sourceRoots}, with the checker and
+   * returns the facts that it reports about them. The runner calls this instead of {@link #check}
+   * in batch mode.
+   *
+   * <p>Fully qualified class names are unique across the source roots of the conformance tests,
+   * so checkers can compile all the files in one invocation with all the roots on the source path,
+   * which saves starting up the compiler again for each shard. Adapters that can do that should
+   * override this method. By default, it calls {@link #check} once for each source root, with the
+   * files under that root (and not under a nested root).
+   *
+   * @throws Exception if the checker could not check the files at all, in which case all their
+   *     expected facts count as missing
+   */
+  default List<Fact> checkAll(List<Path> sourceRoots, List<Path> files, List<Path> classpath)
+      throws Exception {
+    Map<Path, List<Path>> filesByRoot = new LinkedHashMap<>();
+    for (Path file : files) {
+      Path root = null;
+      for (Path sourceRoot : sourceRoots) {
+        if (file.startsWith(sourceRoot)
+            && (root == null || sourceRoot.getNameCount() > root.getNameCount())) {
+          root = sourceRoot;
+        }
+      }
+      if (root == null) {
+        throw new IllegalArgumentException(file + " is under none of " + sourceRoots);
+      }
+      filesByRoot.computeIfAbsent(root, r -> new ArrayList<>()).add(file);
+    }
+    List<Fact> facts = new ArrayList<>();
+    for (Map.Entry<Path, List<Path>> root : filesByRoot.entrySet()) {
+      facts.addAll(check(root.getKey(), root.getValue(), classpath));
+    }
+    return facts;
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Stream;
+
+/**
+ * Runs the conformance tests against a checker and prints how it did.
+ *
+ * <p>usage: ConformanceTestRunner [--checker=NAME] [--suite=DIR] [--assertions=DIR]...
+ * [--samples=DIR]... [--classpath=PATH] [--threads=N] [--shard-size=N] [--batch] [--cache=FILE]
+ * [--verbose]
+ *
+ * <p>{@code --checker} names the {@link CheckerAdapter} to run. It may be left out if the
+ * classpath has only one.
+ *
+ * <p>{@code --suite} names an unpacked conformance-tests distribution: We run its {@code
+ * assertions} and {@code samples} directories, with the jars in {@code deps} on the classpath.
+ * If it has an {@linkplain AssertionIndex index}, we read the expected facts from that.
+ * {@code --assertions} and {@code --samples} add more directories of each kind (see {@link
+ * Suite}), and {@code --classpath} adds more jars.
+ *
+ * <p>{@code --threads} sets the number of shards that are checked at once (default: one per
+ * processor). {@code --shard-size} sets the most files in a shard (default: 20). {@code --batch}
+ * instead checks all the files in one call to {@link CheckerAdapter#checkAll}, which checkers that
+ * compile the whole suite at once can use to start up only once.
+ *
+ * <p>{@code --cache} names a {@link ResultCache}: We check only the files whose inputs have changed
+ * since the results in the cache were recorded, and then save the new results to it.
+ *
+ * <p>When done, we print the {@link Tally} to stdout, after the missing and unexpected facts of
+ * each file that failed with {@code --verbose}. We exit with status 1 if the checker failed to
+ * check any file and with status 2 if the arguments are bad.
+ */
+public final class ConformanceTestRunner {
+  public static void main(String[] args) throws IOException, InterruptedException {
+    RunnerOptions options;
+    CheckerAdapter adapter;
+    try {
+      options = RunnerOptions.parse(args);
+      adapter = adapter(options.checker);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(2);
+      return;
+    }
+    Suite suite = null;
+    List<Path> classpath = new ArrayList<>();
+    Expectations expectations = Expectations.parse();
+    if (options.suite != null) {
+      Path index = options.suite.resolve(AssertionIndex.FILE_NAME);
+      if (Files.isRegularFile(index)) {
+        expectations = Expectations.index(options.suite, AssertionIndex.read(index));
+      }
+      suite = Suite.sourceTree(options.suite.resolve("assertions"));
+      if (Files.isDirectory(options.suite.resolve("samples"))) {
+        suite = suite.plus(Suite.samples(options.suite.resolve("samples")));
+      }
+      try (Stream<Path> deps = Files.list(options.suite.resolve("deps"))) {
+        deps.filter(p -> p.toString().endsWith(".jar")).sorted().forEach(classpath::add);
+      }
+    }
+    for (Path dir : options.assertions) {
+      suite = plus(suite, Suite.sourceTree(dir));
+    }
+    for (Path dir : options.samples) {
+      suite = plus(suite, Suite.samples(dir));
+    }
+    classpath.addAll(options.classpath);
+
+    ResultCache cache = options.cache == null ? null : ResultCache.load(options.cache);
+    SuiteRunner runner =
+        new SuiteRunner(adapter, classpath, options.threads, options.shardSize, expectations);
+    Results results = options.batch ? runner.runBatch(suite, cache) : runner.run(suite, cache);
+    if (cache != null) {
+      cache.save();
+    }
+    boolean errors = false;
+    for (FileResult file : results.files()) {
+      errors |= file.error() != null;
+      if (options.verbose && !file.passed()) {
+        System.out.println(file.file() + ":");
+        if (file.error() != null) {
+          System.out.println("  error: " + file.error());
+        }
+        for (Fact fact : file.missing()) {
+          System.out.println("  missing: " + fact.line() + ": " + fact.text());
+        }
+        for (Fact fact : file.unexpected()) {
+          System.out.println("  unexpected: " + fact.line() + ": " + fact.text());
+        }
+      }
+    }
+    System.out.println(adapter.name() + " " + adapter.version() + ": " + results.tally());
+    if (cache != null) {
+      System.out.println("reused " + results.reused() + " cached results");
+    }
+    if (errors) {
+      System.exit(1);
+    }
+  }
+
+  private static Suite plus(Suite suite, Suite more) {
+    return suite == null ? more : suite.plus(more);
+  }
+
+  private static CheckerAdapter adapter(String name) {
+    List<CheckerAdapter> adapters = new ArrayList<>();
+    ServiceLoader.load(CheckerAdapter.class).forEach(adapters::add);
+    List<CheckerAdapter> matching =
+        adapters.stream()
+            .filter(a -> name == null || a.name().equals(name))
+            .collect(toList());
+    if (matching.size() != 1) {
+      String available = adapters.stream().map(CheckerAdapter::name).collect(joining(", "));
+      throw new IllegalArgumentException(
+          (name == null ? "pass --checker to choose an adapter" : "no adapter named " + name)
+              + "; available: "
+              + (available.isEmpty() ? "none" : available));
+    }
+    return matching.get(0);
+  }
+
+  private ConformanceTestRunner() {}
+}
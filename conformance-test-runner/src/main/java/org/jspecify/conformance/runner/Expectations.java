@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.jspecify.conformance.runner.Assertion.Kind;
+
+/**
+ * Where the runner gets the facts that each file expects: from an {@link AssertionIndex} if the
+ * file is in one and still has the contents that were indexed, or else by parsing the file.
+ */
+public final class Expectations {
+  private final Path root;
+  private final AssertionIndex index;
+
+  private Expectations(Path root, AssertionIndex index) {
+    this.root = root;
+    this.index = index;
+  }
+
+  /** Returns expectations that parse each file. */
+  public static Expectations parse() {
+    return new Expectations(null, null);
+  }
+
+  /**
+   * Returns expectations that look up each file in {@code index} by its path relative to {@code
+   * root}, with {@code /} as the separator, and parse the files that aren't there or have changed
+   * since they were indexed.
+   */
+  public static Expectations index(Path root, AssertionIndex index) {
+    return new Expectations(root.toAbsolutePath().normalize(), index);
+  }
+
+  /** Returns the facts that {@code file} expects, in line order. */
+  List<Fact> read(Path file) throws IOException {
+    byte[] contents = Files.readAllBytes(file);
+    List<Assertion> assertions = null;
+    if (index != null && file.startsWith(root)) {
+      String key = AssertionIndex.key(root, file);
+      if (AssertionIndex.sha256(contents).equals(index.sha256(key))) {
+        assertions = index.assertions(key);
+      }
+    }
+    if (assertions == null) {
+      assertions = AssertionIndex.parse(contents, file.toString());
+    }
+    List<Fact> facts = new ArrayList<>(assertions.size());
+    for (Assertion assertion : assertions) {
+      if (assertion.kind() != Kind.NAME) {
+        facts.add(assertion.toFact(file));
+      }
+    }
+    return facts;
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.util.Comparator.comparing;
+
+import java.nio.file.Path;
+import java.util.Comparator;
+
+/**
+ * A fact about one line of code, which a checker reports or an assertion comment expects.
+ *
+ * <p>The text of a fact is that of the comment that expects it, without the {@code //}: one of the
+ * {@code test:} assertions that the conformance tests use, like {@code test:cannot-convert:Object?
+ * to Object!} or {@code test:irrelevant-annotation:Nullable}, or one of the {@code jspecify_}
+ * findings that the samples use, like {@code jspecify_nullness_mismatch}. (The {@code test:name}
+ * comments only name the assertions that follow them, so they are never facts.)
+ */
+public final class Fact {
+  static final Comparator<Fact> ORDER =
+      comparing((Fact fact) -> fact.file).thenComparingInt(f -> f.line).thenComparing(f -> f.text);
+
+  private final Path file;
+  private final int line;
+  private final String text;
+
+  /**
+   * Returns a fact about line {@code line} (1-based) of {@code file}, which must be the path that
+   * the runner passed to {@link CheckerAdapter#check}.
+   */
+  public static Fact of(Path file, int line, String text) {
+    return new Fact(file, line, text);
+  }
+
+  private Fact(Path file, int line, String text) {
+    if (line < 1) {
+      throw new IllegalArgumentException("line must be positive: " + line);
+    }
+    this.file = file;
+    this.line = line;
+    this.text = text;
+  }
+
+  public Path file() {
+    return file;
+  }
+
+  public int line() {
+    return line;
+  }
+
+  public String text() {
+    return text;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof Fact)) {
+      return false;
+    }
+    Fact that = (Fact) o;
+    return file.equals(that.file) && line == that.line && text.equals(that.text);
+  }
+
+  @Override
+  public int hashCode() {
+    return (file.hashCode() * 31 + line) * 31 + text.hashCode();
+  }
+
+  /** Returns the fact as {@code file:line: text}, as compilers report diagnostics. */
+  @Override
+  public String toString() {
+    return file + ":" + line + ": " + text;
+  }
+}
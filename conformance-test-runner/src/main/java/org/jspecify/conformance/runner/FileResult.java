@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/** How a checker did on one file: which expected facts it reported and which it didn't. */
+public final class FileResult {
+  private final Path file;
+  private final int matched;
+  private final List<Fact> missing;
+  private final List<Fact> unexpected;
+  private final String error;
+
+  FileResult(Path file, int matched, List<Fact> missing, List<Fact> unexpected, String error) {
+    this.file = file;
+    this.matched = matched;
+    this.missing = unmodifiableList(missing);
+    this.unexpected = unmodifiableList(unexpected);
+    this.error = error;
+  }
+
+  public Path file() {
+    return file;
+  }
+
+  /** The number of expected facts that the checker reported. */
+  public int matched() {
+    return matched;
+  }
+
+  /** The expected facts that the checker didn't report. */
+  public List<Fact> missing() {
+    return missing;
+  }
+
+  /** The facts that the checker reported but that weren't expected. */
+  public List<Fact> unexpected() {
+    return unexpected;
+  }
+
+  /** Why the checker couldn't check the file, or {@code null} if it could. */
+  public String error() {
+    return error;
+  }
+
+  /** Returns whether the checker reported exactly the expected facts. */
+  public boolean passed() {
+    return error == null && missing.isEmpty() && unexpected.isEmpty();
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Computes a fingerprint of everything that may affect what a checker reports about a file: the
+ * checker's name and version, the contents of the classpath, and the contents of the file's {@link
+ * Suite#inputsOf inputs}.
+ */
+final class Fingerprints {
+  private final String base;
+  private final Map<List<Path>, String> inputHashes = new HashMap<>();
+
+  Fingerprints(CheckerAdapter adapter, List<Path> classpath) throws IOException {
+    MessageDigest digest = AssertionIndex.sha256Digest();
+    update(digest, adapter.name());
+    update(digest, adapter.version());
+    for (Path entry : classpath) {
+      update(digest, entry.toString());
+      if (Files.isDirectory(entry)) {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(entry)) {
+          files = walk.filter(Files::isRegularFile).sorted().collect(toList());
+        }
+        for (Path file : files) {
+          update(digest, entry.relativize(file).toString());
+          digest.update(Files.readAllBytes(file));
+        }
+      } else if (Files.isRegularFile(entry)) {
+        digest.update(Files.readAllBytes(entry));
+      }
+    }
+    base = AssertionIndex.hex(digest.digest());
+  }
+
+  /** Returns the fingerprint of {@code file}, which is in the source root {@code root}. */
+  String of(Suite suite, Path root, Path file) throws IOException {
+    List<Path> inputs = suite.inputsOf(root, file);
+    String inputHash = inputHashes.get(inputs);
+    if (inputHash == null) {
+      MessageDigest digest = AssertionIndex.sha256Digest();
+      update(digest, base);
+      for (Path input : inputs) {
+        update(digest, root.relativize(input).toString());
+        digest.update(Files.readAllBytes(input));
+      }
+      inputHash = AssertionIndex.hex(digest.digest());
+      inputHashes.put(inputs, inputHash);
+    }
+    return inputHash;
+  }
+
+  /** Adds {@code string} and a terminator, so that consecutive strings can't run together. */
+  private static void update(MessageDigest digest, String string) {
+    digest.update(string.getBytes(UTF_8));
+    digest.update((byte) 0);
+  }
+}
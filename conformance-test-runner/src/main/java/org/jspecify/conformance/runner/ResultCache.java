@@ -0,0 +1,179 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An on-disk record of earlier results, so that a run needn't check again the files whose inputs
+ * haven't changed.
+ *
+ * <p>Each result is stored with the {@link Fingerprints fingerprint} of its file, which covers the
+ * checker's name and version, the classpath (so rebuilding a jar in {@code deps} invalidates every
+ * result), and the files that the result may depend on. Results for files that the checker failed
+ * to check are not stored, and neither are results with facts whose text spans lines.
+ *
+ * <p>The file is text: a header, and then for each result a line {@code F <fingerprint> <matched>
+ * <file>}, followed by a line {@code M <line> <text>} for each missing fact and {@code U <line>
+ * <text>} for each unexpected fact. {@link #save} writes only the results for the files of the
+ * current run, so results for deleted or renamed files don't linger.
+ */
+public final class ResultCache {
+  private static final String HEADER = "conformance-runner-cache 1";
+
+  private static final class Entry {
+    final String fingerprint;
+    final FileResult result;
+
+    Entry(String fingerprint, FileResult result) {
+      this.fingerprint = fingerprint;
+      this.result = result;
+    }
+  }
+
+  private final Path file;
+  private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+  /** The files of the current run, the only ones whose results {@link #save} writes. */
+  private final Set<Path> current = ConcurrentHashMap.newKeySet();
+
+  private ResultCache(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Reads the cache stored in {@code file}. Returns an empty cache if there is no such file, or if
+   * it was written by another version of the runner or is corrupt.
+   */
+  public static ResultCache load(Path file) throws IOException {
+    ResultCache cache = new ResultCache(file);
+    try (BufferedReader reader = Files.newBufferedReader(file, UTF_8)) {
+      if (!HEADER.equals(reader.readLine())) {
+        return cache;
+      }
+      cache.read(reader);
+    } catch (NoSuchFileException e) {
+      // First run. Start empty.
+    } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+      // A malformed line, as from editing the file by hand. Check every file again.
+      return new ResultCache(file);
+    }
+    return cache;
+  }
+
+  /** Reads the results that follow the header. */
+  private void read(BufferedReader reader) throws IOException {
+    Path path = null;
+    String fingerprint = null;
+    int matched = 0;
+    List<Fact> missing = new ArrayList<>();
+    List<Fact> unexpected = new ArrayList<>();
+    for (String line = reader.readLine(); ; line = reader.readLine()) {
+      if (line == null || line.startsWith("F ")) {
+        if (path != null) {
+          FileResult result = new FileResult(path, matched, missing, unexpected, null);
+          entries.put(path, new Entry(fingerprint, result));
+        }
+        if (line == null) {
+          break;
+        }
+        String[] parts = line.split(" ", 4);
+        fingerprint = parts[1];
+        matched = Integer.parseInt(parts[2]);
+        path = Paths.get(parts[3]);
+        missing = new ArrayList<>();
+        unexpected = new ArrayList<>();
+      } else {
+        String[] parts = line.split(" ", 3);
+        if (path == null || !(parts[0].equals("M") || parts[0].equals("U"))) {
+          throw new IllegalArgumentException("unexpected line in result cache: " + line);
+        }
+        Fact fact = Fact.of(path, Integer.parseInt(parts[1]), parts[2]);
+        (parts[0].equals("M") ? missing : unexpected).add(fact);
+      }
+    }
+  }
+
+  /** Returns the stored result for {@code path} if it has {@code fingerprint}, or else null. */
+  FileResult get(Path path, String fingerprint) {
+    current.add(path);
+    Entry entry = entries.get(path);
+    return entry != null && entry.fingerprint.equals(fingerprint) ? entry.result : null;
+  }
+
+  void put(String fingerprint, FileResult result) {
+    if (result.error() == null
+        && isSingleLine(result.missing())
+        && isSingleLine(result.unexpected())) {
+      current.add(result.file());
+      entries.put(result.file(), new Entry(fingerprint, result));
+    }
+  }
+
+  /** Returns whether each fact's text fits on one line of the file. */
+  private static boolean isSingleLine(List<Fact> facts) {
+    for (Fact fact : facts) {
+      if (fact.text().indexOf('\n') >= 0 || fact.text().indexOf('\r') >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the results for the files of the current run back to the cache's file, replacing the
+   * file atomically.
+   */
+  public void save() throws IOException {
+    Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(temp, UTF_8)) {
+      writer.write(HEADER);
+      writer.newLine();
+      for (Map.Entry<Path, Entry> stored : entries.entrySet()) {
+        if (!current.contains(stored.getKey())) {
+          continue;
+        }
+        Entry entry = stored.getValue();
+        FileResult result = entry.result;
+        writer.write("F " + entry.fingerprint + " " + result.matched() + " " + result.file());
+        writer.newLine();
+        for (Fact fact : result.missing()) {
+          writer.write("M " + fact.line() + " " + fact.text());
+          writer.newLine();
+        }
+        for (Fact fact : result.unexpected()) {
+          writer.write("U " + fact.line() + " " + fact.text());
+          writer.newLine();
+        }
+      }
+    }
+    Files.move(temp, file, ATOMIC_MOVE, REPLACE_EXISTING);
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.List;
+
+/** The results of running a checker on a suite. */
+public final class Results {
+  private final List<FileResult> files;
+  private final Tally tally = new Tally();
+  private final int reused;
+
+  Results(List<FileResult> files, int reused) {
+    this.files = unmodifiableList(files);
+    this.reused = reused;
+    for (FileResult file : files) {
+      tally.add(file);
+    }
+  }
+
+  /** The result for each file of the suite, in the order of the suite. */
+  public List<FileResult> files() {
+    return files;
+  }
+
+  public Tally tally() {
+    return tally;
+  }
+
+  /** The number of results that were reused from a {@link ResultCache} instead of checked. */
+  public int reused() {
+    return reused;
+  }
+}
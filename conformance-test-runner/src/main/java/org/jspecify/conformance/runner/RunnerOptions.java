@@ -0,0 +1,139 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Command-line options for {@link ConformanceTestRunner}. */
+final class RunnerOptions {
+  /** The name of the {@link CheckerAdapter} to run, or {@code null} if there is only one. */
+  final String checker;
+
+  /** The unpacked conformance-tests distribution, or {@code null}. */
+  final Path suite;
+
+  /** Source trees like {@code assertions}, in addition to that of {@link #suite}. */
+  final List<Path> assertions;
+
+  /** Directories laid out like {@code samples}, in addition to that of {@link #suite}. */
+  final List<Path> samples;
+
+  /** Jars that the suite depends on, in addition to those in {@link #suite}'s {@code deps}. */
+  final List<Path> classpath;
+
+  /** Number of shards to check at once. */
+  final int threads;
+
+  /** The most files to check in one call to the adapter. */
+  final int shardSize;
+
+  /** The {@link ResultCache} file, or {@code null} to check every file. */
+  final Path cache;
+
+  /** Whether to check all files in one call to {@link CheckerAdapter#checkAll}. */
+  final boolean batch;
+
+  /** Whether to list the missing and unexpected facts of each file that failed. */
+  final boolean verbose;
+
+  private RunnerOptions(
+      String checker,
+      Path suite,
+      List<Path> assertions,
+      List<Path> samples,
+      List<Path> classpath,
+      int threads,
+      int shardSize,
+      Path cache,
+      boolean batch,
+      boolean verbose) {
+    this.checker = checker;
+    this.suite = suite;
+    this.assertions = unmodifiableList(assertions);
+    this.samples = unmodifiableList(samples);
+    this.classpath = unmodifiableList(classpath);
+    this.threads = threads;
+    this.shardSize = shardSize;
+    this.cache = cache;
+    this.batch = batch;
+    this.verbose = verbose;
+  }
+
+  static RunnerOptions parse(String[] args) {
+    String checker = null;
+    Path suite = null;
+    List<Path> assertions = new ArrayList<>();
+    List<Path> samples = new ArrayList<>();
+    List<Path> classpath = new ArrayList<>();
+    int threads = Runtime.getRuntime().availableProcessors();
+    int shardSize = 20;
+    Path cache = null;
+    boolean batch = false;
+    boolean verbose = false;
+    for (String arg : args) {
+      if (arg.startsWith("--checker=")) {
+        checker = value(arg);
+      } else if (arg.startsWith("--suite=")) {
+        suite = Paths.get(value(arg));
+      } else if (arg.startsWith("--assertions=")) {
+        assertions.add(Paths.get(value(arg)));
+      } else if (arg.startsWith("--samples=")) {
+        samples.add(Paths.get(value(arg)));
+      } else if (arg.startsWith("--classpath=")) {
+        for (String entry : value(arg).split(File.pathSeparator)) {
+          if (!entry.isEmpty()) {
+            classpath.add(Paths.get(entry));
+          }
+        }
+      } else if (arg.startsWith("--threads=")) {
+        threads = positiveInt(arg);
+      } else if (arg.startsWith("--shard-size=")) {
+        shardSize = positiveInt(arg);
+      } else if (arg.startsWith("--cache=")) {
+        cache = Paths.get(value(arg));
+      } else if (arg.equals("--batch")) {
+        batch = true;
+      } else if (arg.equals("--verbose")) {
+        verbose = true;
+      } else {
+        throw new IllegalArgumentException("unknown argument: " + arg);
+      }
+    }
+    if (suite == null && assertions.isEmpty() && samples.isEmpty()) {
+      throw new IllegalArgumentException("nothing to run: pass --suite, --assertions or --samples");
+    }
+    return new RunnerOptions(
+        checker, suite, assertions, samples, classpath, threads, shardSize, cache, batch, verbose);
+  }
+
+  private static String value(String flag) {
+    return flag.substring(flag.indexOf('=') + 1);
+  }
+
+  private static int positiveInt(String flag) {
+    int value = Integer.parseInt(value(flag));
+    if (value <= 0) {
+      throw new IllegalArgumentException(flag + " must be positive");
+    }
+    return value;
+  }
+}
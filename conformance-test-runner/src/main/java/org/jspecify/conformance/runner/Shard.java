@@ -0,0 +1,30 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/** Files that one call to {@link CheckerAdapter#check} checks together. */
+final class Shard {
+  final Path sourceRoot;
+  final List<Path> files;
+
+  Shard(Path sourceRoot, List<Path> files) {
+    this.sourceRoot = sourceRoot;
+    this.files = files;
+  }
+}
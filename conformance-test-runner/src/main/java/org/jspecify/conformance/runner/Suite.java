@@ -0,0 +1,164 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
+import static java.util.stream.Collectors.toList;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/** The Java files of a conformance suite, grouped by the source root to compile them against. */
+public final class Suite {
+  private final Map<Path, List<Path>> filesBySourceRoot;
+
+  /** The source roots whose files together make up one test, like the subdirectories of samples. */
+  private final Set<Path> singleTestRoots;
+
+  /** The source roots whose files are each a test of its own, like the samples directory itself. */
+  private final Set<Path> singleFileRoots;
+
+  private Suite(
+      Map<Path, List<Path>> filesBySourceRoot,
+      Set<Path> singleTestRoots,
+      Set<Path> singleFileRoots) {
+    this.filesBySourceRoot = unmodifiableMap(filesBySourceRoot);
+    this.singleTestRoots = unmodifiableSet(singleTestRoots);
+    this.singleFileRoots = unmodifiableSet(singleFileRoots);
+  }
+
+  /**
+   * Returns the Java files in the source tree {@code root}, as in the {@code assertions} directory
+   * of the conformance tests.
+   */
+  public static Suite sourceTree(Path root) throws IOException {
+    root = root.toAbsolutePath().normalize();
+    Map<Path, List<Path>> files = new LinkedHashMap<>();
+    files.put(root, javaFiles(root, Integer.MAX_VALUE));
+    return new Suite(files, emptySet(), emptySet());
+  }
+
+  /**
+   * Returns the Java files in {@code dir}, which is laid out like the {@code samples} directory:
+   * Each Java file directly in it is its own test in the unnamed package, and each subdirectory is
+   * the source root of a test that spans several files.
+   */
+  public static Suite samples(Path dir) throws IOException {
+    dir = dir.toAbsolutePath().normalize();
+    Map<Path, List<Path>> files = new LinkedHashMap<>();
+    Set<Path> singleTestRoots = new HashSet<>();
+    files.put(dir, javaFiles(dir, 1));
+    try (Stream<Path> children = Files.list(dir)) {
+      for (Path child : children.filter(Files::isDirectory).sorted().collect(toList())) {
+        files.put(child, javaFiles(child, Integer.MAX_VALUE));
+        singleTestRoots.add(child);
+      }
+    }
+    return new Suite(files, singleTestRoots, singleton(dir));
+  }
+
+  /** Returns a suite with the files of both suites. */
+  public Suite plus(Suite other) {
+    Map<Path, List<Path>> files = new LinkedHashMap<>(filesBySourceRoot);
+    other.filesBySourceRoot.forEach(
+        (root, rootFiles) -> files.merge(root, rootFiles, Suite::union));
+    Set<Path> singleTestRoots = new HashSet<>(this.singleTestRoots);
+    singleTestRoots.addAll(other.singleTestRoots);
+    Set<Path> singleFileRoots = new HashSet<>(this.singleFileRoots);
+    singleFileRoots.addAll(other.singleFileRoots);
+    return new Suite(files, singleTestRoots, singleFileRoots);
+  }
+
+  /** Returns a suite with the files of this suite except {@code excluded}. */
+  Suite without(Set<Path> excluded) {
+    Map<Path, List<Path>> files = new LinkedHashMap<>();
+    filesBySourceRoot.forEach(
+        (root, rootFiles) ->
+            files.put(
+                root,
+                unmodifiableList(
+                    rootFiles.stream().filter(f -> !excluded.contains(f)).collect(toList()))));
+    return new Suite(files, singleTestRoots, singleFileRoots);
+  }
+
+  /**
+   * Returns the files whose contents may affect what a checker reports about {@code file}, which is
+   * in the source root {@code root}: all the files of a root that is one test, only {@code file}
+   * in a root whose files are each a test, or else the files in the same directory as {@code
+   * file}. We assume that the files of a source tree refer only to other files of their own
+   * package, besides the classpath.
+   */
+  List<Path> inputsOf(Path root, Path file) {
+    List<Path> files = filesBySourceRoot.get(root);
+    if (singleTestRoots.contains(root)) {
+      return files;
+    }
+    if (singleFileRoots.contains(root)) {
+      return singletonList(file);
+    }
+    Path dir = file.getParent();
+    return files.stream().filter(f -> f.getParent().equals(dir)).collect(toList());
+  }
+
+  /** Returns the files of the suite, by source root. */
+  public Map<Path, List<Path>> filesBySourceRoot() {
+    return filesBySourceRoot;
+  }
+
+  /**
+   * Splits the suite into shards of at most {@code maxFiles} files each, which have the same
+   * source root. The files are sorted, so each shard holds the files of only a few directories.
+   */
+  List<Shard> shards(int maxFiles) {
+    List<Shard> shards = new ArrayList<>();
+    filesBySourceRoot.forEach(
+        (root, files) -> {
+          for (int start = 0; start < files.size(); start += maxFiles) {
+            shards.add(
+                new Shard(root, files.subList(start, Math.min(files.size(), start + maxFiles))));
+          }
+        });
+    return shards;
+  }
+
+  private static List<Path> union(List<Path> a, List<Path> b) {
+    return unmodifiableList(
+        Stream.concat(a.stream(), b.stream()).distinct().sorted().collect(toList()));
+  }
+
+  private static List<Path> javaFiles(Path dir, int maxDepth) throws IOException {
+    try (Stream<Path> files = Files.walk(dir, maxDepth)) {
+      return unmodifiableList(
+          files
+              .filter(f -> f.getFileName().toString().endsWith(".java") && Files.isRegularFile(f))
+              .sorted()
+              .collect(toList()));
+    }
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a checker on a suite: It splits the suite into shards, checks them on a pool of threads (or,
+ * in batch mode, checks the whole suite in one call), and compares the facts that the checker
+ * reports about each file with those that the file expects.
+ */
+public final class SuiteRunner {
+  private final CheckerAdapter adapter;
+  private final List<Path> classpath;
+  private final int threads;
+  private final int shardSize;
+  private final Expectations expectations;
+
+  /**
+   * @param classpath the jars that the suite depends on, like the {@code deps} directory of the
+   *     conformance tests
+   * @param threads how many shards to check at once
+   * @param shardSize the most files to check in one call to {@link CheckerAdapter#check}
+   */
+  public SuiteRunner(CheckerAdapter adapter, List<Path> classpath, int threads, int shardSize) {
+    this(adapter, classpath, threads, shardSize, Expectations.parse());
+  }
+
+  /** Like the other constructor, but reads expected facts from {@code expectations}. */
+  public SuiteRunner(
+      CheckerAdapter adapter,
+      List<Path> classpath,
+      int threads,
+      int shardSize,
+      Expectations expectations) {
+    if (threads < 1 || shardSize < 1) {
+      throw new IllegalArgumentException("threads and shardSize must be positive");
+    }
+    this.adapter = adapter;
+    this.classpath = unmodifiableList(new ArrayList<>(classpath));
+    this.threads = threads;
+    this.shardSize = shardSize;
+    this.expectations = expectations;
+  }
+
+  /** Runs the checker on {@code suite}. */
+  public Results run(Suite suite) throws IOException, InterruptedException {
+    return run(suite, null);
+  }
+
+  /**
+   * Runs the checker on the files of {@code suite} whose inputs have changed since {@code cache}
+   * recorded their results, and reuses the recorded results for the rest. Records the new results
+   * in {@code cache} but doesn't {@linkplain ResultCache#save save} it.
+   */
+  public Results run(Suite suite, ResultCache cache) throws IOException, InterruptedException {
+    return run(suite, cache, false);
+  }
+
+  /**
+   * Like {@link #run(Suite, ResultCache)}, but checks all the files that need checking in one
+   * call to {@link CheckerAdapter#checkAll} instead of in shards. {@code cache} may be null.
+   */
+  public Results runBatch(Suite suite, ResultCache cache)
+      throws IOException, InterruptedException {
+    return run(suite, cache, true);
+  }
+
+  private Results run(Suite suite, ResultCache cache, boolean batch)
+      throws IOException, InterruptedException {
+    Map<Path, String> fingerprints = new HashMap<>();
+    Map<Path, FileResult> reused = new HashMap<>();
+    if (cache != null) {
+      Fingerprints fingerprinter = new Fingerprints(adapter, classpath);
+      for (Map.Entry<Path, List<Path>> root : suite.filesBySourceRoot().entrySet()) {
+        for (Path file : root.getValue()) {
+          String fingerprint = fingerprinter.of(suite, root.getKey(), file);
+          fingerprints.put(file, fingerprint);
+          FileResult result = cache.get(file, fingerprint);
+          if (result != null) {
+            reused.put(file, result);
+          }
+        }
+      }
+    }
+
+    Map<Path, FileResult> checked = new HashMap<>();
+    Suite toCheck = suite.without(reused.keySet());
+    for (FileResult result : batch ? checkBatch(toCheck) : checkShards(toCheck)) {
+      checked.put(result.file(), result);
+      if (cache != null) {
+        cache.put(fingerprints.get(result.file()), result);
+      }
+    }
+    List<FileResult> results = new ArrayList<>();
+    for (List<Path> files : suite.filesBySourceRoot().values()) {
+      for (Path file : files) {
+        results.add(reused.containsKey(file) ? reused.get(file) : checked.get(file));
+      }
+    }
+    return new Results(results, reused.size());
+  }
+
+  private List<FileResult> checkBatch(Suite suite) throws IOException {
+    List<Path> sourceRoots = new ArrayList<>();
+    List<Path> files = new ArrayList<>();
+    suite
+        .filesBySourceRoot()
+        .forEach(
+            (root, rootFiles) -> {
+              if (!rootFiles.isEmpty()) {
+                sourceRoots.add(root);
+                files.addAll(rootFiles);
+              }
+            });
+    if (files.isEmpty()) {
+      return emptyList();
+    }
+    Map<Path, List<Fact>> expected = new LinkedHashMap<>();
+    for (Path file : files) {
+      expected.put(file, expectations.read(file));
+    }
+    List<Fact> reported;
+    String error = null;
+    try {
+      reported = adapter.checkAll(sourceRoots, files, classpath);
+    } catch (Exception e) {
+      reported = emptyList();
+      error = e.toString();
+    }
+    return compare(expected, reported, error);
+  }
+
+  private List<FileResult> checkShards(Suite suite) throws IOException, InterruptedException {
+    List<Shard> shards = suite.shards(shardSize);
+    AtomicInteger threadNumber = new AtomicInteger();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            Math.min(threads, Math.max(1, shards.size())),
+            runnable -> {
+              Thread thread =
+                  new Thread(runnable, "conformance-runner-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    try {
+      List<Future<List<FileResult>>> futures = new ArrayList<>();
+      for (Shard shard : shards) {
+        futures.add(executor.submit(() -> check(shard)));
+      }
+      List<FileResult> results = new ArrayList<>();
+      for (Future<List<FileResult>> future : futures) {
+        results.addAll(future.get());
+      }
+      return results;
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) e.getCause()).getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private List<FileResult> check(Shard shard) {
+    Map<Path, List<Fact>> expected = new LinkedHashMap<>();
+    for (Path file : shard.files) {
+      try {
+        expected.put(file, expectations.read(file));
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    List<Fact> reported;
+    String error = null;
+    try {
+      reported = adapter.check(shard.sourceRoot, shard.files, classpath);
+    } catch (Exception e) {
+      reported = emptyList();
+      error = e.toString();
+    }
+    return compare(expected, reported, error);
+  }
+
+  /**
+   * Compares the facts that each file expects with those that the checker reported, matching
+   * reported facts to files by their absolute, normalized paths. Reported facts about other files
+   * are ignored.
+   */
+  static List<FileResult> compare(
+      Map<Path, List<Fact>> expected, Collection<Fact> reported, String error) {
+    Map<Path, Set<Fact>> reportedByFile = new HashMap<>();
+    for (Fact fact : reported) {
+      Path file = fact.file().toAbsolutePath().normalize();
+      if (expected.containsKey(file)) {
+        if (!file.equals(fact.file())) {
+          fact = Fact.of(file, fact.line(), fact.text());
+        }
+        reportedByFile.computeIfAbsent(file, f -> new LinkedHashSet<>()).add(fact);
+      }
+    }
+    List<FileResult> results = new ArrayList<>();
+    expected.forEach(
+        (file, expectedFacts) -> {
+          Set<Fact> unexpected = reportedByFile.getOrDefault(file, new LinkedHashSet<>());
+          List<Fact> missing = new ArrayList<>();
+          int matched = 0;
+          for (Fact fact : new LinkedHashSet<>(expectedFacts)) {
+            if (unexpected.remove(fact)) {
+              matched++;
+            } else {
+              missing.add(fact);
+            }
+          }
+          List<Fact> unexpectedList = new ArrayList<>(unexpected);
+          unexpectedList.sort(Fact.ORDER);
+          results.add(new FileResult(file, matched, missing, unexpectedList, error));
+        });
+    return results;
+  }
+}
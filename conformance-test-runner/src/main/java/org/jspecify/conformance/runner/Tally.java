@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+/** Counts of the files that passed and failed, and of the facts that matched or didn't. */
+public final class Tally {
+  private int passed;
+  private int failed;
+  private int matched;
+  private int missing;
+  private int unexpected;
+
+  void add(FileResult result) {
+    if (result.passed()) {
+      passed++;
+    } else {
+      failed++;
+    }
+    matched += result.matched();
+    missing += result.missing().size();
+    unexpected += result.unexpected().size();
+  }
+
+  /** The number of files for which the checker reported exactly the expected facts. */
+  public int passed() {
+    return passed;
+  }
+
+  /** The number of files with missing or unexpected facts, or that couldn't be checked. */
+  public int failed() {
+    return failed;
+  }
+
+  /** The number of expected facts that the checker reported. */
+  public int matched() {
+    return matched;
+  }
+
+  /** The number of expected facts that the checker didn't report. */
+  public int missing() {
+    return missing;
+  }
+
+  /** The number of facts that the checker reported but that weren't expected. */
+  public int unexpected() {
+    return unexpected;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "files: %d passed, %d failed; facts: %d matched, %d missing, %d unexpected",
+        passed, failed, matched, missing, unexpected);
+  }
+}
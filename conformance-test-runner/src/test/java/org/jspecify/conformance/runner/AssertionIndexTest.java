@@ -0,0 +1,133 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.jspecify.conformance.runner.Assertion.Kind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AssertionIndexTest {
+  @TempDir Path dir;
+
+  @Test
+  void parse() throws IOException {
+    Path file =
+        write(
+            "Foo.java",
+            "/*",
+            " * // test:name:in a block comment",
+            " */",
+            "class Foo {",
+            "  // test:name:nullable field",
+            "  // test:expression-type:Object?:o",
+            "  /* comment */ // jspecify_nullness_mismatch",
+            "  // jspecify_Not_a_finding",
+            "  String s = \"/* not a comment\";",
+            "  // test:sink-type:Object!:o",
+            "  /* multi-line",
+            "     comment */",
+            "  Object o;",
+            "}");
+    assertEquals(
+        asList(
+            new Assertion(9, Kind.NAME, "test:name:nullable field"),
+            new Assertion(9, Kind.EXPRESSION_TYPE, "test:expression-type:Object?:o"),
+            new Assertion(13, Kind.SINK_TYPE, "test:sink-type:Object!:o")),
+        AssertionIndex.parse(file));
+    assertEquals("Object!:o", AssertionIndex.parse(file).get(2).detail());
+  }
+
+  @Test
+  void unknownAssertion() throws IOException {
+    Path file = write("Foo.java", "// test:expresion-type:Object", "class Foo {}");
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> AssertionIndex.parse(file));
+    assertEquals(file + ":1: unknown assertion: test:expresion-type:Object", e.getMessage());
+  }
+
+  @Test
+  void roundTrip() throws IOException {
+    Path a =
+        write(
+            "a/A.java",
+            "class A {",
+            "  // test:irrelevant-annotation:Nullable",
+            "  @Nullable int i;",
+            "  // test:irrelevant-annotation:Nullable",
+            "  @Nullable int j;",
+            "}");
+    Path b = write("b/B.java", "class B {", "  // test:cannot-convert:Object? to Object!", "}");
+    Path empty = write("C.java", "class C {}");
+    AssertionIndex index =
+        AssertionIndex.builder()
+            .add(AssertionIndex.key(dir, a), a)
+            .add(AssertionIndex.key(dir, b), b)
+            .add(AssertionIndex.key(dir, empty), empty)
+            .build();
+    List<Assertion> aAssertions = index.assertions("a/A.java");
+    assertSame(aAssertions.get(0).text(), aAssertions.get(1).text());
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    index.write(bytes);
+    AssertionIndex read = AssertionIndex.read(new ByteArrayInputStream(bytes.toByteArray()));
+    assertEquals(asList("a/A.java", "b/B.java", "C.java"), asList(read.keys().toArray()));
+    for (String key : index.keys()) {
+      assertEquals(index.assertions(key), read.assertions(key));
+    }
+    assertEquals(asList(), read.assertions("D.java"));
+    assertEquals(AssertionIndex.sha256(Files.readAllBytes(b)), read.sha256("b/B.java"));
+    assertEquals(
+        "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+        AssertionIndex.sha256(new byte[0]));
+
+    assertThrows(
+        IOException.class, () -> AssertionIndex.read(new ByteArrayInputStream(new byte[8])));
+  }
+
+  @Test
+  void expectationsFromIndex() throws IOException {
+    Path file =
+        write("p/Foo.java", "class Foo {", "  // jspecify_nullness_mismatch", "  int i;", "}");
+    Path other =
+        write("Other.java", "// test:name:other", "// jspecify_nullness_mismatch", "class O {}");
+    AssertionIndex index = AssertionIndex.builder().add("p/Foo.java", file).build();
+    Expectations expectations = Expectations.index(dir, index);
+    assertEquals(asList(Fact.of(file, 3, "jspecify_nullness_mismatch")), expectations.read(file));
+    // A file that has changed since it was indexed is parsed again.
+    Files.write(file, asList("class Foo {}"), UTF_8);
+    assertEquals(asList(), expectations.read(file));
+    assertEquals(asList(Fact.of(other, 3, "jspecify_nullness_mismatch")), expectations.read(other));
+  }
+
+  private Path write(String name, String... lines) throws IOException {
+    Path file = dir.resolve(name).toAbsolutePath().normalize();
+    Files.createDirectories(file.getParent());
+    Files.write(file, asList(lines), UTF_8);
+    return file;
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.conformance.runner;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.synchronizedSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SuiteRunnerTest {
+  @TempDir Path dir;
+
+  /** Reports each file's own expectations, except for files named {@code Wrong*}. */
+  private static class EchoAdapter implements CheckerAdapter {
+    final Set<String> threads = synchronizedSet(new HashSet<>());
+    final List<Integer> shardSizes = new ArrayList<>();
+    String version = "1";
+
+    @Override
+    public String name() {
+      return "echo";
+    }
+
+    @Override
+    public String version() {
+      return version;
+    }
+
+    int checkedFiles() {
+      return shardSizes.stream().mapToInt(i -> i).sum();
+    }
+
+    @Override
+    public List<Fact> check(Path sourceRoot, List<Path> files, List<Path> classpath)
+        throws IOException {
+      threads.add(Thread.currentThread().getName());
+      synchronized (shardSizes) {
+        shardSizes.add(files.size());
+      }
+      List<Fact> facts = new ArrayList<>();
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        if (name.startsWith("Broken")) {
+          throw new IllegalStateException("cannot check " + name);
+        }
+        if (name.startsWith("Wrong")) {
+          facts.add(Fact.of(file, 1, "jspecify_nullness_mismatch"));
+        } else {
+          facts.addAll(Expectations.parse().read(file));
+        }
+      }
+      return facts;
+    }
+  }
+
+  @Test
+  void expectations() throws IOException {
+    Path file =
+        write(
+            "Foo.java",
+            "// test:name:Foo",
+            "class Foo {",
+            "  /* not a fact */",
+            "  // test:expression-type:Object?:o",
+            "  // jspecify_nullness_mismatch",
+            "",
+            "  Object o = null;",
+            "  // jspecify_Not_a_fact",
+            "  // test:cannot-convert:Object? to Object",
+            "}");
+    assertEquals(
+        asList(
+            Fact.of(file, 7, "test:expression-type:Object?:o"),
+            Fact.of(file, 7, "jspecify_nullness_mismatch"),
+            Fact.of(file, 10, "test:cannot-convert:Object? to Object")),
+        Expectations.parse().read(file));
+  }
+
+  @Test
+  void samplesLayout() throws IOException {
+    Path top = write("Top.java", "class Top {}");
+    Path nested = write("multi/pkg/Nested.java", "package pkg;", "class Nested {}");
+    write("multi/README", "not java");
+    Suite suite = Suite.samples(dir);
+    assertEquals(asList(top), suite.filesBySourceRoot().get(dir.toAbsolutePath().normalize()));
+    assertEquals(
+        asList(nested),
+        suite.filesBySourceRoot().get(dir.resolve("multi").toAbsolutePath().normalize()));
+  }
+
+  @Test
+  void run() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      write(
+          "p/Pass" + i + ".java", "class Pass" + i + " {", "  // jspecify_nullness_mismatch", "}");
+    }
+    write("p/Wrong.java", "class Wrong {", "  // test:irrelevant-annotation:Nullable", "}");
+    EchoAdapter adapter = new EchoAdapter();
+    Results results = new SuiteRunner(adapter, emptyList(), 4, 3).run(Suite.sourceTree(dir));
+
+    assertEquals(11, results.files().size());
+    assertEquals(
+        "files: 10 passed, 1 failed; facts: 10 matched, 1 missing, 1 unexpected",
+        results.tally().toString());
+    FileResult wrong = results.files().get(10);
+    assertEquals("Wrong.java", wrong.file().getFileName().toString());
+    assertEquals(1, wrong.missing().size());
+    assertEquals(
+        asList(Fact.of(wrong.file(), 1, "jspecify_nullness_mismatch")), wrong.unexpected());
+    assertEquals(asList(3, 3, 3, 2), sorted(adapter.shardSizes));
+  }
+
+  @Test
+  void cache() throws Exception {
+    Path a = write("p/A.java", "class A {", "  // jspecify_nullness_mismatch", "}");
+    write("p/B.java", "class B {}");
+    write("q/C.java", "class C {", "  // test:irrelevant-annotation:Nullable", "}");
+    Path jar = write("deps/Dep.jar", "version 1");
+    Path cacheFile = dir.resolve("cache");
+    Suite suite = Suite.sourceTree(dir.resolve("p")).plus(Suite.sourceTree(dir.resolve("q")));
+
+    Results first = runCached(suite, jar, cacheFile, "1", 3);
+    assertEquals(0, first.reused());
+    Results second = runCached(suite, jar, cacheFile, "1", 0);
+    assertEquals(3, second.reused());
+    assertEquals(first.tally().toString(), second.tally().toString());
+    assertEquals(first.files().get(2).unexpected(), second.files().get(2).unexpected());
+    assertEquals(first.files().get(2).missing(), second.files().get(2).missing());
+
+    // Changing a file rechecks the files of its package.
+    Files.write(a, asList("class A {}"), UTF_8);
+    assertEquals(1, runCached(suite, jar, cacheFile, "1", 2).reused());
+    // Changing a jar or the checker's version rechecks everything.
+    Files.write(jar, asList("version 2"), UTF_8);
+    runCached(suite, jar, cacheFile, "1", 3);
+    runCached(suite, jar, cacheFile, "2", 3);
+    runCached(suite, jar, cacheFile, "2", 0);
+    // A corrupt cache rechecks everything.
+    for (String corrupt : asList("F fingerprint", "F fingerprint x p/A.java", "M 1 text")) {
+      Files.write(cacheFile, asList("conformance-runner-cache 1", corrupt), UTF_8);
+      runCached(suite, jar, cacheFile, "2", 3);
+    }
+    // Results for files that are no longer in the suite are dropped.
+    runCached(Suite.sourceTree(dir.resolve("p")), jar, cacheFile, "2", 0);
+    assertFalse(new String(Files.readAllBytes(cacheFile), UTF_8).contains("C.java"));
+  }
+
+  private static Results runCached(
+      Suite suite, Path jar, Path cacheFile, String version, int expectedChecked)
+      throws Exception {
+    EchoAdapter adapter = new EchoAdapter();
+    adapter.version = version;
+    ResultCache cache = ResultCache.load(cacheFile);
+    Results results = new SuiteRunner(adapter, asList(jar), 2, 20).run(suite, cache);
+    cache.save();
+    assertEquals(expectedChecked, adapter.checkedFiles());
+    return results;
+  }
+
+  @Test
+  void batch() throws Exception {
+    Path top = write("samples/Top.java", "class Top {", "  // jspecify_nullness_mismatch", "}");
+    Path nested =
+        write(
+            "samples/multi/pkg/Nested.java",
+            "package pkg;",
+            "class Nested {",
+            "  // test:irrelevant-annotation:Nullable",
+            "}");
+    List<List<Path>> calls = new ArrayList<>();
+    CheckerAdapter adapter =
+        new EchoAdapter() {
+          @Override
+          public List<Fact> checkAll(
+              List<Path> sourceRoots, List<Path> files, List<Path> classpath) {
+            calls.add(files);
+            // A path that isn't normalized still matches its file.
+            Path unnormalized = dir.resolve("samples/multi/../Top.java");
+            return asList(
+                Fact.of(unnormalized, 3, "jspecify_nullness_mismatch"),
+                Fact.of(nested, 4, "test:irrelevant-annotation:Nullable"));
+          }
+        };
+    Results results =
+        new SuiteRunner(adapter, emptyList(), 4, 1)
+            .runBatch(Suite.samples(dir.resolve("samples")), null);
+    assertEquals(asList(asList(top, nested)), calls);
+    assertEquals(
+        "files: 2 passed, 0 failed; facts: 2 matched, 0 missing, 0 unexpected",
+        results.tally().toString());
+  }
+
+  @Test
+  void checkAllChecksEachSourceRoot() throws Exception {
+    Path top = write("samples/Top.java", "class Top {}");
+    Path nested = write("samples/multi/pkg/Nested.java", "package pkg;", "class Nested {}");
+    EchoAdapter adapter = new EchoAdapter();
+    Path samples = dir.resolve("samples").toAbsolutePath().normalize();
+    adapter.checkAll(asList(samples, samples.resolve("multi")), asList(top, nested), emptyList());
+    assertEquals(asList(1, 1), adapter.shardSizes);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> adapter.checkAll(asList(samples.resolve("multi")), asList(top), emptyList()));
+  }
+
+  @Test
+  void adapterError() throws Exception {
+    write("Broken.java", "class Broken {", "  // jspecify_nullness_mismatch", "}");
+    Results results =
+        new SuiteRunner(new EchoAdapter(), emptyList(), 1, 20).run(Suite.sourceTree(dir));
+    FileResult broken = results.files().get(0);
+    assertNotNull(broken.error());
+    assertEquals(0, broken.matched());
+    assertEquals(1, broken.missing().size());
+  }
+
+  @Test
+  void badArguments() {
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new SuiteRunner(new EchoAdapter(), emptyList(), 0, 1));
+  }
+
+  private static List<Integer> sorted(List<Integer> list) {
+    List<Integer> copy = new ArrayList<>(list);
+    copy.sort((a, b) -> b - a);
+    return copy;
+  }
+
+  private Path write(String name, String... lines) throws IOException {
+    Path file = dir.resolve(name).toAbsolutePath().normalize();
+    Files.createDirectories(file.getParent());
+    Files.write(file, asList(lines), UTF_8);
+    return file;
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Emits JDK Flight Recorder events, under Java 11 and newer. This replaces the no-op version in
+ * {@code src/main/java} in the multi-release jar and must keep the same signatures.
+ *
+ * <p>If the runtime has no {@code jdk.jfr} module (as may be the case for a jlink image), we never
+ * touch the event classes, so they are never loaded.
+ *
+ * <p>The timed events have a default threshold, so that a recording with default settings holds
+ * only the slow cases, each with the stack trace that led to it. Lower the threshold in a {@code
+ * .jfc} file or with {@code Recording.enable(name).withThreshold(...)} to see every one.
+ */
+final class JfrEvents {
+  private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+  @Name("org.jspecify.ScopeResolution")
+  @Label("Null-Marked Scope Resolution")
+  @Description("Computing whether a class, package, or module is null-marked, on a cache miss")
+  @Category("JSpecify")
+  @StackTrace(true)
+  @Threshold("1 ms")
+  static final class ScopeResolutionEvent extends Event {
+    @Label("Element")
+    String element;
+
+    @Label("Kind")
+    @Description("class, package, or module")
+    String kind;
+
+    @Label("Null-Marked")
+    boolean nullMarked;
+  }
+
+  @Name("org.jspecify.NullnessIndexLoad")
+  @Label("Nullness Index Load")
+  @Description("Loading an index written by NullnessIndexProcessor")
+  @Category("JSpecify")
+  @StackTrace(true)
+  @Threshold("0 ms")
+  static final class IndexLoadEvent extends Event {
+    @Label("Location")
+    String location;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    @Label("Memory-Mapped")
+    boolean mapped;
+  }
+
+  @Name("org.jspecify.NullContractViolation")
+  @Label("Null-Contract Violation")
+  @Description("A null where a JSpecify contract requires a non-null value")
+  @Category("JSpecify")
+  @StackTrace(true)
+  static final class ViolationEvent extends Event {
+    @Label("Site")
+    String site;
+  }
+
+  @Name("org.jspecify.NullContractViolationCount")
+  @Label("Null-Contract Violation Count")
+  @Description("The number of violations so far at one site, from a periodic snapshot")
+  @Category("JSpecify")
+  @StackTrace(false)
+  static final class ViolationCountEvent extends Event {
+    @Label("Site")
+    String site;
+
+    @Label("Count")
+    long count;
+  }
+
+  static Object beginScopeResolution() {
+    if (!AVAILABLE) {
+      return null;
+    }
+    ScopeResolutionEvent event = new ScopeResolutionEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  static void endScopeResolution(Object event, String element, String kind, boolean nullMarked) {
+    if (event == null) {
+      return;
+    }
+    ScopeResolutionEvent e = (ScopeResolutionEvent) event;
+    e.end();
+    if (e.shouldCommit()) {
+      e.element = element;
+      e.kind = kind;
+      e.nullMarked = nullMarked;
+      e.commit();
+    }
+  }
+
+  static Object beginIndexLoad() {
+    if (!AVAILABLE) {
+      return null;
+    }
+    IndexLoadEvent event = new IndexLoadEvent();
+    if (!event.isEnabled()) {
+      return null;
+    }
+    event.begin();
+    return event;
+  }
+
+  static void endIndexLoad(Object event, String location, long size, boolean mapped) {
+    if (event == null) {
+      return;
+    }
+    IndexLoadEvent e = (IndexLoadEvent) event;
+    e.end();
+    if (e.shouldCommit()) {
+      e.location = location;
+      e.size = size;
+      e.mapped = mapped;
+      e.commit();
+    }
+  }
+
+  static void violation(String site) {
+    if (AVAILABLE) {
+      ViolationEvent event = new ViolationEvent();
+      if (event.shouldCommit()) {
+        event.site = site;
+        event.commit();
+      }
+    }
+  }
+
+  static void violationCount(String site, long count) {
+    if (AVAILABLE) {
+      ViolationCountEvent event = new ViolationCountEvent();
+      if (event.shouldCommit()) {
+        event.site = site;
+        event.count = count;
+        event.commit();
+      }
+    }
+  }
+
+  private JfrEvents() {}
+}
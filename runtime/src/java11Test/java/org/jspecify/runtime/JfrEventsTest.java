@@ -0,0 +1,128 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JfrEventsTest {
+  @TempDir Path tempDir;
+
+  @Test
+  void scopeResolution() throws Exception {
+    List<RecordedEvent> events =
+        record("org.jspecify.ScopeResolution", () -> NullMarkedScopes.isNullMarked(Resolved.class));
+    RecordedEvent event = only(events, Resolved.class.getName());
+    assertEquals("class", event.getString("kind"));
+    assertFalse(event.getBoolean("nullMarked"));
+    assertNotNull(event.getStackTrace());
+  }
+
+  @Test
+  void indexLoad() throws Exception {
+    NullnessIndexFormat.Writer writer = new NullnessIndexFormat.Writer();
+    writer.addClass("com.example.Foo", true);
+    byte[] bytes = writer.toByteArray();
+    Path root = tempDir.resolve("classes");
+    Path file = root.resolve(NullnessIndexFormat.RESOURCE);
+    Files.createDirectories(file.getParent());
+    Files.write(file, bytes);
+    try (URLClassLoader loader = new URLClassLoader(new URL[] {root.toUri().toURL()}, null)) {
+      List<RecordedEvent> events = record("org.jspecify.NullnessIndexLoad", () -> load(loader));
+      RecordedEvent event = only(events, file.toUri().toURL().toString());
+      assertEquals(bytes.length, event.getLong("size"));
+      assertTrue(event.getBoolean("mapped"));
+    }
+  }
+
+  @Test
+  void violation() throws Exception {
+    List<RecordedEvent> events =
+        record("org.jspecify.NullContractViolation", () -> NullnessViolations.record("site A"));
+    RecordedEvent event = only(events, "site A");
+    assertNotNull(event.getStackTrace());
+  }
+
+  @Test
+  void violationCounts() throws Exception {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    counts.put("site B", 3L);
+    counts.put("site C", 1L);
+    String name = "org.jspecify.NullContractViolationCount";
+    List<RecordedEvent> events = record(name, () -> NullnessViolations.recordCounts(counts));
+    assertEquals(3, only(events, "site B").getLong("count"));
+    assertEquals(1, only(events, "site C").getLong("count"));
+  }
+
+  private List<RecordedEvent> record(String eventName, Runnable action) throws Exception {
+    Path file = tempDir.resolve("recording.jfr");
+    try (Recording recording = new Recording()) {
+      recording.enable(eventName).withThreshold(Duration.ZERO);
+      recording.start();
+      action.run();
+      recording.stop();
+      recording.dump(file);
+    }
+    return RecordingFile.readAllEvents(file).stream()
+        .filter(e -> e.getEventType().getName().equals(eventName))
+        .collect(toList());
+  }
+
+  private static void load(ClassLoader loader) {
+    try {
+      NullnessIndex.load(loader);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static RecordedEvent only(List<RecordedEvent> events, String subject) {
+    List<RecordedEvent> matching =
+        events.stream().filter(e -> subject.equals(subjectOf(e))).collect(toList());
+    assertEquals(1, matching.size(), events.toString());
+    return matching.get(0);
+  }
+
+  private static String subjectOf(RecordedEvent event) {
+    for (String field : new String[] {"site", "element", "location"}) {
+      if (event.hasField(field)) {
+        return event.getString(field);
+      }
+    }
+    throw new AssertionError(event);
+  }
+
+  private static final class Resolved {}
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import org.jspecify.runtime.NullMarkedScopes.Marking;
+
+/**
+ * Reads whether a package is annotated {@code @NullMarked} or {@code @NullUnmarked}, under Java 9
+ * and newer. This replaces the Java 8 version in {@code src/main/java} in the multi-release jar and
+ * must keep the same signatures.
+ *
+ * <p>We load the {@code package-info} class through the loader, as {@link
+ * Package#getAnnotations()} does, so that the loader picks the right version of it from a
+ * multi-release jar and from a named module.
+ */
+final class PackageMarkings {
+  /** Returns how the named package, as {@code loader} defines it, is annotated. */
+  static Marking of(String packageName, ClassLoader loader) {
+    Class<?> packageInfo;
+    try {
+      packageInfo = Class.forName(packageName + ".package-info", false, loader);
+    } catch (ClassNotFoundException | LinkageError e) {
+      return Marking.NONE;
+    }
+    return Marking.of(packageInfo);
+  }
+
+  private PackageMarkings() {}
+}
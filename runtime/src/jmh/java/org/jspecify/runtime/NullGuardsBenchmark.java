@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import org.jspecify.annotations.NullMarked;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what {@link NullGuards} costs after warm-up: the time to call a method directly,
+ * through its plain method handle, and through its guarded handle. The handles are in {@code static
+ * final} fields, as a framework should keep them, so the JIT can inline through them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NullGuardsBenchmark {
+  @NullMarked
+  public static final class Echo {
+    public static String echo(String s, int times) {
+      return times == 0 ? s : s + times;
+    }
+  }
+
+  private static final MethodHandle PLAIN;
+  private static final MethodHandle GUARDED;
+
+  static {
+    try {
+      Method method = Echo.class.getMethod("echo", String.class, int.class);
+      PLAIN = MethodHandles.lookup().unreflect(method);
+      GUARDED = NullGuards.guard(PLAIN, method);
+    } catch (ReflectiveOperationException e) {
+      throw new LinkageError("cannot find Echo.echo", e);
+    }
+  }
+
+  private String input = "input";
+  private int zero = 0;
+
+  @Benchmark
+  public String direct() {
+    return Echo.echo(input, zero);
+  }
+
+  @Benchmark
+  public String plainHandle() throws Throwable {
+    return (String) PLAIN.invokeExact(input, zero);
+  }
+
+  @Benchmark
+  public String guardedHandle() throws Throwable {
+    return (String) GUARDED.invokeExact(input, zero);
+  }
+}
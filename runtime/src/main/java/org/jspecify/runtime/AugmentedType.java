@@ -0,0 +1,201 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import java.lang.reflect.TypeVariable;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A type usage together with the {@linkplain NullnessOperator nullness operator} of each of its
+ * components, as defined in the <a
+ * href="https://jspecify.dev/docs/spec#augmented-type">"Augmented type"</a> section of the
+ * specification. For example, the augmented type of the return type of {@code @Nullable List<?
+ * extends Number> get()} in null-marked code is {@code List<? extends Number>?}.
+ *
+ * <p>Instances are immutable and compare by value. They come from {@link AugmentedTypes}, which
+ * interns them per declaring class, so equal types of members of the same class are usually the
+ * same instance.
+ */
+public final class AugmentedType {
+  /** The kinds of type usage that an augmented type can describe. */
+  public enum Kind {
+    /** A primitive type, or {@code void}. See {@link #rawClass}. */
+    PRIMITIVE,
+    /** A class or interface type. See {@link #rawClass} and {@link #typeArguments}. */
+    CLASS,
+    /** An array type. See {@link #componentType}. */
+    ARRAY,
+    /** A use of a type variable. See {@link #typeVariable}. */
+    TYPE_VARIABLE,
+    /** A wildcard type argument. See {@link #upperBound} and {@link #lowerBound}. */
+    WILDCARD,
+  }
+
+  private final Kind kind;
+  private final NullnessOperator nullnessOperator;
+  private final Class<?> rawClass;
+  private final TypeVariable<?> typeVariable;
+  /** The type arguments, the component type, or the upper and (optional) lower bound. */
+  private final List<AugmentedType> components;
+  private final int hashCode;
+
+  AugmentedType(
+      Kind kind,
+      NullnessOperator nullnessOperator,
+      Class<?> rawClass,
+      TypeVariable<?> typeVariable,
+      List<AugmentedType> components) {
+    this.kind = kind;
+    this.nullnessOperator = nullnessOperator;
+    this.rawClass = rawClass;
+    this.typeVariable = typeVariable;
+    this.components = components;
+    this.hashCode = Objects.hash(kind, nullnessOperator, rawClass, typeVariable, components);
+  }
+
+  public Kind kind() {
+    return kind;
+  }
+
+  /**
+   * Returns the nullness operator of this type usage. Wildcards have none of their own, so for
+   * them this is always {@link NullnessOperator#NO_CHANGE}; see their bounds instead.
+   */
+  public NullnessOperator nullnessOperator() {
+    return nullnessOperator;
+  }
+
+  /**
+   * Returns the class of a {@link Kind#CLASS} or {@link Kind#PRIMITIVE} type, or the erasure of
+   * any other type.
+   */
+  public Class<?> rawClass() {
+    return rawClass;
+  }
+
+  /** Returns the type variable of a {@link Kind#TYPE_VARIABLE} type. */
+  public TypeVariable<?> typeVariable() {
+    checkKind(Kind.TYPE_VARIABLE);
+    return typeVariable;
+  }
+
+  /** Returns the type arguments of a {@link Kind#CLASS} type, which are empty if it is raw. */
+  public List<AugmentedType> typeArguments() {
+    checkKind(Kind.CLASS);
+    return components;
+  }
+
+  /** Returns the component type of an {@link Kind#ARRAY} type. */
+  public AugmentedType componentType() {
+    checkKind(Kind.ARRAY);
+    return components.get(0);
+  }
+
+  /**
+   * Returns the upper bound of a {@link Kind#WILDCARD}. For a wildcard without one (like {@code
+   * ?} or {@code ? super Foo}), that is the corresponding type parameter of the parameterized
+   * class, since the wildcard has the same bound as that parameter; see {@link
+   * AugmentedTypes#typeParameterBounds}.
+   */
+  public AugmentedType upperBound() {
+    checkKind(Kind.WILDCARD);
+    return components.get(0);
+  }
+
+  /** Returns the lower bound of a {@link Kind#WILDCARD}, or {@code null} if it has none. */
+  public AugmentedType lowerBound() {
+    checkKind(Kind.WILDCARD);
+    return components.size() > 1 ? components.get(1) : null;
+  }
+
+  private void checkKind(Kind expected) {
+    if (kind != expected) {
+      throw new IllegalStateException("not a " + expected + " type: " + this);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof AugmentedType)) {
+      return false;
+    }
+    AugmentedType that = (AugmentedType) o;
+    return hashCode == that.hashCode
+        && kind == that.kind
+        && nullnessOperator == that.nullnessOperator
+        && Objects.equals(rawClass, that.rawClass)
+        && Objects.equals(typeVariable, that.typeVariable)
+        && components.equals(that.components);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+
+  /**
+   * Returns this type in the notation of the specification, in which a suffix of {@code ?}, {@code
+   * !}, or {@code *} stands for {@code UNION_NULL}, {@code MINUS_NULL}, or {@code UNSPECIFIED}, as
+   * in {@code java.util.Map<java.lang.String, java.lang.Integer?>*}.
+   */
+  @Override
+  public String toString() {
+    StringBuilder result = new StringBuilder();
+    appendTo(result);
+    return result.toString();
+  }
+
+  private void appendTo(StringBuilder result) {
+    switch (kind) {
+      case PRIMITIVE:
+        result.append(rawClass.getName());
+        break;
+      case CLASS:
+        result.append(rawClass.getName());
+        if (!components.isEmpty()) {
+          result.append('<');
+          for (int i = 0; i < components.size(); i++) {
+            if (i > 0) {
+              result.append(", ");
+            }
+            components.get(i).appendTo(result);
+          }
+          result.append('>');
+        }
+        break;
+      case ARRAY:
+        components.get(0).appendTo(result);
+        result.append("[]");
+        break;
+      case TYPE_VARIABLE:
+        result.append(typeVariable.getName());
+        break;
+      case WILDCARD:
+        result.append("? extends ");
+        components.get(0).appendTo(result);
+        if (components.size() > 1) {
+          result.append(" super ");
+          components.get(1).appendTo(result);
+        }
+        break;
+    }
+    result.append(nullnessOperator.suffix);
+  }
+}
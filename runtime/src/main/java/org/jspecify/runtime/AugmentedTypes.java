@@ -0,0 +1,412 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+
+import java.lang.reflect.AnnotatedArrayType;
+import java.lang.reflect.AnnotatedParameterizedType;
+import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.AnnotatedTypeVariable;
+import java.lang.reflect.AnnotatedWildcardType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.GenericDeclaration;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.jspecify.runtime.AugmentedType.Kind;
+
+/**
+ * Computes the {@linkplain AugmentedType augmented types} of reflected members from their {@link
+ * Nullable @Nullable} and {@link NonNull @NonNull} type annotations and whether they are
+ * {@linkplain NullMarkedScopes null-marked}.
+ *
+ * <p>Each result is computed once and cached with the member's declaring class in a {@link
+ * ClassValue}, so a framework can afford to ask for it every time it needs it, and the cache does
+ * not keep the class loader alive.
+ *
+ * <p>Reflection can't tell {@code ? extends Object} from {@code ?}, so a wildcard whose upper
+ * bound is an unannotated {@code Object} is treated as having no upper bound.
+ */
+public final class AugmentedTypes {
+  /** The augmented types of one class's members, and the instances that they share. */
+  private static final class ClassTypes {
+    /** The type of each {@link Method}'s return value, {@link Parameter}, and {@link Field}. */
+    final Map<Object, AugmentedType> memberTypes = new ConcurrentHashMap<>();
+
+    final Map<TypeVariable<?>, List<AugmentedType>> bounds = new ConcurrentHashMap<>();
+    final Map<AugmentedType, AugmentedType> interned = new ConcurrentHashMap<>();
+
+    AugmentedType intern(AugmentedType type) {
+      AugmentedType existing = interned.putIfAbsent(type, type);
+      return existing != null ? existing : type;
+    }
+  }
+
+  /**
+   * Whether reflection skips the outer instance of a member class when it matches up the type
+   * annotations of the class's constructor parameters with the parameters, which it does starting
+   * in Java 9.
+   */
+  private static final boolean SKIPS_OUTER_INSTANCE =
+      !System.getProperty("java.specification.version").startsWith("1.");
+
+  private static final ClassValue<ClassTypes> TYPES =
+      new ClassValue<ClassTypes>() {
+        @Override
+        protected ClassTypes computeValue(Class<?> type) {
+          return new ClassTypes();
+        }
+      };
+
+  /** Returns the augmented type of the return type of {@code method}. */
+  public static AugmentedType returnType(Method method) {
+    ClassTypes types = TYPES.get(method.getDeclaringClass());
+    AugmentedType cached = types.memberTypes.get(method);
+    if (cached != null) {
+      return cached;
+    }
+    return cache(
+        types,
+        method,
+        augment(method.getAnnotatedReturnType(), NullMarkedScopes.isNullMarked(method), types));
+  }
+
+  /**
+   * Returns the augmented type of {@code parameter}.
+   *
+   * <p>Reflection can attach the type annotations of a constructor's parameters to the wrong
+   * parameters when the compiler adds parameters of its own, like the name and ordinal of an enum
+   * constant. Where we can't tell which annotations are those of {@code parameter}, its nullness
+   * is unspecified throughout.
+   */
+  public static AugmentedType parameterType(Parameter parameter) {
+    Executable executable = parameter.getDeclaringExecutable();
+    ClassTypes types = TYPES.get(executable.getDeclaringClass());
+    AugmentedType cached = types.memberTypes.get(parameter);
+    if (cached != null) {
+      return cached;
+    }
+    AnnotatedType annotated = annotatedType(parameter);
+    return cache(
+        types,
+        parameter,
+        annotated == null
+            ? unspecified(parameter.getParameterizedType(), types)
+            : augment(annotated, NullMarkedScopes.isNullMarked(executable), types));
+  }
+
+  /** Returns the augmented type of {@code field}. */
+  public static AugmentedType fieldType(Field field) {
+    ClassTypes types = TYPES.get(field.getDeclaringClass());
+    AugmentedType cached = types.memberTypes.get(field);
+    if (cached != null) {
+      return cached;
+    }
+    return cache(
+        types,
+        field,
+        augment(field.getAnnotatedType(), NullMarkedScopes.isNullMarked(field), types));
+  }
+
+  /**
+   * Returns the augmented types of the upper bounds of {@code variable}, which are never empty: A
+   * type parameter without an explicit bound has the bound {@code Object}, which in null-marked
+   * code excludes {@code null}.
+   */
+  public static List<AugmentedType> typeParameterBounds(TypeVariable<?> variable) {
+    GenericDeclaration declaration = variable.getGenericDeclaration();
+    boolean nullMarked;
+    Class<?> declaringClass;
+    if (declaration instanceof Class) {
+      declaringClass = (Class<?>) declaration;
+      nullMarked = NullMarkedScopes.isNullMarked(declaringClass);
+    } else {
+      Executable executable = (Executable) declaration;
+      declaringClass = executable.getDeclaringClass();
+      nullMarked = NullMarkedScopes.isNullMarked(executable);
+    }
+    ClassTypes types = TYPES.get(declaringClass);
+    List<AugmentedType> cached = types.bounds.get(variable);
+    if (cached != null) {
+      return cached;
+    }
+    AnnotatedType[] bounds = variable.getAnnotatedBounds();
+    List<AugmentedType> result = new ArrayList<>(bounds.length);
+    for (AnnotatedType bound : bounds) {
+      result.add(augment(bound, nullMarked, types));
+    }
+    result = unmodifiableList(result);
+    List<AugmentedType> raced = types.bounds.putIfAbsent(variable, result);
+    return raced != null ? raced : result;
+  }
+
+  /**
+   * Returns the annotated type of {@code parameter}, or {@code null} if we can't tell which type
+   * annotations are its own.
+   *
+   * <p>javac numbers the type annotations of a constructor's parameters from the first parameter in
+   * the source, skipping the ones that it adds: an enum's name and ordinal, an inner class's outer
+   * instance, and a local or anonymous class's captured values. Reflection numbers them from the
+   * first actual parameter instead, except that it skips the outer instance of a member class
+   * starting in Java 9.
+   */
+  private static AnnotatedType annotatedType(Parameter parameter) {
+    Executable executable = parameter.getDeclaringExecutable();
+    if (!(executable instanceof Constructor)) {
+      return parameter.getAnnotatedType();
+    }
+    Class<?> type = executable.getDeclaringClass();
+    if (type.isLocalClass() || type.isAnonymousClass()) {
+      // There may be an outer instance and captured values, and we can't tell where they are.
+      return null;
+    }
+    int shift;
+    if (type.isEnum()) {
+      shift = 2;
+    } else if (type.isMemberClass()
+        && !Modifier.isStatic(type.getModifiers())
+        && !SKIPS_OUTER_INSTANCE) {
+      shift = 1;
+    } else {
+      return parameter.getAnnotatedType();
+    }
+    int index = Arrays.asList(executable.getParameters()).indexOf(parameter) - shift;
+    if (index < 0) {
+      // It's one of the parameters that the compiler added.
+      return null;
+    }
+    AnnotatedType annotated = executable.getAnnotatedParameterTypes()[index];
+    // Reflection built that type around the annotations, so it fits them only if it's our type.
+    return annotated.getType().equals(parameter.getParameterizedType()) ? annotated : null;
+  }
+
+  private static AugmentedType cache(ClassTypes types, Object member, AugmentedType type) {
+    AugmentedType raced = types.memberTypes.putIfAbsent(member, type);
+    return raced != null ? raced : type;
+  }
+
+  private static AugmentedType augment(AnnotatedType type, boolean nullMarked, ClassTypes types) {
+    Type javaType = type.getType();
+    if (javaType instanceof Class && ((Class<?>) javaType).isPrimitive()) {
+      // Primitive types never include null, so annotations on them mean nothing.
+      return types.intern(
+          new AugmentedType(
+              Kind.PRIMITIVE, NullnessOperator.NO_CHANGE, (Class<?>) javaType, null, emptyList()));
+    }
+    NullnessOperator operator = operator(type, nullMarked);
+    AugmentedType result;
+    if (type instanceof AnnotatedArrayType) {
+      AugmentedType component =
+          augment(
+              ((AnnotatedArrayType) type).getAnnotatedGenericComponentType(), nullMarked, types);
+      result =
+          new AugmentedType(
+              Kind.ARRAY, operator, erasure(javaType), null, singletonList(component));
+    } else if (type instanceof AnnotatedTypeVariable) {
+      result =
+          new AugmentedType(
+              Kind.TYPE_VARIABLE,
+              operator,
+              erasure(javaType),
+              (TypeVariable<?>) javaType,
+              emptyList());
+    } else if (type instanceof AnnotatedParameterizedType) {
+      Class<?> rawClass = erasure(javaType);
+      AnnotatedType[] arguments =
+          ((AnnotatedParameterizedType) type).getAnnotatedActualTypeArguments();
+      AugmentedType[] augmented = new AugmentedType[arguments.length];
+      for (int i = 0; i < arguments.length; i++) {
+        augmented[i] =
+            arguments[i] instanceof AnnotatedWildcardType
+                ? wildcard(
+                    (AnnotatedWildcardType) arguments[i],
+                    rawClass.getTypeParameters()[i],
+                    nullMarked,
+                    types)
+                : augment(arguments[i], nullMarked, types);
+      }
+      result =
+          new AugmentedType(
+              Kind.CLASS, operator, rawClass, null, unmodifiableList(Arrays.asList(augmented)));
+    } else {
+      result = new AugmentedType(Kind.CLASS, operator, erasure(javaType), null, emptyList());
+    }
+    return types.intern(result);
+  }
+
+  /** Returns the augmented type of a wildcard argument for {@code parameter}. */
+  private static AugmentedType wildcard(
+      AnnotatedWildcardType wildcard,
+      TypeVariable<?> parameter,
+      boolean nullMarked,
+      ClassTypes types) {
+    AnnotatedType[] upperBounds = wildcard.getAnnotatedUpperBounds();
+    AnnotatedType[] lowerBounds = wildcard.getAnnotatedLowerBounds();
+    AugmentedType upperBound;
+    if (upperBounds.length == 0 || isImplicitBound(upperBounds[0])) {
+      // The wildcard has the bound of the type parameter, whatever that includes.
+      upperBound =
+          types.intern(
+              new AugmentedType(
+                  Kind.TYPE_VARIABLE,
+                  nullMarked ? NullnessOperator.NO_CHANGE : NullnessOperator.UNSPECIFIED,
+                  erasure(parameter),
+                  parameter,
+                  emptyList()));
+    } else {
+      upperBound = augment(upperBounds[0], nullMarked, types);
+    }
+    List<AugmentedType> bounds =
+        lowerBounds.length == 0
+            ? singletonList(upperBound)
+            : unmodifiableList(
+                Arrays.asList(upperBound, augment(lowerBounds[0], nullMarked, types)));
+    return types.intern(
+        new AugmentedType(
+            Kind.WILDCARD, NullnessOperator.NO_CHANGE, upperBound.rawClass(), null, bounds));
+  }
+
+  /** Returns the augmented type of {@code type} with unspecified nullness throughout. */
+  private static AugmentedType unspecified(Type type, ClassTypes types) {
+    AugmentedType result;
+    if (type instanceof Class && ((Class<?>) type).isPrimitive()) {
+      result =
+          new AugmentedType(
+              Kind.PRIMITIVE, NullnessOperator.NO_CHANGE, (Class<?>) type, null, emptyList());
+    } else if (type instanceof Class && ((Class<?>) type).isArray()) {
+      AugmentedType component = unspecified(((Class<?>) type).getComponentType(), types);
+      result =
+          new AugmentedType(
+              Kind.ARRAY,
+              NullnessOperator.UNSPECIFIED,
+              (Class<?>) type,
+              null,
+              singletonList(component));
+    } else if (type instanceof GenericArrayType) {
+      AugmentedType component =
+          unspecified(((GenericArrayType) type).getGenericComponentType(), types);
+      result =
+          new AugmentedType(
+              Kind.ARRAY,
+              NullnessOperator.UNSPECIFIED,
+              erasure(type),
+              null,
+              singletonList(component));
+    } else if (type instanceof TypeVariable) {
+      result =
+          new AugmentedType(
+              Kind.TYPE_VARIABLE,
+              NullnessOperator.UNSPECIFIED,
+              erasure(type),
+              (TypeVariable<?>) type,
+              emptyList());
+    } else if (type instanceof ParameterizedType) {
+      Class<?> rawClass = erasure(type);
+      Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+      AugmentedType[] augmented = new AugmentedType[arguments.length];
+      for (int i = 0; i < arguments.length; i++) {
+        augmented[i] =
+            arguments[i] instanceof WildcardType
+                ? unspecifiedWildcard(
+                    (WildcardType) arguments[i], rawClass.getTypeParameters()[i], types)
+                : unspecified(arguments[i], types);
+      }
+      result =
+          new AugmentedType(
+              Kind.CLASS,
+              NullnessOperator.UNSPECIFIED,
+              rawClass,
+              null,
+              unmodifiableList(Arrays.asList(augmented)));
+    } else {
+      result =
+          new AugmentedType(
+              Kind.CLASS, NullnessOperator.UNSPECIFIED, erasure(type), null, emptyList());
+    }
+    return types.intern(result);
+  }
+
+  /** Like {@link #wildcard}, but with unspecified nullness throughout. */
+  private static AugmentedType unspecifiedWildcard(
+      WildcardType wildcard, TypeVariable<?> parameter, ClassTypes types) {
+    Type[] upperBounds = wildcard.getUpperBounds();
+    Type[] lowerBounds = wildcard.getLowerBounds();
+    AugmentedType upperBound =
+        upperBounds.length == 0 || upperBounds[0] == Object.class
+            ? unspecified(parameter, types)
+            : unspecified(upperBounds[0], types);
+    List<AugmentedType> bounds =
+        lowerBounds.length == 0
+            ? singletonList(upperBound)
+            : unmodifiableList(Arrays.asList(upperBound, unspecified(lowerBounds[0], types)));
+    return types.intern(
+        new AugmentedType(
+            Kind.WILDCARD, NullnessOperator.NO_CHANGE, upperBound.rawClass(), null, bounds));
+  }
+
+  private static boolean isImplicitBound(AnnotatedType bound) {
+    return bound.getType() == Object.class
+        && !bound.isAnnotationPresent(Nullable.class)
+        && !bound.isAnnotationPresent(NonNull.class);
+  }
+
+  private static NullnessOperator operator(AnnotatedType type, boolean nullMarked) {
+    boolean nullable = type.isAnnotationPresent(Nullable.class);
+    boolean nonNull = type.isAnnotationPresent(NonNull.class);
+    if (nullable != nonNull) {
+      return nullable ? NullnessOperator.UNION_NULL : NullnessOperator.MINUS_NULL;
+    }
+    // Neither annotation, or both, which is an error that we treat like neither.
+    return nullMarked ? NullnessOperator.NO_CHANGE : NullnessOperator.UNSPECIFIED;
+  }
+
+  private static Class<?> erasure(Type type) {
+    if (type instanceof Class) {
+      return (Class<?>) type;
+    } else if (type instanceof ParameterizedType) {
+      return (Class<?>) ((ParameterizedType) type).getRawType();
+    } else if (type instanceof GenericArrayType) {
+      Class<?> component = erasure(((GenericArrayType) type).getGenericComponentType());
+      return Array.newInstance(component, 0).getClass();
+    } else if (type instanceof TypeVariable) {
+      return erasure(((TypeVariable<?>) type).getBounds()[0]);
+    } else if (type instanceof WildcardType) {
+      Type[] upperBounds = ((WildcardType) type).getUpperBounds();
+      return upperBounds.length == 0 ? Object.class : erasure(upperBounds[0]);
+    }
+    throw new IllegalArgumentException("unknown kind of type: " + type);
+  }
+
+  private AugmentedTypes() {}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the runtime-visible annotations of a class straight from its class file, without loading
+ * it.
+ *
+ * <p>We read only as much of the file as we need: the constant pool, then we skip over the fields
+ * and methods to the class's own attributes. The JSpecify annotations have no elements, but other
+ * annotations may, so we also skip over element values. Names in the class file use a modified
+ * UTF-8, which is the same as UTF-8 for the names that we look for.
+ */
+final class ClassFileAnnotations {
+  private static final int MAGIC = 0xCAFEBABE;
+
+  /**
+   * Returns the descriptors (like {@code Lorg/jspecify/annotations/NullMarked;}) of the
+   * runtime-visible annotations on the class that {@code classFile} defines.
+   *
+   * @throws IllegalArgumentException if {@code classFile} is not a well-formed class file
+   */
+  static List<String> annotationDescriptors(byte[] classFile) {
+    try {
+      return new ClassFileAnnotations(ByteBuffer.wrap(classFile)).read();
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("truncated class file", e);
+    }
+  }
+
+  private final ByteBuffer in;
+
+  /** The offset of each {@code CONSTANT_Utf8} entry, or -1 for other entries. */
+  private int[] utf8Offsets;
+
+  private ClassFileAnnotations(ByteBuffer in) {
+    this.in = in;
+  }
+
+  private List<String> read() {
+    if (in.getInt() != MAGIC) {
+      throw new IllegalArgumentException("not a class file");
+    }
+    in.position(in.position() + 4); // minor and major version
+    readConstantPool();
+    in.position(in.position() + 6); // access flags, this class, superclass
+    skip(u2() * 2); // interfaces
+    skipMembers(); // fields
+    skipMembers(); // methods
+    for (int attributes = u2(); attributes > 0; attributes--) {
+      String name = utf8(u2());
+      int length = in.getInt();
+      if (name.equals("RuntimeVisibleAnnotations")) {
+        return readAnnotations();
+      }
+      skip(length);
+    }
+    return Collections.emptyList();
+  }
+
+  private void readConstantPool() {
+    int count = u2();
+    utf8Offsets = new int[count];
+    for (int i = 1; i < count; i++) {
+      utf8Offsets[i] = -1;
+      int tag = in.get();
+      switch (tag) {
+        case 1: // Utf8
+          utf8Offsets[i] = in.position();
+          skip(u2());
+          break;
+        case 7: // Class
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          skip(2);
+          break;
+        case 15: // MethodHandle
+          skip(3);
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          skip(4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          skip(8);
+          i++; // These take two entries.
+          break;
+        default:
+          throw new IllegalArgumentException("unknown constant pool tag " + tag);
+      }
+    }
+  }
+
+  private void skipMembers() {
+    for (int members = u2(); members > 0; members--) {
+      skip(6); // access flags, name, descriptor
+      for (int attributes = u2(); attributes > 0; attributes--) {
+        skip(2);
+        skip(in.getInt());
+      }
+    }
+  }
+
+  private List<String> readAnnotations() {
+    int count = u2();
+    List<String> descriptors = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      descriptors.add(utf8(u2()));
+      skipElementValuePairs();
+    }
+    return descriptors;
+  }
+
+  private void skipElementValuePairs() {
+    for (int pairs = u2(); pairs > 0; pairs--) {
+      skip(2); // name
+      skipElementValue();
+    }
+  }
+
+  private void skipElementValue() {
+    int tag = in.get();
+    switch (tag) {
+      case 'e': // enum constant: type and name
+        skip(4);
+        break;
+      case '@':
+        skip(2); // type
+        skipElementValuePairs();
+        break;
+      case '[':
+        for (int values = u2(); values > 0; values--) {
+          skipElementValue();
+        }
+        break;
+      default: // a constant or a class
+        skip(2);
+        break;
+    }
+  }
+
+  private String utf8(int index) {
+    int offset = utf8Offsets[index];
+    if (offset < 0) {
+      throw new IllegalArgumentException("constant " + index + " is not a name");
+    }
+    int length = in.getShort(offset) & 0xFFFF;
+    return new String(in.array(), offset + 2, length, UTF_8);
+  }
+
+  private int u2() {
+    return in.getShort() & 0xFFFF;
+  }
+
+  private void skip(int bytes) {
+    in.position(in.position() + bytes);
+  }
+}
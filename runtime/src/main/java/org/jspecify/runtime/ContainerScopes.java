@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jspecify.runtime.NullMarkedScopes.Marking;
+
+/**
+ * Whether packages and modules are null-marked, resolved once per class loader.
+ *
+ * <p>A package is identified by its name and the loader that defines its classes, so the parts of
+ * a split package that different loaders define are resolved separately. We find the annotations
+ * of a package through that loader with {@link PackageMarkings}. Unlike {@link
+ * Class#getPackage()}, this works for loaders that never define {@link Package} objects, which
+ * some Java 8 loaders don't.
+ *
+ * <p>The results for each loader are kept in a map that the loader is only weakly reachable from,
+ * and they are keyed by name, so they don't keep the loader (or anything it loaded) alive.
+ */
+final class ContainerScopes {
+  /** What we know about the packages and modules of one class loader. */
+  private static final class LoaderScopes {
+    final Map<String, Marking> packages = new ConcurrentHashMap<>();
+    final Map<String, Boolean> modules = new ConcurrentHashMap<>();
+  }
+
+  /** The bootstrap loader is {@code null}, which {@link WeakHashMap} can't tell from others. */
+  private static final LoaderScopes BOOTSTRAP = new LoaderScopes();
+
+  private static final Map<ClassLoader, LoaderScopes> LOADERS = new WeakHashMap<>();
+
+  /**
+   * Returns whether the package or else the module of {@code member}, a top-level class, is
+   * null-marked.
+   */
+  static boolean isNullMarked(Class<?> member) {
+    ClassLoader loader = member.getClassLoader();
+    LoaderScopes scopes = scopesOf(loader);
+    String name = member.getName();
+    int dot = name.lastIndexOf('.');
+    String packageName = dot < 0 ? "" : name.substring(0, dot);
+    Marking marking = scopes.packages.get(packageName);
+    if (marking == null) {
+      Object event = JfrEvents.beginScopeResolution();
+      marking = packageName.isEmpty() ? Marking.NONE : PackageMarkings.of(packageName, loader);
+      Marking raced = scopes.packages.putIfAbsent(packageName, marking);
+      if (raced == null) {
+        JfrEvents.endScopeResolution(event, packageName, "package", marking == Marking.MARKED);
+      } else {
+        marking = raced;
+      }
+    }
+    return marking == Marking.NONE ? isModuleNullMarked(member, scopes) : marking == Marking.MARKED;
+  }
+
+  private static LoaderScopes scopesOf(ClassLoader loader) {
+    if (loader == null) {
+      return BOOTSTRAP;
+    }
+    synchronized (LOADERS) {
+      LoaderScopes scopes = LOADERS.get(loader);
+      if (scopes == null) {
+        scopes = new LoaderScopes();
+        LOADERS.put(loader, scopes);
+      }
+      return scopes;
+    }
+  }
+
+  private static boolean isModuleNullMarked(Class<?> member, LoaderScopes scopes) {
+    AnnotatedElement module = Modules.moduleOf(member);
+    if (module == null) {
+      return false;
+    }
+    String name = Modules.nameOf(module);
+    Boolean cached = scopes.modules.get(name);
+    if (cached != null) {
+      return cached;
+    }
+    // @NullUnmarked can't be applied to modules, and modules have no enclosing scope.
+    Object event = JfrEvents.beginScopeResolution();
+    boolean nullMarked = module.isAnnotationPresent(NullMarkedScopes.NULL_MARKED);
+    if (scopes.modules.putIfAbsent(name, nullMarked) == null) {
+      JfrEvents.endScopeResolution(event, name, "module", nullMarked);
+    }
+    return nullMarked;
+  }
+
+  private ContainerScopes() {}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+/**
+ * Emits JDK Flight Recorder events. This version, for Java 8, emits none; the multi-release jar
+ * replaces it under Java 11 and newer with one that does. See {@code src/java11/java}.
+ *
+ * <p>Callers time an operation by passing the result of a {@code begin} method, which may be
+ * {@code null}, to the matching {@code end} method.
+ */
+final class JfrEvents {
+  static Object beginScopeResolution() {
+    return null;
+  }
+
+  static void endScopeResolution(Object event, String element, String kind, boolean nullMarked) {}
+
+  static Object beginIndexLoad() {
+    return null;
+  }
+
+  static void endIndexLoad(Object event, String location, long size, boolean mapped) {}
+
+  static void violation(String site) {}
+
+  static void violationCount(String site, long count) {}
+
+  private JfrEvents() {}
+}
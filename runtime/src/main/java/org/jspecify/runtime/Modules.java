@@ -0,0 +1,82 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/** Access to modules, which we can reach only by reflection because we run on Java 8. */
+final class Modules {
+  /** {@code Class.getModule()}, or {@code null} under Java 8. */
+  private static final Method GET_MODULE = getModuleMethod();
+
+  /** {@code Module.isNamed()}, or {@code null} under Java 8. */
+  private static final Method IS_NAMED = moduleMethod("isNamed");
+
+  /** {@code Module.getName()}, or {@code null} under Java 8. */
+  private static final Method GET_NAME = moduleMethod("getName");
+
+  /**
+   * Returns the named module that contains {@code type}, or {@code null} if it is in an unnamed
+   * module or we are running under Java 8. ({@code Module} implements {@link AnnotatedElement}.)
+   */
+  static AnnotatedElement moduleOf(Class<?> type) {
+    if (GET_MODULE == null) {
+      return null;
+    }
+    try {
+      Object module = GET_MODULE.invoke(type);
+      return (Boolean) IS_NAMED.invoke(module) ? (AnnotatedElement) module : null;
+    } catch (IllegalAccessException e) {
+      throw new LinkageError("cannot call Class.getModule()", e);
+    } catch (InvocationTargetException e) {
+      throw new LinkageError("Class.getModule() failed", e.getCause());
+    }
+  }
+
+  /** Returns the name of {@code module}, which {@link #moduleOf} returned. */
+  static String nameOf(AnnotatedElement module) {
+    try {
+      return (String) GET_NAME.invoke(module);
+    } catch (IllegalAccessException e) {
+      throw new LinkageError("cannot call Module.getName()", e);
+    } catch (InvocationTargetException e) {
+      throw new LinkageError("Module.getName() failed", e.getCause());
+    }
+  }
+
+  private static Method getModuleMethod() {
+    try {
+      return Class.class.getMethod("getModule");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static Method moduleMethod(String name) {
+    if (GET_MODULE == null) {
+      return null;
+    }
+    try {
+      return GET_MODULE.getReturnType().getMethod(name);
+    } catch (NoSuchMethodException e) {
+      throw new LinkageError("Module has no " + name + "()", e);
+    }
+  }
+
+  private Modules() {}
+}
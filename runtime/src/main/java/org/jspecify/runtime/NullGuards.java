@@ -0,0 +1,176 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps method handles in checks that throw {@link NullPointerException} when a non-null
+ * parameter receives {@code null} or a non-null return type is {@code null}, for frameworks that
+ * dispatch through {@link MethodHandle}s.
+ *
+ * <p>A position is non-null under the rules of {@link NullPlan}. The checks are {@link
+ * MethodHandles#filterArguments filters} on exactly those positions and a {@link
+ * MethodHandles#filterReturnValue filter} on the return value if it is non-null, so a handle for a
+ * method with no non-null positions is returned unchanged. Each violation is also {@linkplain
+ * NullnessViolations#record recorded} as a JFR event.
+ *
+ * <p>The filters for each method are computed once and stored with its declaring class in a
+ * {@link ClassValue}, as is the guarded handle for the most recent handle that was passed in for
+ * that method. Store the guarded handle in a {@code static final} field to let the JIT inline it.
+ */
+public final class NullGuards {
+  private static final MethodHandle CHECK_NON_NULL;
+
+  static {
+    try {
+      CHECK_NON_NULL =
+          MethodHandles.lookup()
+              .findStatic(
+                  NullGuards.class,
+                  "checkNonNull",
+                  methodType(Object.class, Object.class, String.class));
+    } catch (ReflectiveOperationException e) {
+      throw new LinkageError("cannot find NullGuards.checkNonNull", e);
+    }
+  }
+
+  /** The filters for one method, and the last handle that we guarded with them. */
+  private static final class Guards {
+    /** A filter for each parameter, or {@code null} where there is nothing to check. */
+    final MethodHandle[] parameterFilters;
+
+    /** A filter for the return value, or {@code null} if there is nothing to check. */
+    final MethodHandle returnFilter;
+
+    volatile MethodHandle[] lastGuarded;
+
+    Guards(MethodHandle[] parameterFilters, MethodHandle returnFilter) {
+      this.parameterFilters = parameterFilters;
+      this.returnFilter = returnFilter;
+    }
+  }
+
+  private static final ClassValue<Map<Method, Guards>> GUARDS =
+      new ClassValue<Map<Method, Guards>>() {
+        @Override
+        protected Map<Method, Guards> computeValue(Class<?> type) {
+          return new ConcurrentHashMap<>();
+        }
+      };
+
+  /**
+   * Returns {@code handle} with null checks for the non-null parameters and return value of
+   * {@code method}.
+   *
+   * <p>{@code handle} must invoke {@code method}: Its parameters are those of {@code method},
+   * optionally preceded by a receiver (as for {@link MethodHandles.Lookup#unreflect} of an instance
+   * method), which is not checked. Its parameter and return types may differ from those of {@code
+   * method} by {@link MethodHandle#asType} conversions. If {@code handle} is a {@linkplain
+   * MethodHandle#isVarargsCollector variable arity} handle, so is the returned handle.
+   *
+   * @throws IllegalArgumentException if {@code handle} has the wrong number of parameters
+   */
+  public static MethodHandle guard(MethodHandle handle, Method method) {
+    int offset = handle.type().parameterCount() - method.getParameterCount();
+    if (offset != 0 && offset != 1) {
+      throw new IllegalArgumentException(handle + " does not invoke " + method);
+    }
+    Guards guards = guardsFor(method);
+    MethodHandle[] last = guards.lastGuarded;
+    if (last != null && last[0] == handle) {
+      return last[1];
+    }
+    MethodHandle guarded = handle;
+    MethodType type = handle.type();
+    for (int i = 0; i < guards.parameterFilters.length; i++) {
+      MethodHandle filter = guards.parameterFilters[i];
+      if (filter != null) {
+        Class<?> parameterType = type.parameterType(offset + i);
+        if (!parameterType.isPrimitive()) {
+          guarded =
+              MethodHandles.filterArguments(
+                  guarded, offset + i, filter.asType(methodType(parameterType, parameterType)));
+        }
+      }
+    }
+    if (guards.returnFilter != null && !type.returnType().isPrimitive()) {
+      Class<?> returnType = type.returnType();
+      guarded =
+          MethodHandles.filterReturnValue(
+              guarded, guards.returnFilter.asType(methodType(returnType, returnType)));
+    }
+    // The filters return fixed-arity handles, which callers of a varargs method can't invoke with
+    // its arguments spread out.
+    if (guarded != handle && handle.isVarargsCollector()) {
+      guarded = guarded.asVarargsCollector(type.parameterType(type.parameterCount() - 1));
+    }
+    guards.lastGuarded = new MethodHandle[] {handle, guarded};
+    return guarded;
+  }
+
+  private static Guards guardsFor(Method method) {
+    Map<Method, Guards> byMethod = GUARDS.get(method.getDeclaringClass());
+    Guards guards = byMethod.get(method);
+    if (guards != null) {
+      return guards;
+    }
+    String descriptor =
+        method.getDeclaringClass().getName()
+            + "."
+            + method.getName()
+            + methodType(method.getReturnType(), method.getParameterTypes())
+                .toMethodDescriptorString();
+    Parameter[] parameters = method.getParameters();
+    MethodHandle[] parameterFilters = new MethodHandle[parameters.length];
+    for (int i = 0; i < parameters.length; i++) {
+      if (!parameters[i].getType().isPrimitive()
+          && NullPlan.isNonNull(AugmentedTypes.parameterType(parameters[i]))) {
+        parameterFilters[i] = filter("non-null parameter " + i + " of " + descriptor);
+      }
+    }
+    MethodHandle returnFilter = null;
+    if (!method.getReturnType().isPrimitive()
+        && NullPlan.isNonNull(AugmentedTypes.returnType(method))) {
+      returnFilter = filter("non-null return value of " + descriptor);
+    }
+    guards = new Guards(parameterFilters, returnFilter);
+    Guards raced = byMethod.putIfAbsent(method, guards);
+    return raced != null ? raced : guards;
+  }
+
+  private static MethodHandle filter(String site) {
+    return MethodHandles.insertArguments(CHECK_NON_NULL, 1, site);
+  }
+
+  private static Object checkNonNull(Object value, String site) {
+    if (value == null) {
+      NullnessViolations.record(site);
+      throw new NullPointerException(site);
+    }
+    return value;
+  }
+
+  private NullGuards() {}
+}
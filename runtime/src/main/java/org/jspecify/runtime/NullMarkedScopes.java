@@ -0,0 +1,188 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.jspecify.annotations.NullUnmarked;
+
+/**
+ * Answers whether a reflected class or member is in <a
+ * href="https://jspecify.dev/docs/api/org/jspecify/annotations/NullMarked.html">null-marked
+ * code</a>.
+ *
+ * <p>An element is null-marked if the innermost element that encloses it (including itself) and
+ * that is annotated with exactly one of {@link org.jspecify.annotations.NullMarked @NullMarked} and
+ * {@link NullUnmarked @NullUnmarked} has {@code @NullMarked}. The enclosing elements are, from the
+ * inside out: a method or constructor; for a local or anonymous class, the method or constructor
+ * that declares it; the enclosing classes; the package; and the module (which can be null-marked
+ * but not null-unmarked).
+ *
+ * <p>The answer for each class is computed once and stored in a {@link ClassValue}, and the
+ * answer for each package and module is computed once per class loader and stored in a way that
+ * doesn't keep the loader alive. After that, every lookup is a constant-time operation that does
+ * not allocate. Each cache miss is reported as an {@code org.jspecify.ScopeResolution} JFR event
+ * (under Java 11 and newer).
+ *
+ * <p>This class works under Java 8, where there are no modules.
+ */
+public final class NullMarkedScopes {
+  /**
+   * {@code NullMarked.class}, which we load by name: Its {@code @Target} includes {@code
+   * ElementType.MODULE}, so javac warns about any mention of it in code compiled for Java 8.
+   */
+  static final Class<? extends Annotation> NULL_MARKED =
+      annotationType("org.jspecify.annotations.NullMarked");
+
+  /** Whether an element's own annotations decide whether it is null-marked. */
+  enum Marking {
+    MARKED,
+    UNMARKED,
+    /** Neither annotation, or both, which cancel each other out. */
+    NONE;
+
+    static Marking of(AnnotatedElement element) {
+      return of(
+          element.isAnnotationPresent(NULL_MARKED),
+          element.isAnnotationPresent(NullUnmarked.class));
+    }
+
+    static Marking of(boolean marked, boolean unmarked) {
+      return marked == unmarked ? NONE : marked ? MARKED : UNMARKED;
+    }
+  }
+
+  /** What we know about a class: its own scope and that of its methods and constructors. */
+  private static final class ClassScope {
+    final boolean nullMarked;
+
+    /**
+     * The methods and constructors of the class whose own annotations decide their scope, or
+     * {@code null} if we couldn't list them, in which case we read their annotations as needed.
+     */
+    final Map<Executable, Boolean> executables;
+
+    ClassScope(boolean nullMarked, Map<Executable, Boolean> executables) {
+      this.nullMarked = nullMarked;
+      this.executables = executables;
+    }
+  }
+
+  private static final ClassValue<ClassScope> CLASS_SCOPES =
+      new ClassValue<ClassScope>() {
+        @Override
+        protected ClassScope computeValue(Class<?> type) {
+          Object event = JfrEvents.beginScopeResolution();
+          ClassScope scope =
+              new ClassScope(computeIsNullMarked(type), executablesWithOwnMarking(type));
+          JfrEvents.endScopeResolution(event, type.getName(), "class", scope.nullMarked);
+          return scope;
+        }
+      };
+
+  /** Returns whether code in {@code type} is null-marked. Primitive and array types are not. */
+  public static boolean isNullMarked(Class<?> type) {
+    return CLASS_SCOPES.get(type).nullMarked;
+  }
+
+  /** Returns whether {@code executable}, including its signature, is null-marked. */
+  public static boolean isNullMarked(Executable executable) {
+    ClassScope scope = CLASS_SCOPES.get(executable.getDeclaringClass());
+    if (scope.executables == null) {
+      Marking marking = Marking.of(executable);
+      return marking == Marking.NONE ? scope.nullMarked : marking == Marking.MARKED;
+    }
+    Boolean own = scope.executables.get(executable);
+    return own != null ? own : scope.nullMarked;
+  }
+
+  /** Returns whether the declaration of {@code field} is null-marked. */
+  public static boolean isNullMarked(Field field) {
+    return isNullMarked(field.getDeclaringClass());
+  }
+
+  /** Returns whether the declaration of {@code parameter} is null-marked. */
+  public static boolean isNullMarked(Parameter parameter) {
+    return isNullMarked(parameter.getDeclaringExecutable());
+  }
+
+  private static boolean computeIsNullMarked(Class<?> type) {
+    if (type.isPrimitive() || type.isArray()) {
+      return false;
+    }
+    Marking marking = Marking.of(type);
+    if (marking != Marking.NONE) {
+      return marking == Marking.MARKED;
+    }
+    Method enclosingMethod = type.getEnclosingMethod();
+    if (enclosingMethod != null) {
+      return isNullMarked(enclosingMethod);
+    }
+    Constructor<?> enclosingConstructor = type.getEnclosingConstructor();
+    if (enclosingConstructor != null) {
+      return isNullMarked(enclosingConstructor);
+    }
+    Class<?> enclosingClass = type.getEnclosingClass();
+    if (enclosingClass != null) {
+      return isNullMarked(enclosingClass);
+    }
+    return ContainerScopes.isNullMarked(type);
+  }
+
+  private static Map<Executable, Boolean> executablesWithOwnMarking(Class<?> type) {
+    Executable[] methods;
+    Executable[] constructors;
+    try {
+      methods = type.getDeclaredMethods();
+      constructors = type.getDeclaredConstructors();
+    } catch (LinkageError | SecurityException e) {
+      // Some type in a signature is missing, or we're not allowed to look.
+      return null;
+    }
+    Map<Executable, Boolean> result = null;
+    for (Executable[] executables : new Executable[][] {methods, constructors}) {
+      for (Executable executable : executables) {
+        Marking marking = Marking.of(executable);
+        if (marking != Marking.NONE) {
+          if (result == null) {
+            result = new HashMap<>();
+          }
+          result.put(executable, marking == Marking.MARKED);
+        }
+      }
+    }
+    return result == null ? Collections.<Executable, Boolean>emptyMap() : result;
+  }
+
+  private static Class<? extends Annotation> annotationType(String name) {
+    try {
+      return Class.forName(name, false, NullMarkedScopes.class.getClassLoader())
+          .asSubclass(Annotation.class);
+    } catch (ClassNotFoundException e) {
+      throw new NoClassDefFoundError(name);
+    }
+  }
+
+  private NullMarkedScopes() {}
+}
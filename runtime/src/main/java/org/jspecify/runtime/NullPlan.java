@@ -0,0 +1,207 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Which of the instance fields, record components, and constructor parameters of a class exclude
+ * {@code null}, for serializers and binders that would otherwise ask {@link AugmentedTypes} for
+ * every value they read or write.
+ *
+ * <p>A position is non-null if its {@linkplain AugmentedTypes augmented type} is primitive, is
+ * annotated {@link org.jspecify.annotations.NonNull @NonNull}, or is an unannotated type in
+ * null-marked code other than a type variable. Type variables are left out even in null-marked
+ * code, because whether they include {@code null} depends on the type argument, which reflection
+ * on the class alone can't see. Unspecified and nullable positions are never non-null.
+ *
+ * <p>The component of a record has the type of the private field that stores it, so the bits of
+ * {@link #recordComponents()} repeat those of the corresponding {@link #fields()}. They are there
+ * so that a record binder can work in component order without matching names.
+ *
+ * <p>Each plan is computed once and stored in a {@link ClassValue}. All answers are kept in one
+ * bitset, so after that, a check is an array read and a mask.
+ */
+public final class NullPlan {
+  private static final ClassValue<NullPlan> PLANS =
+      new ClassValue<NullPlan>() {
+        @Override
+        protected NullPlan computeValue(Class<?> type) {
+          return new NullPlan(type);
+        }
+      };
+
+  /** Returns the plan for {@code type}. */
+  public static NullPlan of(Class<?> type) {
+    return PLANS.get(type);
+  }
+
+  private final Class<?> type;
+  private final List<Field> fields;
+  private final List<String> recordComponents;
+  private final List<Constructor<?>> constructors;
+
+  /**
+   * The index of the first bit of each constructor's parameters, followed by the total number of
+   * bits. The bits of the fields and then of the record components come before them.
+   */
+  private final int[] constructorOffsets;
+
+  private final long[] bits;
+
+  private NullPlan(Class<?> type) {
+    this.type = type;
+    List<Field> fields = new ArrayList<>();
+    for (Field field : type.getDeclaredFields()) {
+      if (!Modifier.isStatic(field.getModifiers()) && !field.isSynthetic()) {
+        fields.add(field);
+      }
+    }
+    String[] componentNames = Records.componentNames(type);
+    List<String> recordComponents =
+        componentNames == null ? Collections.<String>emptyList() : asList(componentNames);
+    List<Constructor<?>> constructors = asList(type.getDeclaredConstructors());
+
+    constructorOffsets = new int[constructors.size() + 1];
+    int size = fields.size() + recordComponents.size();
+    for (int i = 0; i < constructors.size(); i++) {
+      constructorOffsets[i] = size;
+      size += constructors.get(i).getParameterCount();
+    }
+    constructorOffsets[constructors.size()] = size;
+
+    bits = new long[(size + 63) >>> 6];
+    int bit = 0;
+    for (Field field : fields) {
+      setIf(bit++, isNonNull(AugmentedTypes.fieldType(field)));
+    }
+    for (String component : recordComponents) {
+      setIf(bit++, isNonNullComponent(type, component));
+    }
+    for (Constructor<?> constructor : constructors) {
+      for (Parameter parameter : constructor.getParameters()) {
+        setIf(bit++, isNonNull(AugmentedTypes.parameterType(parameter)));
+      }
+    }
+
+    this.fields = unmodifiableList(fields);
+    this.recordComponents = unmodifiableList(recordComponents);
+    this.constructors = unmodifiableList(constructors);
+  }
+
+  /** Returns the class that this plan is for. */
+  public Class<?> type() {
+    return type;
+  }
+
+  /**
+   * Returns the instance fields that the class declares, excluding synthetic ones (such as the
+   * reference to the enclosing instance of an inner class).
+   */
+  public List<Field> fields() {
+    return fields;
+  }
+
+  /** Returns whether the field at {@code index} in {@link #fields()} excludes {@code null}. */
+  public boolean isNonNullField(int index) {
+    checkIndex(index, fields.size());
+    return isSet(index);
+  }
+
+  /** Returns the names of the record components in order, or nothing if this is not a record. */
+  public List<String> recordComponents() {
+    return recordComponents;
+  }
+
+  /**
+   * Returns whether the record component at {@code index} in {@link #recordComponents()} excludes
+   * {@code null}.
+   */
+  public boolean isNonNullRecordComponent(int index) {
+    checkIndex(index, recordComponents.size());
+    return isSet(fields.size() + index);
+  }
+
+  /** Returns the constructors that the class declares, whatever their visibility. */
+  public List<Constructor<?>> constructors() {
+    return constructors;
+  }
+
+  /**
+   * Returns whether parameter {@code parameter} of the constructor at {@code constructor} in
+   * {@link #constructors()} excludes {@code null}. The parameters are those of {@link
+   * Constructor#getParameters()}, which for an inner class start with the enclosing instance and
+   * for an enum with the constant's name and ordinal. Parameters whose annotations reflection can't
+   * match up with them have unspecified nullness (see {@link AugmentedTypes#parameterType}), so
+   * they are never non-null.
+   */
+  public boolean isNonNullParameter(int constructor, int parameter) {
+    checkIndex(constructor, constructors.size());
+    int offset = constructorOffsets[constructor];
+    checkIndex(parameter, constructorOffsets[constructor + 1] - offset);
+    return isSet(offset + parameter);
+  }
+
+  @Override
+  public String toString() {
+    return "NullPlan(" + type.getName() + ")";
+  }
+
+  /** Returns whether values of {@code type} exclude {@code null}, by the rules above. */
+  static boolean isNonNull(AugmentedType type) {
+    switch (type.nullnessOperator()) {
+      case MINUS_NULL:
+        return true;
+      case NO_CHANGE:
+        return type.kind() != AugmentedType.Kind.TYPE_VARIABLE;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isNonNullComponent(Class<?> record, String component) {
+    try {
+      return isNonNull(AugmentedTypes.fieldType(record.getDeclaredField(component)));
+    } catch (NoSuchFieldException e) {
+      throw new LinkageError("record " + record.getName() + " has no field " + component, e);
+    }
+  }
+
+  private void setIf(int bit, boolean value) {
+    if (value) {
+      bits[bit >>> 6] |= 1L << bit;
+    }
+  }
+
+  private boolean isSet(int bit) {
+    return (bits[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  private static void checkIndex(int index, int size) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + " out of bounds for size " + size);
+    }
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.jspecify.runtime.NullnessIndexFormat.CLASS_ENTRY_SIZE;
+import static org.jspecify.runtime.NullnessIndexFormat.HEADER_SIZE;
+import static org.jspecify.runtime.NullnessIndexFormat.MAGIC;
+import static org.jspecify.runtime.NullnessIndexFormat.MEMBER_ENTRY_SIZE;
+import static org.jspecify.runtime.NullnessIndexFormat.NULL_MARKED;
+import static org.jspecify.runtime.NullnessIndexFormat.RESOURCE;
+import static org.jspecify.runtime.NullnessIndexFormat.SEPARATOR;
+import static org.jspecify.runtime.NullnessIndexFormat.VERSION;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Answers nullness questions about classes from the indexes that {@link NullnessIndexProcessor}
+ * wrote into {@code META-INF/jspecify/} at compile time, without loading the classes or reading
+ * their annotations by reflection.
+ *
+ * <p>Indexes in directories are memory-mapped; those in jars are read into memory once. Lookups
+ * binary-search the class table in place, so loading an index costs the same no matter how many
+ * classes it covers.
+ *
+ * <p>The index knows only classes that were compiled with the processor. Local and anonymous
+ * classes, and constructors that get synthetic parameters (those of enums and inner classes), are
+ * never indexed. For everything else, each lookup method returns {@code null}, and the caller
+ * should fall back to {@link NullMarkedScopes} or {@link AugmentedTypes}.
+ */
+public final class NullnessIndex {
+  private final List<ByteBuffer> indexes;
+
+  private NullnessIndex(List<ByteBuffer> indexes) {
+    this.indexes = indexes;
+  }
+
+  /** Loads every index that {@code loader} can see. */
+  public static NullnessIndex load(ClassLoader loader) throws IOException {
+    List<ByteBuffer> indexes = new ArrayList<>();
+    for (Enumeration<URL> urls = loader.getResources(RESOURCE); urls.hasMoreElements(); ) {
+      indexes.add(read(urls.nextElement()));
+    }
+    return new NullnessIndex(Collections.unmodifiableList(indexes));
+  }
+
+  /** Returns an index backed by the given contents of an index file. */
+  static NullnessIndex of(ByteBuffer index) throws IOException {
+    return new NullnessIndex(Collections.singletonList(check(index.duplicate())));
+  }
+
+  /**
+   * Returns whether the class with the given binary name is null-marked, or {@code null} if it is
+   * not indexed.
+   */
+  public Boolean isNullMarked(String className) {
+    for (ByteBuffer index : indexes) {
+      int record = findClass(index, className.getBytes(UTF_8));
+      if (record >= 0) {
+        return (index.get(record) & NULL_MARKED) != 0;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the nullness operators of the augmented type of the given field, in the order in which
+   * they appear in {@link AugmentedType#toString}, or {@code null} if the field is not indexed.
+   */
+  public List<NullnessOperator> fieldNullness(String className, String fieldName) {
+    return nullness(className, fieldName, null, 0);
+  }
+
+  /**
+   * Returns the nullness operators of the augmented return type of the method with the given name
+   * and JVM descriptor, in the order in which they appear in {@link AugmentedType#toString}, or
+   * {@code null} if the method is not indexed.
+   */
+  public List<NullnessOperator> returnNullness(
+      String className, String methodName, String descriptor) {
+    return nullness(className, methodName, descriptor, 0);
+  }
+
+  /**
+   * Returns the nullness operators of the augmented type of the given parameter of the method (or
+   * constructor, named {@code <init>}) with the given name and JVM descriptor, in the order in
+   * which they appear in {@link AugmentedType#toString}, or {@code null} if the method is not
+   * indexed.
+   */
+  public List<NullnessOperator> parameterNullness(
+      String className, String methodName, String descriptor, int parameter) {
+    if (parameter < 0) {
+      throw new IndexOutOfBoundsException("parameter " + parameter);
+    }
+    return nullness(className, methodName, descriptor, parameter + 1);
+  }
+
+  /**
+   * Returns the {@code part}th list of operators (0 for a field or return type, 1 + n for the nth
+   * parameter) of a member, which is a field if {@code descriptor} is {@code null}.
+   */
+  private List<NullnessOperator> nullness(
+      String className, String memberName, String descriptor, int part) {
+    byte[] classBytes = className.getBytes(UTF_8);
+    byte[] nameBytes = memberName.getBytes(UTF_8);
+    byte[] descriptorBytes = descriptor == null ? null : descriptor.getBytes(UTF_8);
+    for (ByteBuffer index : indexes) {
+      int record = findClass(index, classBytes);
+      if (record < 0) {
+        continue;
+      }
+      int memberCount = index.getShort(record + 1) & 0xFFFF;
+      for (int i = 0; i < memberCount; i++) {
+        int entry = record + 3 + i * MEMBER_ENTRY_SIZE;
+        int memberDescriptor = index.getInt(entry + 4);
+        boolean isField = index.get(memberDescriptor + 2) != '(';
+        if (isField == (descriptor == null)
+            && compare(index, index.getInt(entry), nameBytes) == 0
+            && (descriptor == null || compare(index, memberDescriptor, descriptorBytes) == 0)) {
+          return parse(index, index.getInt(entry + 8), part);
+        }
+      }
+      return null;
+    }
+    return null;
+  }
+
+  /** Returns the offset of the record for {@code className}, or -1 if there is none. */
+  private static int findClass(ByteBuffer index, byte[] className) {
+    int low = 0;
+    int high = index.getInt(6) - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int entry = HEADER_SIZE + mid * CLASS_ENTRY_SIZE;
+      int c = compare(index, index.getInt(entry), className);
+      if (c < 0) {
+        low = mid + 1;
+      } else if (c > 0) {
+        high = mid - 1;
+      } else {
+        return index.getInt(entry + 4);
+      }
+    }
+    return -1;
+  }
+
+  /** Compares the string at {@code offset} to {@code bytes} as unsigned bytes. */
+  private static int compare(ByteBuffer index, int offset, byte[] bytes) {
+    int length = index.getShort(offset) & 0xFFFF;
+    int common = Math.min(length, bytes.length);
+    for (int i = 0; i < common; i++) {
+      int diff = (index.get(offset + 2 + i) & 0xFF) - (bytes[i] & 0xFF);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return length - bytes.length;
+  }
+
+  private static List<NullnessOperator> parse(ByteBuffer index, int offset, int part) {
+    int length = index.getShort(offset) & 0xFFFF;
+    int start = offset + 2;
+    int end = start + length;
+    for (int i = start; i < end && part > 0; i++) {
+      if (index.get(i) == SEPARATOR) {
+        part--;
+        start = i + 1;
+      }
+    }
+    if (part > 0) {
+      throw new IndexOutOfBoundsException("no such parameter");
+    }
+    List<NullnessOperator> operators = new ArrayList<>();
+    for (int i = start; i < end && index.get(i) != SEPARATOR; i++) {
+      operators.add(NullnessIndexFormat.operator((char) index.get(i)));
+    }
+    return Collections.unmodifiableList(operators);
+  }
+
+  private static ByteBuffer read(URL url) throws IOException {
+    Object event = JfrEvents.beginIndexLoad();
+    boolean mapped = url.getProtocol().equals("file");
+    ByteBuffer index = mapped ? map(url) : readFully(url);
+    JfrEvents.endIndexLoad(event, url.toString(), index.limit(), mapped);
+    return check(index);
+  }
+
+  private static ByteBuffer map(URL url) throws IOException {
+    Path path;
+    try {
+      path = Paths.get(url.toURI());
+    } catch (URISyntaxException e) {
+      throw new IOException("bad index location: " + url, e);
+    }
+    try (FileChannel channel = FileChannel.open(path, READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+
+  private static ByteBuffer readFully(URL url) throws IOException {
+    try (InputStream in = url.openStream()) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      for (int n; (n = in.read(buffer)) > 0; ) {
+        bytes.write(buffer, 0, n);
+      }
+      return ByteBuffer.wrap(bytes.toByteArray());
+    }
+  }
+
+  private static ByteBuffer check(ByteBuffer index) throws IOException {
+    if (index.limit() < HEADER_SIZE || index.getInt(0) != MAGIC) {
+      throw new IOException("not a nullness index");
+    }
+    int version = index.getShort(4) & 0xFFFF;
+    if (version != VERSION) {
+      throw new IOException("unsupported nullness index version: " + version);
+    }
+    return index;
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The layout of the index that {@link NullnessIndexProcessor} writes and {@link NullnessIndex}
+ * reads. All numbers are big-endian, and all offsets are from the start of the file:
+ *
+ * <pre>
+ * u4 magic ("JSNI"), u2 version, u4 classCount
+ * classCount x { u4 nameOffset, u4 recordOffset }, sorted by the UTF-8 bytes of the name
+ * records:     { u1 flags, u2 memberCount, memberCount x { u4 name, u4 descriptor, u4 nullness } }
+ * strings:     { u2 length, length bytes of UTF-8 }, each stored once
+ * </pre>
+ *
+ * <p>Class names are binary names, like {@code java.util.Map$Entry}. Members are fields, methods,
+ * and constructors (named {@code <init>}), with JVM descriptors. The nullness of a field is the
+ * {@linkplain #code code} of each nullness operator in its augmented type, in the order in which
+ * they appear in {@link AugmentedType#toString}. That of a method is the same for its return type
+ * and then each parameter, separated by {@code ;}.
+ */
+final class NullnessIndexFormat {
+  /** The resource that holds the index of the classes in a jar or directory. */
+  static final String RESOURCE = "META-INF/jspecify/nullness.index";
+
+  static final int MAGIC = 0x4A534E49;
+  static final int VERSION = 1;
+
+  static final int HEADER_SIZE = 10;
+  static final int CLASS_ENTRY_SIZE = 8;
+  static final int MEMBER_ENTRY_SIZE = 12;
+
+  /** Set in a record's flags if the class is null-marked. */
+  static final int NULL_MARKED = 1;
+
+  static final char SEPARATOR = ';';
+
+  static char code(NullnessOperator operator) {
+    switch (operator) {
+      case UNION_NULL:
+        return '?';
+      case MINUS_NULL:
+        return '!';
+      case NO_CHANGE:
+        return '.';
+      case UNSPECIFIED:
+        return '*';
+    }
+    throw new AssertionError(operator);
+  }
+
+  static NullnessOperator operator(char code) {
+    switch (code) {
+      case '?':
+        return NullnessOperator.UNION_NULL;
+      case '!':
+        return NullnessOperator.MINUS_NULL;
+      case '.':
+        return NullnessOperator.NO_CHANGE;
+      case '*':
+        return NullnessOperator.UNSPECIFIED;
+      default:
+        throw new IllegalArgumentException("bad nullness code: " + code);
+    }
+  }
+
+  /** Accumulates classes and then writes them in the format above. */
+  static final class Writer {
+    private static final class Member {
+      final String name;
+      final String descriptor;
+      final String nullness;
+
+      Member(String name, String descriptor, String nullness) {
+        this.name = name;
+        this.descriptor = descriptor;
+        this.nullness = nullness;
+      }
+    }
+
+    private static final class ClassRecord {
+      final byte[] name;
+      final boolean nullMarked;
+      final List<Member> members = new ArrayList<>();
+
+      ClassRecord(String name, boolean nullMarked) {
+        this.name = name.getBytes(UTF_8);
+        this.nullMarked = nullMarked;
+      }
+    }
+
+    private final Map<String, ClassRecord> classes = new HashMap<>();
+
+    /** Adds a class, replacing any earlier class of the same name. */
+    void addClass(String binaryName, boolean nullMarked) {
+      classes.put(binaryName, new ClassRecord(binaryName, nullMarked));
+    }
+
+    /** Adds a member to the class most recently added under {@code binaryName}. */
+    void addMember(String binaryName, String name, String descriptor, String nullness) {
+      classes.get(binaryName).members.add(new Member(name, descriptor, nullness));
+    }
+
+    boolean isEmpty() {
+      return classes.isEmpty();
+    }
+
+    /**
+     * Returns the index. Throws {@link IllegalArgumentException} if a class has more members, or a
+     * string more bytes, than the format can count.
+     */
+    byte[] toByteArray() {
+      List<ClassRecord> sorted = new ArrayList<>(classes.values());
+      sorted.sort(Comparator.comparing(c -> c.name, NullnessIndexFormat::compareUnsigned));
+
+      int recordsStart = HEADER_SIZE + CLASS_ENTRY_SIZE * sorted.size();
+      int stringsStart = recordsStart;
+      for (ClassRecord c : sorted) {
+        // The count is a u2, but a class may have up to 0xFFFF fields and as many methods.
+        if (c.members.size() > 0xFFFF) {
+          throw new IllegalArgumentException(
+              "too many members for the index: " + new String(c.name, UTF_8));
+        }
+        stringsStart += 3 + MEMBER_ENTRY_SIZE * c.members.size();
+      }
+      StringPool strings = new StringPool(stringsStart);
+
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (DataOutputStream out = new DataOutputStream(bytes)) {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(sorted.size());
+        int recordOffset = recordsStart;
+        for (ClassRecord c : sorted) {
+          out.writeInt(strings.offsetOf(c.name));
+          out.writeInt(recordOffset);
+          recordOffset += 3 + MEMBER_ENTRY_SIZE * c.members.size();
+        }
+        for (ClassRecord c : sorted) {
+          out.writeByte(c.nullMarked ? NULL_MARKED : 0);
+          out.writeShort(c.members.size());
+          for (Member m : c.members) {
+            out.writeInt(strings.offsetOf(m.name.getBytes(UTF_8)));
+            out.writeInt(strings.offsetOf(m.descriptor.getBytes(UTF_8)));
+            out.writeInt(strings.offsetOf(m.nullness.getBytes(UTF_8)));
+          }
+        }
+        strings.writeTo(out);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e); // ByteArrayOutputStream doesn't throw.
+      }
+      return bytes.toByteArray();
+    }
+  }
+
+  /** Assigns each distinct string an offset in the string section, in order of first use. */
+  private static final class StringPool {
+    private final Map<String, Integer> offsets = new HashMap<>();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final int start;
+
+    StringPool(int start) {
+      this.start = start;
+    }
+
+    int offsetOf(byte[] utf8) {
+      if (utf8.length > 0xFFFF) {
+        throw new IllegalArgumentException("string too long for the index");
+      }
+      String key = new String(utf8, UTF_8);
+      Integer offset = offsets.get(key);
+      if (offset == null) {
+        offset = start + bytes.size();
+        offsets.put(key, offset);
+        bytes.write(utf8.length >>> 8);
+        bytes.write(utf8.length);
+        bytes.write(utf8, 0, utf8.length);
+      }
+      return offset;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+      bytes.writeTo(out);
+    }
+  }
+
+  static int compareUnsigned(byte[] a, byte[] b) {
+    int length = Math.min(a.length, b.length);
+    for (int i = 0; i < length; i++) {
+      int diff = (a[i] & 0xFF) - (b[i] & 0xFF);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return a.length - b.length;
+  }
+
+  private NullnessIndexFormat() {}
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Set;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+
+/**
+ * Writes a {@link NullnessIndex} of the classes being compiled into {@value
+ * NullnessIndexFormat#RESOURCE}, so that at runtime we can answer nullness questions about them
+ * without reflection.
+ *
+ * <p>The processor runs whenever this library is on the annotation processor path. It looks at
+ * every class, not just annotated ones, since a class may be null-marked because of its package,
+ * and it never claims any annotations.
+ *
+ * <p>javac 8 doesn't show type annotations to processors, so under it we write no index rather than
+ * a wrong one.
+ */
+public final class NullnessIndexProcessor extends AbstractProcessor {
+  private static final String NULL_MARKED = "org.jspecify.annotations.NullMarked";
+  private static final String NULL_UNMARKED = "org.jspecify.annotations.NullUnmarked";
+  private static final String NULLABLE = "org.jspecify.annotations.Nullable";
+  private static final String NON_NULL = "org.jspecify.annotations.NonNull";
+
+  private final NullnessIndexFormat.Writer index = new NullnessIndexFormat.Writer();
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton("*");
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    if (SourceVersion.latestSupported().compareTo(SourceVersion.RELEASE_8) <= 0) {
+      if (roundEnv.processingOver()) {
+        processingEnv
+            .getMessager()
+            .printMessage(
+                Diagnostic.Kind.WARNING, "not writing a nullness index: javac 9 or newer required");
+      }
+      return false;
+    }
+    if (roundEnv.processingOver()) {
+      write();
+    } else {
+      for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+        addClass(type);
+      }
+    }
+    return false;
+  }
+
+  private void addClass(TypeElement type) {
+    String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+    index.addClass(className, isNullMarked(type));
+    for (Element member : type.getEnclosedElements()) {
+      switch (member.getKind()) {
+        case FIELD:
+        case ENUM_CONSTANT:
+          VariableElement field = (VariableElement) member;
+          index.addMember(
+              className,
+              field.getSimpleName().toString(),
+              descriptor(field.asType()),
+              nullness(field.asType(), isNullMarked(field)));
+          break;
+        case CONSTRUCTOR:
+          if (!hasSyntheticConstructorParameters(type)) {
+            addMethod(className, (ExecutableElement) member);
+          }
+          break;
+        case METHOD:
+          addMethod(className, (ExecutableElement) member);
+          break;
+        default:
+          if (member instanceof TypeElement) {
+            addClass((TypeElement) member);
+          }
+      }
+    }
+  }
+
+  private void addMethod(String className, ExecutableElement method) {
+    boolean nullMarked = isNullMarked(method);
+    StringBuilder descriptor = new StringBuilder("(");
+    StringBuilder nullness = new StringBuilder(nullness(method.getReturnType(), nullMarked));
+    for (VariableElement parameter : method.getParameters()) {
+      descriptor.append(descriptor(parameter.asType()));
+      nullness.append(NullnessIndexFormat.SEPARATOR);
+      nullness.append(nullness(parameter.asType(), nullMarked));
+    }
+    descriptor.append(')').append(descriptor(method.getReturnType()));
+    index.addMember(
+        className, method.getSimpleName().toString(), descriptor.toString(), nullness.toString());
+  }
+
+  /**
+   * Returns whether javac adds parameters to the constructors of {@code type}: the outer instance
+   * for an inner class, and the name and ordinal for an enum.
+   */
+  private static boolean hasSyntheticConstructorParameters(TypeElement type) {
+    return type.getKind() == ElementKind.ENUM
+        || (type.getKind() == ElementKind.CLASS
+            && type.getNestingKind() == NestingKind.MEMBER
+            && !type.getModifiers().contains(Modifier.STATIC));
+  }
+
+  private void write() {
+    if (index.isEmpty()) {
+      return;
+    }
+    try (OutputStream out =
+        processingEnv
+            .getFiler()
+            .createResource(StandardLocation.CLASS_OUTPUT, "", NullnessIndexFormat.RESOURCE)
+            .openOutputStream()) {
+      out.write(index.toByteArray());
+    } catch (IOException | IllegalArgumentException e) {
+      processingEnv
+          .getMessager()
+          .printMessage(Diagnostic.Kind.ERROR, "cannot write nullness index: " + e);
+    }
+  }
+
+  /** Like {@link NullMarkedScopes#isNullMarked}, but for the elements being compiled. */
+  private static boolean isNullMarked(Element element) {
+    // The chain of enclosing elements ends with the package or, under Java 9+, the module.
+    for (Element e = element; e != null; e = e.getEnclosingElement()) {
+      boolean marked = hasAnnotation(e.getAnnotationMirrors(), NULL_MARKED);
+      boolean unmarked = hasAnnotation(e.getAnnotationMirrors(), NULL_UNMARKED);
+      if (marked != unmarked) {
+        return marked;
+      }
+    }
+    return false;
+  }
+
+  /** Returns the nullness codes of {@code type}, as {@link AugmentedTypes} would compute them. */
+  private static String nullness(TypeMirror type, boolean nullMarked) {
+    StringBuilder codes = new StringBuilder();
+    appendNullness(type, nullMarked, codes);
+    return codes.toString();
+  }
+
+  private static void appendNullness(TypeMirror type, boolean nullMarked, StringBuilder codes) {
+    if (type.getKind().isPrimitive() || type.getKind() == TypeKind.VOID) {
+      codes.append(NullnessIndexFormat.code(NullnessOperator.NO_CHANGE));
+      return;
+    }
+    boolean nullable = hasAnnotation(type.getAnnotationMirrors(), NULLABLE);
+    boolean nonNull = hasAnnotation(type.getAnnotationMirrors(), NON_NULL);
+    NullnessOperator operator =
+        nullable != nonNull
+            ? nullable ? NullnessOperator.UNION_NULL : NullnessOperator.MINUS_NULL
+            : unannotated(nullMarked);
+    codes.append(NullnessIndexFormat.code(operator));
+    if (type.getKind() == TypeKind.ARRAY) {
+      appendNullness(((ArrayType) type).getComponentType(), nullMarked, codes);
+    } else if (type.getKind() == TypeKind.DECLARED) {
+      for (TypeMirror argument : ((DeclaredType) type).getTypeArguments()) {
+        if (argument.getKind() == TypeKind.WILDCARD) {
+          WildcardType wildcard = (WildcardType) argument;
+          codes.append(NullnessIndexFormat.code(NullnessOperator.NO_CHANGE));
+          if (wildcard.getExtendsBound() == null) {
+            codes.append(NullnessIndexFormat.code(unannotated(nullMarked)));
+          } else {
+            appendNullness(wildcard.getExtendsBound(), nullMarked, codes);
+          }
+          if (wildcard.getSuperBound() != null) {
+            appendNullness(wildcard.getSuperBound(), nullMarked, codes);
+          }
+        } else {
+          appendNullness(argument, nullMarked, codes);
+        }
+      }
+    }
+  }
+
+  private static NullnessOperator unannotated(boolean nullMarked) {
+    return nullMarked ? NullnessOperator.NO_CHANGE : NullnessOperator.UNSPECIFIED;
+  }
+
+  private String descriptor(TypeMirror type) {
+    TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+    switch (erased.getKind()) {
+      case BOOLEAN:
+        return "Z";
+      case BYTE:
+        return "B";
+      case CHAR:
+        return "C";
+      case SHORT:
+        return "S";
+      case INT:
+        return "I";
+      case LONG:
+        return "J";
+      case FLOAT:
+        return "F";
+      case DOUBLE:
+        return "D";
+      case VOID:
+        return "V";
+      case ARRAY:
+        return "[" + descriptor(((ArrayType) erased).getComponentType());
+      case DECLARED:
+        TypeElement element = (TypeElement) ((DeclaredType) erased).asElement();
+        String name = processingEnv.getElementUtils().getBinaryName(element).toString();
+        return "L" + name.replace('.', '/') + ";";
+      default:
+        throw new IllegalArgumentException("no descriptor for " + type);
+    }
+  }
+
+  private static boolean hasAnnotation(
+      Iterable<? extends AnnotationMirror> annotations, String name) {
+    for (AnnotationMirror annotation : annotations) {
+      Element type = annotation.getAnnotationType().asElement();
+      if (((TypeElement) type).getQualifiedName().contentEquals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+/**
+ * How a type usage relates to {@code null}, as defined in the <a
+ * href="https://jspecify.dev/docs/spec#augmented-type">"Augmented type"</a> section of the
+ * specification.
+ */
+public enum NullnessOperator {
+  /** The type includes {@code null}, as for a usage annotated {@code @Nullable}. */
+  UNION_NULL("?"),
+
+  /**
+   * The type excludes {@code null}, as for a usage annotated {@code @NonNull}, even if it is a type
+   * variable whose argument includes {@code null}.
+   */
+  MINUS_NULL("!"),
+
+  /**
+   * The type includes {@code null} exactly when the underlying type does: never for a class or
+   * array type, and only if its argument does for a type variable. This is the operator of
+   * unannotated usages in null-marked code.
+   */
+  NO_CHANGE(""),
+
+  /** We don't know whether the type includes {@code null}, as for usages in unmarked code. */
+  UNSPECIFIED("*");
+
+  /** The suffix that the specification uses for this operator, as in {@code String?}. */
+  final String suffix;
+
+  NullnessOperator(String suffix) {
+    this.suffix = suffix;
+  }
+}
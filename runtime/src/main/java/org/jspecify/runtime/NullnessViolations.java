@@ -0,0 +1,46 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import java.util.Map;
+
+/**
+ * Reports violations of null contracts as JDK Flight Recorder events, so that existing JFR
+ * pipelines can attribute them to the code that caused them. Under Java 8, these methods do
+ * nothing.
+ *
+ * <p>The events are {@code org.jspecify.NullContractViolation}, which carries the stack trace of
+ * the caller, and {@code org.jspecify.NullContractViolationCount}, for tools that count violations
+ * rather than reporting each one.
+ */
+public final class NullnessViolations {
+  /**
+   * Records a violation at the given site, such as {@code "non-null parameter 0 of
+   * com.example.Foo.bar(Ljava/lang/String;)V"}.
+   */
+  public static void record(String site) {
+    JfrEvents.violation(site);
+  }
+
+  /** Records a snapshot of the number of violations so far at each site. */
+  public static void recordCounts(Map<String, Long> counts) {
+    for (Map.Entry<String, Long> entry : counts.entrySet()) {
+      JfrEvents.violationCount(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private NullnessViolations() {}
+}
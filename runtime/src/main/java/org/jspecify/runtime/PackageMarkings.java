@@ -0,0 +1,78 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import org.jspecify.runtime.NullMarkedScopes.Marking;
+
+/**
+ * Reads whether a package is annotated {@code @NullMarked} or {@code @NullUnmarked}, under Java 8.
+ *
+ * <p>This version reads the {@code package-info.class} file with {@link ClassFileAnnotations}
+ * instead of loading the class, so it doesn't depend on which parts of annotation reflection work
+ * under Java 8 (where reading the annotations of {@code @NullMarked} itself fails, because its
+ * {@code @Target} includes {@code MODULE}), and it saves loading a class per package. Multi-release
+ * jars don't exist under Java 8, so the unversioned class file is the right one to read. Under Java
+ * 9 and newer, the multi-release jar replaces this with a version that uses reflection.
+ */
+final class PackageMarkings {
+  private static final String NULL_MARKED = "Lorg/jspecify/annotations/NullMarked;";
+  private static final String NULL_UNMARKED = "Lorg/jspecify/annotations/NullUnmarked;";
+
+  /** Returns how the named package, as {@code loader} defines it, is annotated. */
+  static Marking of(String packageName, ClassLoader loader) {
+    if (loader == null) {
+      // We can't read the bootstrap loader's resources directly.
+      return ofLoadedClass(packageName);
+    }
+    String path = packageName.replace('.', '/') + "/package-info.class";
+    List<String> annotations;
+    try (InputStream in = loader.getResourceAsStream(path)) {
+      if (in == null) {
+        return Marking.NONE;
+      }
+      annotations = ClassFileAnnotations.annotationDescriptors(readFully(in));
+    } catch (IOException | IllegalArgumentException e) {
+      // The class loader would fail to load it, too.
+      return Marking.NONE;
+    }
+    return Marking.of(annotations.contains(NULL_MARKED), annotations.contains(NULL_UNMARKED));
+  }
+
+  private static Marking ofLoadedClass(String packageName) {
+    Class<?> packageInfo;
+    try {
+      packageInfo = Class.forName(packageName + ".package-info", false, null);
+    } catch (ClassNotFoundException | LinkageError e) {
+      return Marking.NONE;
+    }
+    return Marking.of(packageInfo);
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    for (int n; (n = in.read(buffer)) > 0; ) {
+      bytes.write(buffer, 0, n);
+    }
+    return bytes.toByteArray();
+  }
+
+  private PackageMarkings() {}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/** Access to records, which we can reach only by reflection because we run on Java 8. */
+final class Records {
+  /** {@code Class.getRecordComponents()}, or {@code null} before Java 16. */
+  private static final Method GET_RECORD_COMPONENTS = getRecordComponentsMethod();
+
+  /** {@code RecordComponent.getName()}, or {@code null} before Java 16. */
+  private static final Method GET_NAME = getNameMethod();
+
+  /**
+   * Returns the names of the components of {@code type} in declaration order, or {@code null} if
+   * it is not a record (as no class is before Java 16).
+   */
+  static String[] componentNames(Class<?> type) {
+    if (GET_RECORD_COMPONENTS == null) {
+      return null;
+    }
+    try {
+      Object[] components = (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+      if (components == null) {
+        return null;
+      }
+      String[] names = new String[components.length];
+      for (int i = 0; i < components.length; i++) {
+        names[i] = (String) GET_NAME.invoke(components[i]);
+      }
+      return names;
+    } catch (IllegalAccessException e) {
+      throw new LinkageError("cannot call Class.getRecordComponents()", e);
+    } catch (InvocationTargetException e) {
+      throw new LinkageError("Class.getRecordComponents() failed", e.getCause());
+    }
+  }
+
+  private static Method getRecordComponentsMethod() {
+    try {
+      return Class.class.getMethod("getRecordComponents");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static Method getNameMethod() {
+    if (GET_RECORD_COMPONENTS == null) {
+      return null;
+    }
+    try {
+      return GET_RECORD_COMPONENTS.getReturnType().getComponentType().getMethod("getName");
+    } catch (NoSuchMethodException e) {
+      throw new LinkageError("RecordComponent has no getName()", e);
+    }
+  }
+
+  private Records() {}
+}
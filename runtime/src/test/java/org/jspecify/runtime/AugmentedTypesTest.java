@@ -0,0 +1,194 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.jspecify.runtime.AugmentedType.Kind;
+import org.junit.jupiter.api.Test;
+
+class AugmentedTypesTest {
+  @NullMarked
+  static class Marked<T extends @Nullable Object> {
+    String plain = "";
+    @Nullable String nullable;
+    int primitive;
+    @Nullable String @Nullable [] array;
+    Map<String, @Nullable Integer> map = null;
+    @Nullable T nullableT;
+    @NonNull T nonNullT = null;
+
+    List<?> unbounded() {
+      return null;
+    }
+
+    List<? super String> lowerBounded() {
+      return null;
+    }
+
+    List<? extends @Nullable Number> upperBounded() {
+      return null;
+    }
+
+    <U extends Comparable<U>> void generic(@Nullable U u, String s) {}
+
+    @Nullable String sameAsNullable() {
+      return null;
+    }
+  }
+
+  @NullMarked
+  enum Enum {
+    CONSTANT(null, 0, "");
+
+    Enum(@Nullable String nullable, int primitive, String plain) {}
+  }
+
+  @NullMarked
+  class Inner {
+    Inner(@Nullable String nullable, String plain) {}
+  }
+
+  static class Unmarked {
+    String plain = "";
+    @Nullable String nullable;
+    List<String> list = null;
+  }
+
+  @Test
+  void fields() throws Exception {
+    assertEquals("java.lang.String", field(Marked.class, "plain"));
+    assertEquals("java.lang.String?", field(Marked.class, "nullable"));
+    assertEquals("int", field(Marked.class, "primitive"));
+    assertEquals("java.lang.String?[]?", field(Marked.class, "array"));
+    assertEquals("java.util.Map<java.lang.String, java.lang.Integer?>", field(Marked.class, "map"));
+    assertEquals("T?", field(Marked.class, "nullableT"));
+    assertEquals("T!", field(Marked.class, "nonNullT"));
+  }
+
+  @Test
+  void unmarkedCode() throws Exception {
+    assertEquals("java.lang.String*", field(Unmarked.class, "plain"));
+    assertEquals("java.lang.String?", field(Unmarked.class, "nullable"));
+    assertEquals("java.util.List<java.lang.String*>*", field(Unmarked.class, "list"));
+  }
+
+  @Test
+  void wildcards() throws Exception {
+    AugmentedType unbounded = returnType("unbounded").typeArguments().get(0);
+    assertEquals(Kind.WILDCARD, unbounded.kind());
+    assertEquals(Kind.TYPE_VARIABLE, unbounded.upperBound().kind());
+    assertEquals(List.class.getTypeParameters()[0], unbounded.upperBound().typeVariable());
+    assertNull(unbounded.lowerBound());
+
+    AugmentedType lowerBounded = returnType("lowerBounded").typeArguments().get(0);
+    assertEquals("E", lowerBounded.upperBound().toString());
+    assertEquals("java.lang.String", lowerBounded.lowerBound().toString());
+
+    assertEquals(
+        "java.util.List<? extends java.lang.Number?>", returnType("upperBounded").toString());
+  }
+
+  @Test
+  void parametersAndTypeParameters() throws Exception {
+    Method generic = Marked.class.getDeclaredMethod("generic", Comparable.class, String.class);
+    assertEquals("U?", AugmentedTypes.parameterType(generic.getParameters()[0]).toString());
+    assertEquals(
+        "java.lang.String", AugmentedTypes.parameterType(generic.getParameters()[1]).toString());
+    assertEquals("void", AugmentedTypes.returnType(generic).toString());
+    assertEquals(
+        "[java.lang.Comparable<U>]",
+        AugmentedTypes.typeParameterBounds(generic.getTypeParameters()[0]).toString());
+    assertEquals(
+        "[java.lang.Object?]",
+        AugmentedTypes.typeParameterBounds(Marked.class.getTypeParameters()[0]).toString());
+  }
+
+  @Test
+  void enumConstructorParameters() {
+    Parameter[] parameters = Enum.class.getDeclaredConstructors()[0].getParameters();
+    // The compiler adds the name and ordinal, which we know nothing about, before the others.
+    assertEquals(5, parameters.length);
+    assertEquals("java.lang.String*", parameterType(parameters[0]));
+    assertEquals("java.lang.String?", parameterType(parameters[2]));
+    assertEquals("int", parameterType(parameters[3]));
+    assertEquals("java.lang.String", parameterType(parameters[4]));
+  }
+
+  @Test
+  void innerClassConstructorParameters() {
+    Parameter[] parameters = Inner.class.getDeclaredConstructors()[0].getParameters();
+    assertEquals(3, parameters.length);
+    // Before Java 9, reflection gives the outer instance the annotations of the first parameter.
+    boolean java8 = System.getProperty("java.version").startsWith("1.8");
+    assertEquals(java8 ? "java.lang.String*" : "java.lang.String?", parameterType(parameters[1]));
+    assertEquals("java.lang.String", parameterType(parameters[2]));
+  }
+
+  @Test
+  void localClassConstructorParameters() {
+    String captured = "";
+    @NullMarked
+    class Local {
+      Local(@Nullable String nullable, String plain) {
+        captured.length();
+      }
+    }
+    // Both an outer instance and the captured value may be among the parameters.
+    for (Parameter parameter : Local.class.getDeclaredConstructors()[0].getParameters()) {
+      assertEquals(
+          NullnessOperator.UNSPECIFIED, AugmentedTypes.parameterType(parameter).nullnessOperator());
+    }
+  }
+
+  @Test
+  void cachedAndInterned() throws Exception {
+    AugmentedType field = AugmentedTypes.fieldType(Marked.class.getDeclaredField("nullable"));
+    assertSame(field, AugmentedTypes.fieldType(Marked.class.getDeclaredField("nullable")));
+    assertSame(field, returnType("sameAsNullable"));
+    assertEquals(String.class, field.rawClass());
+    assertEquals(NullnessOperator.UNION_NULL, field.nullnessOperator());
+  }
+
+  @Test
+  void wrongKind() throws Exception {
+    AugmentedType field = AugmentedTypes.fieldType(Marked.class.getDeclaredField("plain"));
+    assertThrows(IllegalStateException.class, field::componentType);
+    assertThrows(IllegalStateException.class, field::typeVariable);
+  }
+
+  private static String field(Class<?> type, String name) throws Exception {
+    return AugmentedTypes.fieldType(type.getDeclaredField(name)).toString();
+  }
+
+  private static String parameterType(Parameter parameter) {
+    return AugmentedTypes.parameterType(parameter).toString();
+  }
+
+  private static AugmentedType returnType(String name) throws Exception {
+    return AugmentedTypes.returnType(Marked.class.getDeclaredMethod(name));
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.NullUnmarked;
+import org.jspecify.annotations.Nullable;
+import org.jspecify.runtime.NullMarkedScopes.Marking;
+import org.junit.jupiter.api.Test;
+
+class ClassFileAnnotationsTest {
+  @Retention(RUNTIME)
+  @interface WithElements {
+    String string();
+
+    int[] ints();
+
+    ElementType element();
+
+    Class<?> type();
+
+    Target target();
+  }
+
+  @NullMarked
+  @WithElements(
+      string = "s",
+      ints = {1, 2},
+      element = ElementType.TYPE,
+      type = String.class,
+      target = @Target(ElementType.FIELD))
+  @SuppressWarnings("unused") // not visible at runtime
+  @Deprecated
+  static class Annotated {
+    static final long CONSTANT = 1L; // takes two constant pool entries
+    static final double OTHER_CONSTANT = 2.0;
+
+    int field;
+
+    void method() {}
+  }
+
+  @NullUnmarked
+  static class Unmarked {}
+
+  static class Unannotated {}
+
+  @Test
+  void matchesReflection() throws IOException {
+    for (Class<?> type :
+        new Class<?>[] {
+          Annotated.class, Unmarked.class, Unannotated.class, WithElements.class, Nullable.class
+        }) {
+      assertEquals(reflected(type), ClassFileAnnotations.annotationDescriptors(bytes(type)));
+    }
+  }
+
+  @Test
+  void annotationWithModuleTarget() throws IOException {
+    assumeTrue(!System.getProperty("java.version").startsWith("1.8"), "fails under Java 8");
+    assertEquals(
+        reflected(NullMarked.class),
+        ClassFileAnnotations.annotationDescriptors(bytes(NullMarked.class)));
+  }
+
+  @Test
+  void packageInfo() {
+    ClassLoader loader = getClass().getClassLoader();
+    assertEquals(Marking.MARKED, PackageMarkings.of("org.jspecify.runtime.markedpackage", loader));
+    assertEquals(Marking.NONE, PackageMarkings.of("org.jspecify.runtime", loader));
+  }
+
+  @Test
+  void malformed() throws IOException {
+    byte[] bytes = bytes(Annotated.class);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ClassFileAnnotations.annotationDescriptors(Arrays.copyOf(bytes, bytes.length / 2)));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> ClassFileAnnotations.annotationDescriptors(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}));
+  }
+
+  private static List<String> reflected(Class<?> type) {
+    List<String> descriptors = new ArrayList<>();
+    for (Annotation annotation : type.getDeclaredAnnotations()) {
+      descriptors.add("L" + annotation.annotationType().getName().replace('.', '/') + ";");
+    }
+    return descriptors;
+  }
+
+  private static byte[] bytes(Class<?> type) throws IOException {
+    String path = type.getName().replace('.', '/') + ".class";
+    try (InputStream in = type.getClassLoader().getResourceAsStream(path)) {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      for (int n; (n = in.read(buffer)) > 0; ) {
+        bytes.write(buffer, 0, n);
+      }
+      return bytes.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static java.lang.invoke.MethodType.methodType;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.NullUnmarked;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+class NullGuardsTest {
+  @NullMarked
+  public static class Service {
+    public String echo(String s, @Nullable String t) {
+      return s.equals("return null") ? null : s;
+    }
+
+    public static @Nullable String nullable(@Nullable String s) {
+      return s;
+    }
+
+    public static int length(String s, int times) {
+      return s.length() * times;
+    }
+
+    public static String join(String separator, String... parts) {
+      return String.join(separator, parts);
+    }
+
+    @NullUnmarked
+    public static String unmarked(@NonNull String s, String t) {
+      return t;
+    }
+  }
+
+  private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+  @Test
+  void instanceMethod() throws Throwable {
+    Method method = Service.class.getMethod("echo", String.class, String.class);
+    MethodHandle guarded = NullGuards.guard(LOOKUP.unreflect(method), method);
+    Service service = new Service();
+    assertEquals("a", (String) guarded.invokeExact(service, "a", (String) null));
+    NullPointerException e =
+        assertThrows(
+            NullPointerException.class,
+            () -> {
+              String unused = (String) guarded.invokeExact(service, (String) null, "b");
+            });
+    assertEquals(
+        "non-null parameter 0 of org.jspecify.runtime.NullGuardsTest$Service.echo"
+            + "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;",
+        e.getMessage());
+    e =
+        assertThrows(
+            NullPointerException.class,
+            () -> {
+              String unused = (String) guarded.invokeExact(service, "return null", "b");
+            });
+    assertEquals(
+        "non-null return value of org.jspecify.runtime.NullGuardsTest$Service.echo"
+            + "(Ljava/lang/String;Ljava/lang/String;)Ljava/lang/String;",
+        e.getMessage());
+  }
+
+  @Test
+  void boundReceiverAndConvertedTypes() throws Throwable {
+    Method method = Service.class.getMethod("echo", String.class, String.class);
+    MethodHandle handle =
+        LOOKUP
+            .unreflect(method)
+            .bindTo(new Service())
+            .asType(methodType(Object.class, Object.class, Object.class));
+    MethodHandle guarded = NullGuards.guard(handle, method);
+    assertEquals("a", guarded.invokeExact((Object) "a", (Object) null));
+    assertThrows(
+        NullPointerException.class, () -> guarded.invokeExact((Object) null, (Object) "b"));
+  }
+
+  @Test
+  void nothingToCheck() throws Throwable {
+    Method nullable = Service.class.getMethod("nullable", String.class);
+    MethodHandle handle = LOOKUP.unreflect(nullable);
+    assertSame(handle, NullGuards.guard(handle, nullable));
+
+    Method unmarked = Service.class.getMethod("unmarked", String.class, String.class);
+    MethodHandle guarded = NullGuards.guard(LOOKUP.unreflect(unmarked), unmarked);
+    assertNull((String) guarded.invokeExact("a", (String) null));
+    assertThrows(
+        NullPointerException.class,
+        () -> {
+          String unused = (String) guarded.invokeExact((String) null, "b");
+        });
+  }
+
+  @Test
+  void primitives() throws Throwable {
+    Method method = Service.class.getMethod("length", String.class, int.class);
+    MethodHandle guarded = NullGuards.guard(LOOKUP.unreflect(method), method);
+    assertEquals(6, (int) guarded.invokeExact("abc", 2));
+    NullPointerException e =
+        assertThrows(
+            NullPointerException.class,
+            () -> {
+              int unused = (int) guarded.invokeExact((String) null, 2);
+            });
+    assertEquals(
+        "non-null parameter 0 of org.jspecify.runtime.NullGuardsTest$Service.length"
+            + "(Ljava/lang/String;I)I",
+        e.getMessage());
+  }
+
+  @Test
+  void varargs() throws Throwable {
+    Method method = Service.class.getMethod("join", String.class, String[].class);
+    MethodHandle handle = LOOKUP.unreflect(method);
+    MethodHandle guarded = NullGuards.guard(handle, method);
+    assertTrue(guarded.isVarargsCollector());
+    assertEquals("x,y", (String) guarded.invoke(",", "x", "y"));
+    assertEquals("x,y", (String) guarded.invoke(",", new String[] {"x", "y"}));
+    NullPointerException e =
+        assertThrows(NullPointerException.class, () -> guarded.invoke((String) null, "x"));
+    assertEquals(
+        "non-null parameter 0 of org.jspecify.runtime.NullGuardsTest$Service.join"
+            + "(Ljava/lang/String;[Ljava/lang/String;)Ljava/lang/String;",
+        e.getMessage());
+    assertSame(guarded, NullGuards.guard(handle, method));
+  }
+
+  @Test
+  void cached() throws Throwable {
+    Method method = Service.class.getMethod("echo", String.class, String.class);
+    MethodHandle handle = LOOKUP.unreflect(method);
+    MethodHandle guarded = NullGuards.guard(handle, method);
+    assertSame(guarded, NullGuards.guard(handle, method));
+  }
+
+  @Test
+  void wrongHandle() throws Throwable {
+    Method method = Service.class.getMethod("echo", String.class, String.class);
+    MethodHandle handle =
+        LOOKUP.findStatic(Service.class, "nullable", methodType(String.class, String.class));
+    assertThrows(IllegalArgumentException.class, () -> NullGuards.guard(handle, method));
+  }
+}
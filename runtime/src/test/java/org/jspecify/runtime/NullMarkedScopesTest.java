@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.NullUnmarked;
+import org.jspecify.runtime.markedpackage.InMarkedPackage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NullMarkedScopesTest {
+  static class Unannotated {
+    Unannotated() {}
+
+    @NullMarked
+    Unannotated(String s) {}
+
+    @NullMarked
+    static Class<?> localClassOfMarkedMethod() {
+      class Local {}
+      return Local.class;
+    }
+
+    void method() {}
+
+    @NullMarked
+    void markedMethod() {}
+  }
+
+  @NullMarked
+  static class Marked {
+    String field = "";
+
+    static final Object ANONYMOUS = new Object() {};
+
+    void method() {}
+
+    @NullUnmarked
+    void unmarkedMethod() {}
+
+    @NullMarked
+    @NullUnmarked
+    void bothMethod() {}
+
+    static class Nested {}
+
+    @NullUnmarked
+    static class UnmarkedNested {
+      static class Inner {}
+    }
+
+    @NullMarked
+    @NullUnmarked
+    static class BothNested {}
+  }
+
+  @TempDir Path temp;
+
+  @Test
+  void classes() {
+    assertFalse(NullMarkedScopes.isNullMarked(NullMarkedScopesTest.class));
+    assertFalse(NullMarkedScopes.isNullMarked(Unannotated.class));
+    assertTrue(NullMarkedScopes.isNullMarked(Marked.class));
+    assertTrue(NullMarkedScopes.isNullMarked(Marked.Nested.class));
+    assertFalse(NullMarkedScopes.isNullMarked(Marked.UnmarkedNested.class));
+    assertFalse(NullMarkedScopes.isNullMarked(Marked.UnmarkedNested.Inner.class));
+    // The two annotations cancel out, so the enclosing class decides.
+    assertTrue(NullMarkedScopes.isNullMarked(Marked.BothNested.class));
+  }
+
+  @Test
+  void localAndAnonymousClasses() {
+    assertTrue(NullMarkedScopes.isNullMarked(Unannotated.localClassOfMarkedMethod()));
+    assertTrue(NullMarkedScopes.isNullMarked(Marked.ANONYMOUS.getClass()));
+  }
+
+  @Test
+  void methodsAndConstructors() throws Exception {
+    assertFalse(NullMarkedScopes.isNullMarked(Unannotated.class.getDeclaredMethod("method")));
+    assertTrue(NullMarkedScopes.isNullMarked(Unannotated.class.getDeclaredMethod("markedMethod")));
+    assertTrue(NullMarkedScopes.isNullMarked(Marked.class.getDeclaredMethod("method")));
+    assertFalse(NullMarkedScopes.isNullMarked(Marked.class.getDeclaredMethod("unmarkedMethod")));
+    assertTrue(NullMarkedScopes.isNullMarked(Marked.class.getDeclaredMethod("bothMethod")));
+
+    Constructor<?> unmarked = Unannotated.class.getDeclaredConstructor();
+    Constructor<?> marked = Unannotated.class.getDeclaredConstructor(String.class);
+    assertFalse(NullMarkedScopes.isNullMarked(unmarked));
+    assertTrue(NullMarkedScopes.isNullMarked(marked));
+    assertTrue(NullMarkedScopes.isNullMarked(marked.getParameters()[0]));
+  }
+
+  @Test
+  void fields() throws Exception {
+    assertTrue(NullMarkedScopes.isNullMarked(Marked.class.getDeclaredField("field")));
+    assertTrue(NullMarkedScopes.isNullMarked(InMarkedPackage.class.getField("field")));
+  }
+
+  @Test
+  void packages() throws Exception {
+    assertTrue(NullMarkedScopes.isNullMarked(InMarkedPackage.class));
+    Method method = InMarkedPackage.class.getMethod("method", String.class);
+    assertTrue(NullMarkedScopes.isNullMarked(method));
+    assertFalse(NullMarkedScopes.isNullMarked(InMarkedPackage.Unmarked.class));
+    assertFalse(NullMarkedScopes.isNullMarked(InMarkedPackage.Unmarked.class.getMethod("method")));
+  }
+
+  @Test
+  void packagePerClassLoader() throws Exception {
+    // Another loader defines its own part of the package, without the package-info.
+    String path = InMarkedPackage.class.getName().replace('.', '/') + ".class";
+    Path copy = temp.resolve(path);
+    Files.createDirectories(copy.getParent());
+    try (InputStream in = InMarkedPackage.class.getClassLoader().getResourceAsStream(path)) {
+      Files.copy(in, copy);
+    }
+    try (URLClassLoader loader = new URLClassLoader(new URL[] {temp.toUri().toURL()}, null)) {
+      Class<?> split = Class.forName(InMarkedPackage.class.getName(), false, loader);
+      assertFalse(NullMarkedScopes.isNullMarked(split));
+    }
+    assertTrue(NullMarkedScopes.isNullMarked(InMarkedPackage.class));
+  }
+
+  @Test
+  void primitivesAndArrays() {
+    assertFalse(NullMarkedScopes.isNullMarked(int.class));
+    assertFalse(NullMarkedScopes.isNullMarked(Marked[].class));
+  }
+
+  @Test
+  void repeatedLookupsAgree() throws Exception {
+    Method method = Marked.class.getDeclaredMethod("unmarkedMethod");
+    for (int i = 0; i < 3; i++) {
+      assertTrue(NullMarkedScopes.isNullMarked(Marked.class));
+      assertFalse(NullMarkedScopes.isNullMarked(method));
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import javax.lang.model.SourceVersion;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.NullMarked;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NullPlanTest {
+  @NullMarked
+  static class Marked<T extends @Nullable Object> {
+    static String ignored;
+    String plain;
+    @Nullable String nullable;
+    int primitive;
+    T parametric;
+    @NonNull T nonNullParametric;
+
+    Marked(String plain, @Nullable String nullable, T parametric) {}
+  }
+
+  static class Unmarked {
+    String plain;
+    @NonNull String nonNull;
+
+    Unmarked(@NonNull String nonNull, long primitive, Object plain) {}
+  }
+
+  @NullMarked
+  class Inner {
+    String plain;
+
+    Inner(@Nullable String nullable, String plain) {}
+  }
+
+  @NullMarked
+  enum Enum {
+    CONSTANT(null, 0, "");
+
+    Enum(@Nullable String nullable, int primitive, String plain) {}
+  }
+
+  @TempDir Path temp;
+
+  @Test
+  void fields() {
+    NullPlan plan = NullPlan.of(Marked.class);
+    assertEquals(
+        asList("plain", "nullable", "primitive", "parametric", "nonNullParametric"),
+        names(plan.fields()));
+    assertEquals(asList(true, false, true, false, true), fieldBits(plan));
+
+    assertEquals(asList(false, true), fieldBits(NullPlan.of(Unmarked.class)));
+    assertEquals(asList(true), fieldBits(NullPlan.of(Inner.class)));
+  }
+
+  @Test
+  void constructorParameters() {
+    NullPlan plan = NullPlan.of(Marked.class);
+    assertEquals(1, plan.constructors().size());
+    assertEquals(asList(true, false, false), parameterBits(plan, 0));
+
+    assertEquals(asList(true, true, false), parameterBits(NullPlan.of(Unmarked.class), 0));
+
+    // The enclosing instance comes first. Before Java 9, reflection gives it the annotations of
+    // the first parameter in the source, so we don't know what that parameter's annotations are.
+    boolean java8 = System.getProperty("java.version").startsWith("1.8");
+    assertEquals(asList(!java8, false, true), parameterBits(NullPlan.of(Inner.class), 0));
+
+    // The name and ordinal come first, and reflection gives them the annotations of the others.
+    assertEquals(asList(false, true, false, true, true), parameterBits(NullPlan.of(Enum.class), 0));
+  }
+
+  @Test
+  void cached() {
+    assertSame(NullPlan.of(Marked.class), NullPlan.of(Marked.class));
+  }
+
+  @Test
+  void notARecord() {
+    assertTrue(NullPlan.of(Marked.class).recordComponents().isEmpty());
+  }
+
+  @Test
+  void indexesAreChecked() {
+    NullPlan plan = NullPlan.of(Unmarked.class);
+    // The bits of the constructor parameters follow those of the fields, but are not theirs.
+    assertThrows(IndexOutOfBoundsException.class, () -> plan.isNonNullField(2));
+    assertThrows(IndexOutOfBoundsException.class, () -> plan.isNonNullField(-1));
+    assertThrows(IndexOutOfBoundsException.class, () -> plan.isNonNullRecordComponent(0));
+    assertThrows(IndexOutOfBoundsException.class, () -> plan.isNonNullParameter(0, 3));
+    assertThrows(IndexOutOfBoundsException.class, () -> plan.isNonNullParameter(1, 0));
+  }
+
+  @Test
+  void record() throws Exception {
+    assumeTrue(SourceVersion.latestSupported().ordinal() >= 16, "records need Java 16");
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assumeTrue(compiler != null, "no system Java compiler");
+    String source =
+        String.join(
+            "\n",
+            "package records;",
+            "import org.jspecify.annotations.*;",
+            "@NullMarked",
+            "public record Point(String name, @Nullable String label, int x) {}");
+    Path out = Files.createDirectories(temp.resolve("classes"));
+    List<String> options =
+        asList("-classpath", System.getProperty("java.class.path"), "-d", out.toString());
+    SimpleJavaFileObject file =
+        new SimpleJavaFileObject(URI.create("string:///records/Point.java"), Kind.SOURCE) {
+          @Override
+          public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+          }
+        };
+    assertTrue(compiler.getTask(null, null, null, options, null, asList(file)).call());
+    try (URLClassLoader loader =
+        new URLClassLoader(
+            new URL[] {out.toUri().toURL()}, NullPlanTest.class.getClassLoader())) {
+      NullPlan plan = NullPlan.of(Class.forName("records.Point", false, loader));
+      assertEquals(asList("name", "label", "x"), plan.recordComponents());
+      List<Boolean> components = new ArrayList<>();
+      for (int i = 0; i < plan.recordComponents().size(); i++) {
+        components.add(plan.isNonNullRecordComponent(i));
+      }
+      assertEquals(asList(true, false, true), components);
+      assertEquals(components, fieldBits(plan));
+      // The canonical constructor is the only one.
+      assertEquals(components, parameterBits(plan, 0));
+    }
+  }
+
+  private static List<String> names(List<Field> fields) {
+    List<String> names = new ArrayList<>();
+    for (Field field : fields) {
+      names.add(field.getName());
+    }
+    return names;
+  }
+
+  private static List<Boolean> fieldBits(NullPlan plan) {
+    List<Boolean> bits = new ArrayList<>();
+    for (int i = 0; i < plan.fields().size(); i++) {
+      bits.add(plan.isNonNullField(i));
+    }
+    return bits;
+  }
+
+  private static List<Boolean> parameterBits(NullPlan plan, int constructor) {
+    Constructor<?> c = plan.constructors().get(constructor);
+    List<Boolean> bits = new ArrayList<>();
+    for (int i = 0; i < c.getParameterCount(); i++) {
+      bits.add(plan.isNonNullParameter(constructor, i));
+    }
+    return bits;
+  }
+}
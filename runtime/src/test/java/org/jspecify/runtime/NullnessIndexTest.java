@@ -0,0 +1,294 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import javax.lang.model.SourceVersion;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.JavaFileObject.Kind;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NullnessIndexTest {
+  private static final String[][] SOURCES = {
+    {
+      "indexed/Indexed.java",
+      "package indexed;",
+      "import java.util.List;",
+      "import java.util.Map;",
+      "import org.jspecify.annotations.*;",
+      "@NullMarked",
+      "public class Indexed<T extends @Nullable Object> {",
+      "  public String plain;",
+      "  public @Nullable String nullable;",
+      "  public int primitive;",
+      "  public @Nullable String @Nullable [] array;",
+      "  public Map<String, @Nullable Integer> map;",
+      "  public List<?> unbounded;",
+      "  public List<? super @Nullable String> lowerBounded;",
+      "  public List<? extends @Nullable Number> upperBounded;",
+      "  public @Nullable T t;",
+      "  public Indexed(@Nullable String s) {}",
+      "  public <U> @NonNull U generic(@Nullable U u, List<U>[] lists, long l) { return null; }",
+      "  @NullUnmarked public String unmarked(String s) { return s; }",
+      "  public class Inner { public Inner(String s) {} public String field; }",
+      "  public enum Kind { A; Kind() {} public String field; }",
+      "}",
+      "class Plain { String plain; List<@Nullable String> list; void method(int[] ints) {} }",
+    },
+    {
+      "indexed/marked/package-info.java",
+      "@org.jspecify.annotations.NullMarked package indexed.marked;",
+    },
+    {
+      "indexed/marked/InMarkedPackage.java",
+      "package indexed.marked;",
+      "public class InMarkedPackage { public String field; }",
+    },
+  };
+
+  private static final String[] CLASSES = {
+    "indexed.Indexed",
+    "indexed.Indexed$Inner",
+    "indexed.Indexed$Kind",
+    "indexed.Plain",
+    "indexed.marked.InMarkedPackage",
+  };
+
+  @TempDir Path temp;
+
+  @Test
+  void indexMatchesReflection() throws Exception {
+    Path classes = compile();
+    try (URLClassLoader loader = loader(classes)) {
+      NullnessIndex index = NullnessIndex.load(loader);
+      for (String name : CLASSES) {
+        assertMatchesReflection(index, Class.forName(name, false, loader));
+      }
+    }
+  }
+
+  @Test
+  void indexInJar() throws Exception {
+    Path classes = compile();
+    Path jar = temp.resolve("indexed.jar");
+    try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+        Stream<Path> files = Files.walk(classes)) {
+      for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+        out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace('\\', '/')));
+        Files.copy(file, out);
+      }
+    }
+    try (URLClassLoader loader = loader(jar)) {
+      NullnessIndex index = NullnessIndex.load(loader);
+      assertEquals(Boolean.TRUE, index.isNullMarked("indexed.Indexed"));
+      assertEquals(Boolean.FALSE, index.isNullMarked("indexed.Plain"));
+      String generic = "(Ljava/lang/Object;[Ljava/util/List;J)Ljava/lang/Object;";
+      assertEquals(operators("!"), index.returnNullness("indexed.Indexed", "generic", generic));
+      assertEquals(
+          operators("?"), index.parameterNullness("indexed.Indexed", "generic", generic, 0));
+      assertEquals(
+          operators(".", ".", "."),
+          index.parameterNullness("indexed.Indexed", "generic", generic, 1));
+      assertEquals(operators("*", "?"), index.fieldNullness("indexed.Plain", "list"));
+    }
+  }
+
+  @Test
+  void unindexed() throws Exception {
+    Path classes = compile();
+    try (URLClassLoader loader = loader(classes)) {
+      NullnessIndex index = NullnessIndex.load(loader);
+      assertNull(index.isNullMarked("indexed.Missing"));
+      assertNull(index.fieldNullness("indexed.Indexed", "missing"));
+      assertNull(index.returnNullness("indexed.Indexed", "plain", "()V"));
+      assertNull(index.returnNullness("indexed.Indexed$Inner", "<init>", "(Ljava/lang/String;)V"));
+    }
+  }
+
+  @Test
+  void tooManyMembers() {
+    NullnessIndexFormat.Writer writer = new NullnessIndexFormat.Writer();
+    writer.addClass("Huge", false);
+    for (int i = 0; i <= 0xFFFF; i++) {
+      writer.addMember("Huge", "field" + i, "I", "");
+    }
+    assertThrows(IllegalArgumentException.class, writer::toByteArray);
+  }
+
+  private Path compile() throws IOException {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assumeTrue(compiler != null, "no system Java compiler");
+    assumeTrue(
+        SourceVersion.latestSupported().compareTo(SourceVersion.RELEASE_8) > 0,
+        "javac 8 doesn't show type annotations to processors");
+    Path out = Files.createDirectories(temp.resolve("classes"));
+    List<JavaFileObject> sources = new ArrayList<>();
+    for (String[] source : SOURCES) {
+      String text = String.join("\n", Arrays.asList(source).subList(1, source.length));
+      sources.add(
+          new SimpleJavaFileObject(URI.create("string:///" + source[0]), Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+              return text;
+            }
+          });
+    }
+    List<String> options =
+        Arrays.asList(
+            "-classpath",
+            System.getProperty("java.class.path"),
+            "-d",
+            out.toString(),
+            "-processor",
+            NullnessIndexProcessor.class.getName());
+    assertTrue(compiler.getTask(null, null, null, options, null, sources).call());
+    return out;
+  }
+
+  private static URLClassLoader loader(Path path) throws IOException {
+    return new URLClassLoader(
+        new URL[] {path.toUri().toURL()}, NullnessIndexTest.class.getClassLoader());
+  }
+
+  private static void assertMatchesReflection(NullnessIndex index, Class<?> type) {
+    String className = type.getName();
+    assertEquals(NullMarkedScopes.isNullMarked(type), index.isNullMarked(className), className);
+    for (Field field : type.getDeclaredFields()) {
+      if (!field.isSynthetic()) {
+        assertEquals(
+            operators(AugmentedTypes.fieldType(field)),
+            index.fieldNullness(className, field.getName()),
+            field.toString());
+      }
+    }
+    List<Executable> executables = new ArrayList<>();
+    executables.addAll(Arrays.asList(type.getDeclaredMethods()));
+    executables.addAll(Arrays.asList(type.getDeclaredConstructors()));
+    for (Executable executable : executables) {
+      if (executable.isSynthetic()) {
+        continue;
+      }
+      String name = executable instanceof Constructor ? "<init>" : executable.getName();
+      String descriptor = descriptor(executable);
+      if (executable instanceof Constructor && hasSyntheticConstructorParameters(type)) {
+        assertNull(index.returnNullness(className, name, descriptor));
+        continue;
+      }
+      if (executable instanceof Method) {
+        assertEquals(
+            operators(AugmentedTypes.returnType((Method) executable)),
+            index.returnNullness(className, name, descriptor),
+            executable.toString());
+      }
+      for (int i = 0; i < executable.getParameterCount(); i++) {
+        assertEquals(
+            operators(AugmentedTypes.parameterType(executable.getParameters()[i])),
+            index.parameterNullness(className, name, descriptor, i),
+            executable.toString());
+      }
+    }
+  }
+
+  private static boolean hasSyntheticConstructorParameters(Class<?> type) {
+    return type.isEnum() || (type.isMemberClass() && !Modifier.isStatic(type.getModifiers()));
+  }
+
+  private static List<NullnessOperator> operators(AugmentedType type) {
+    List<NullnessOperator> operators = new ArrayList<>();
+    addOperators(type, operators);
+    return operators;
+  }
+
+  private static void addOperators(AugmentedType type, List<NullnessOperator> operators) {
+    operators.add(type.nullnessOperator());
+    switch (type.kind()) {
+      case CLASS:
+        for (AugmentedType argument : type.typeArguments()) {
+          addOperators(argument, operators);
+        }
+        break;
+      case ARRAY:
+        addOperators(type.componentType(), operators);
+        break;
+      case WILDCARD:
+        addOperators(type.upperBound(), operators);
+        if (type.lowerBound() != null) {
+          addOperators(type.lowerBound(), operators);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private static List<NullnessOperator> operators(String... codes) {
+    List<NullnessOperator> operators = new ArrayList<>();
+    for (String code : codes) {
+      operators.add(NullnessIndexFormat.operator(code.charAt(0)));
+    }
+    return operators;
+  }
+
+  private static String descriptor(Executable executable) {
+    StringBuilder descriptor = new StringBuilder("(");
+    for (Class<?> parameter : executable.getParameterTypes()) {
+      descriptor.append(descriptor(parameter));
+    }
+    descriptor.append(')');
+    descriptor.append(
+        executable instanceof Method ? descriptor(((Method) executable).getReturnType()) : "V");
+    return descriptor.toString();
+  }
+
+  private static String descriptor(Class<?> type) {
+    if (type == void.class) {
+      return "V";
+    } else if (type.isPrimitive()) {
+      // The descriptor of a primitive type is the descriptor of an array of it, minus the "[".
+      return Array.newInstance(type, 0).getClass().getName().substring(1);
+    }
+    return type.isArray()
+        ? type.getName().replace('.', '/')
+        : "L" + type.getName().replace('.', '/') + ";";
+  }
+}
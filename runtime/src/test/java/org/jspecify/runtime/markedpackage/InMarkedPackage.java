@@ -0,0 +1,35 @@
+/*
+ * Copyright 2026 The JSpecify Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jspecify.runtime.markedpackage;
+
+import org.jspecify.annotations.NullUnmarked;
+import org.jspecify.annotations.Nullable;
+
+/** A class that is null-marked only because its package is. */
+public class InMarkedPackage {
+  public @Nullable String field;
+
+  public String method(@Nullable String s) {
+    return String.valueOf(s);
+  }
+
+  @NullUnmarked
+  public static class Unmarked {
+    public String method() {
+      return "";
+    }
+  }
+}